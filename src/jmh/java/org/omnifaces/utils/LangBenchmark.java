@@ -0,0 +1,78 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils;
+
+import java.text.Normalizer;
+import java.text.Normalizer.Form;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Average time of {@link Lang#toUrlSafe(String)} and {@link Lang#replaceLast(String, String, String)} against the regex chains they
+ * replaced, on product title like input. Run with <code>mvn -P benchmark test-compile exec:exec -Djmh.includes=LangBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LangBenchmark {
+
+	@Param({ "Crème Brûlée Dessert Set — 4 pièces (édition limitée)", "already-a-url-safe-slug-42" })
+	public String title;
+
+	@Benchmark
+	public String toUrlSafe() {
+		return Lang.toUrlSafe(title);
+	}
+
+	@Benchmark
+	public String regexToUrlSafe() {
+		return Normalizer.normalize(title.trim(), Form.NFD)
+			.replaceAll("\\p{InCombiningDiacriticalMarks}+", "")
+			.replaceAll("[^\\p{Alnum}]+", "-")
+			.replaceAll("(^-|-$)", "");
+	}
+
+	@Benchmark
+	public String replaceLastLiteral() {
+		return Lang.replaceLast(title, "e", "E");
+	}
+
+	@Benchmark
+	public String regexReplaceLastLiteral() {
+		return title.replaceFirst("(?s)(.*)" + "e", "$1" + "E");
+	}
+
+	@Benchmark
+	public String replaceLastRegex() {
+		return Lang.replaceLast(title, "[0-9]+", "#");
+	}
+
+	@Benchmark
+	public String regexReplaceLastRegex() {
+		return title.replaceFirst("(?s)(.*)" + "[0-9]+", "$1" + "#");
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.cache;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@link Cache} under concurrent reads and writes of keys with a skewed popularity, with and without a maximum size, so that
+ * the cost of the eviction policy shows. Run with <code>mvn -P benchmark test-compile exec:exec</code>, optionally with
+ * <code>-Djmh.includes=&lt;regex&gt;</code> to select benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CacheBenchmark {
+
+	private static final int KEY_COUNT = 1 << 16;
+	private static final int MASK = KEY_COUNT - 1;
+
+	/** The maximum size of the cache, or 0 for an unbounded cache. */
+	@Param({ "0", "1024" })
+	public int maximumSize;
+
+	private Cache<Integer, Integer> cache;
+	private Integer[] keys;
+
+	@State(Scope.Thread)
+	public static class Position {
+
+		int index;
+
+		@Setup(Level.Iteration)
+		public void setUp() {
+			index = ThreadLocalRandom.current().nextInt(KEY_COUNT);
+		}
+
+		int next() {
+			return index++ & MASK;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		CacheBuilder<Object, Object> builder = Cache.builder();
+		cache = (maximumSize > 0 ? builder.withMaximumSize(maximumSize) : builder).build(key -> key);
+		keys = new Integer[KEY_COUNT];
+		Random random = new Random(42);
+
+		// Roughly a Zipf distribution: low numbers are far more popular than high ones, like in most real workloads.
+		for (int i = 0; i < KEY_COUNT; i++) {
+			keys[i] = (int) Math.pow(KEY_COUNT, random.nextDouble()) - 1;
+		}
+
+		for (Integer key : keys) {
+			cache.get(key);
+		}
+	}
+
+	@Benchmark
+	public Integer read(Position position) {
+		return cache.get(keys[position.next()]);
+	}
+
+	@Benchmark
+	public Integer readWrite(Position position) {
+		int index = position.next();
+		Integer key = keys[index];
+
+		if ((index & 3) == 0) {
+			cache.put(key, key);
+			return key;
+		}
+
+		return cache.get(key);
+	}
+
+	@Benchmark
+	public Integer write(Position position) {
+		Integer key = keys[position.next()];
+		cache.put(key, key);
+		return key;
+	}
+
+}
@@ -18,6 +18,7 @@ module org.omnifaces.utils {
     exports org.omnifaces.utils;
 
     exports org.omnifaces.utils.annotation;
+    exports org.omnifaces.utils.cache;
     exports org.omnifaces.utils.collection;
     exports org.omnifaces.utils.data;
     exports org.omnifaces.utils.exceptions;
@@ -14,13 +14,14 @@ package org.omnifaces.utils;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.Spliterator;
+
+import org.omnifaces.utils.CompactCollections.MapBuilder;
+import org.omnifaces.utils.CompactCollections.SetBuilder;
 
 public final class Collections {
 
@@ -36,27 +37,32 @@ public final class Collections {
 	 * @return An unmodifiable set based on the given values.
 	 * @throws ClassCastException When one of the values or one of the arrays or collections is of wrong type.
 	 */
-	@SuppressWarnings("unchecked")
 	public static <E> Set<E> unmodifiableSet(Object... values) {
-		Set<E> set = new HashSet<>();
+		int maxSize = 0;
+
+		for (Object value : values) {
+			maxSize += value instanceof Object[] ? ((Object[]) value).length : value instanceof Collection<?> ? ((Collection<?>) value).size() : 1;
+		}
+
+		SetBuilder set = new SetBuilder(maxSize);
 
 		for (Object value : values) {
 			if (value instanceof Object[]) {
 				for (Object item : (Object[]) value) {
-					set.add((E) item);
+					set.add(item);
 				}
 			}
 			else if (value instanceof Collection<?>) {
 				for (Object item : (Collection<?>) value) {
-					set.add((E) item);
+					set.add(item);
 				}
 			}
 			else {
-				set.add((E) value);
+				set.add(value);
 			}
 		}
 
-		return java.util.Collections.unmodifiableSet(set);
+		return set.build();
 	}
 
 	/**
@@ -64,48 +70,47 @@ public final class Collections {
 	 * <p>
 	 * This method makes NO guarantee to whether changes to the source iterable are
 	 * reflected in the returned list or not. For instance if the given iterable
-	 * already is a list, it's returned directly.
+	 * already is a list, it's returned directly. Otherwise an unmodifiable list is returned.
 	 *
 	 * @param <E> The generic iterable element type.
 	 * @param iterable The iterable to be converted.
 	 * @return The list representation of the given iterable, possibly the same instance as that iterable.
 	 */
 	public static <E> List<E> iterableToList(Iterable<E> iterable) {
-
-		List<E> list = null;
-
 		if (iterable instanceof List) {
-			list = (List<E>) iterable;
-		} else if (iterable instanceof Collection) {
-			list = new ArrayList<>((Collection<E>) iterable);
-		} else {
-			list = new ArrayList<>();
-			Iterator<E> iterator = iterable.iterator();
-			while (iterator.hasNext()) {
-				list.add(iterator.next());
-			}
+			return (List<E>) iterable;
 		}
 
-		return list;
+		if (iterable instanceof Collection) {
+			return CompactCollections.listOf(((Collection<E>) iterable).toArray());
+		}
+
+		Spliterator<E> spliterator = iterable.spliterator();
+		long size = spliterator.getExactSizeIfKnown();
+		List<E> list = new ArrayList<>(size < 0 || size > Integer.MAX_VALUE ? 10 : (int) size);
+		spliterator.forEachRemaining(list::add);
+		return CompactCollections.listOf(list.toArray());
 	}
 
 	/**
-	 * Returns a new map that contains the reverse of the given map.
+	 * Returns a new unmodifiable map that contains the reverse of the given map.
 	 * <p>
 	 * The reverse of a map means that every value X becomes a key X' with as corresponding
-	 * value Y' the key Y that was originally associated with the value X.
+	 * value Y' the key Y that was originally associated with the value X. If multiple keys
+	 * are associated with the same value, the last one in iteration order wins.
 	 *
 	 * @param <T> The generic map key/value type.
 	 * @param source the map that is to be reversed
 	 * @return the reverse of the given map
 	 */
 	public static <T> Map<T, T> reverse(Map<T, T> source) {
-		Map<T, T> target = new HashMap<>();
+		MapBuilder target = new MapBuilder(source.size());
+
 		for (Entry<T, T> entry : source.entrySet()) {
 			target.put(entry.getValue(), entry.getKey());
 		}
 
-		return target;
+		return target.build();
 	}
 
 	/**
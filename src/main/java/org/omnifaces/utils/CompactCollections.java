@@ -0,0 +1,442 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Compact immutable collections for {@link Collections}, which are built presized in a single pass and hold their elements in a plain
+ * array, without a wrapper or an entry object per element.
+ *
+ * <p>
+ * The set and the map find their elements by a linear scan up to {@value #MAX_LINEAR_SIZE} elements, which beats hashing at such sizes.
+ * Beyond that, they keep an open addressing hash table with linear probing next to the array, holding the index in the array plus one per
+ * slot. The table is at most half full, so probe sequences stay short. Unlike {@link Set#of(Object...)} and {@link Map#of()}, they
+ * accept <code>null</code> elements, as the <code>java.util</code> collections they replace did. The table is not serialized, as it depends
+ * on hash codes which may differ in another JVM, such as those of enums and classes, but rebuilt from the array on deserialization.
+ */
+final class CompactCollections {
+
+	private static final int MAX_LINEAR_SIZE = 8;
+	private static final Object[] EMPTY = {};
+
+	private CompactCollections() {
+	}
+
+	/**
+	 * Returns a table for the given maximum number of keys, or <code>null</code> if they can be scanned linearly.
+	 */
+	static int[] newTable(int maxSize) {
+		return maxSize <= MAX_LINEAR_SIZE ? null : new int[Integer.highestOneBit(maxSize - 1) << 2];
+	}
+
+	/**
+	 * Returns the index of the given key in the array, in which every key is followed by <code>stride - 1</code> other items, or else
+	 * the one's complement of the free slot in the table to insert it at.
+	 */
+	static int find(Object[] array, int stride, int size, int[] table, Object key) {
+		if (table == null) {
+			for (int i = 0; i < size; i++) {
+				if (Objects.equals(array[i * stride], key)) {
+					return i;
+				}
+			}
+
+			return ~0;
+		}
+
+		int mask = table.length - 1;
+
+		for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+			int entry = table[slot];
+
+			if (entry == 0) {
+				return ~slot;
+			}
+
+			if (Objects.equals(array[(entry - 1) * stride], key)) {
+				return entry - 1;
+			}
+		}
+	}
+
+	private static int hash(Object key) {
+		int hash = key == null ? 0 : key.hashCode() * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns a table for the given distinct keys in the array, in which every key is followed by <code>stride - 1</code> other items,
+	 * or <code>null</code> if they can be scanned linearly.
+	 */
+	static int[] rebuildTable(Object[] array, int stride, int size) {
+		int[] table = newTable(size);
+
+		if (table != null) {
+			for (int i = 0; i < size; i++) {
+				table[~find(array, stride, i, table, array[i * stride])] = i + 1;
+			}
+		}
+
+		return table;
+	}
+
+	/**
+	 * Returns the given table if it is still needed for the given final number of keys.
+	 */
+	static int[] trimTable(int[] table, int size) {
+		return size <= MAX_LINEAR_SIZE ? null : table;
+	}
+
+	static Object[] trimArray(Object[] array, int length) {
+		return length == 0 ? EMPTY : length == array.length ? array : Arrays.copyOf(array, length);
+	}
+
+	/**
+	 * Set backed by an array of distinct elements.
+	 */
+	static final class CompactSet<E> extends AbstractSet<E> implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Object[] elements;
+		private transient int[] table;
+
+		CompactSet(Object[] elements, int[] table) {
+			this.elements = elements;
+			this.table = table;
+		}
+
+		private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+			input.defaultReadObject();
+			table = rebuildTable(elements, 1, elements.length);
+		}
+
+		@Override
+		public int size() {
+			return elements.length;
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			return find(elements, 1, elements.length, table, object) >= 0;
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			return new ArrayIterator<>(elements, 1, 0);
+		}
+
+		@Override
+		public Spliterator<E> spliterator() {
+			return Spliterators.spliterator(elements, Spliterator.DISTINCT | Spliterator.IMMUTABLE);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void forEach(Consumer<? super E> action) {
+			for (Object element : elements) {
+				action.accept((E) element);
+			}
+		}
+
+		@Override
+		public Object[] toArray() {
+			return elements.clone();
+		}
+	}
+
+	/**
+	 * List backed by an array.
+	 */
+	static final class CompactList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Object[] elements;
+
+		CompactList(Object[] elements) {
+			this.elements = elements;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public E get(int index) {
+			return (E) elements[index];
+		}
+
+		@Override
+		public int size() {
+			return elements.length;
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			return new ArrayIterator<>(elements, 1, 0);
+		}
+
+		@Override
+		public Spliterator<E> spliterator() {
+			return Spliterators.spliterator(elements, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void forEach(Consumer<? super E> action) {
+			for (Object element : elements) {
+				action.accept((E) element);
+			}
+		}
+
+		@Override
+		public Object[] toArray() {
+			return elements.clone();
+		}
+	}
+
+	/**
+	 * Map backed by an array holding every key directly followed by its value.
+	 */
+	static final class CompactMap<K, V> extends AbstractMap<K, V> implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Object[] entries;
+		private transient int[] table;
+
+		CompactMap(Object[] entries, int[] table) {
+			this.entries = entries;
+			this.table = table;
+		}
+
+		private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+			input.defaultReadObject();
+			table = rebuildTable(entries, 2, size());
+		}
+
+		@Override
+		public int size() {
+			return entries.length / 2;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return find(entries, 2, size(), table, key) >= 0;
+		}
+
+		@Override
+		public boolean containsValue(Object value) {
+			for (int i = 1; i < entries.length; i += 2) {
+				if (Objects.equals(entries[i], value)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public V get(Object key) {
+			return getOrDefault(key, null);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public V getOrDefault(Object key, V defaultValue) {
+			int index = find(entries, 2, size(), table, key);
+			return index < 0 ? defaultValue : (V) entries[index * 2 + 1];
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void forEach(BiConsumer<? super K, ? super V> action) {
+			for (int i = 0; i < entries.length; i += 2) {
+				action.accept((K) entries[i], (V) entries[i + 1]);
+			}
+		}
+
+		@Override
+		public Set<K> keySet() {
+			return new AbstractSet<K>() {
+				@Override
+				public Iterator<K> iterator() {
+					return new ArrayIterator<>(entries, 2, 0);
+				}
+
+				@Override
+				public int size() {
+					return CompactMap.this.size();
+				}
+
+				@Override
+				public boolean contains(Object key) {
+					return containsKey(key);
+				}
+			};
+		}
+
+		@Override
+		public Set<Entry<K, V>> entrySet() {
+			return new AbstractSet<Entry<K, V>>() {
+				@Override
+				public Iterator<Entry<K, V>> iterator() {
+					return new Iterator<Entry<K, V>>() {
+						private int index;
+
+						@Override
+						public boolean hasNext() {
+							return index < entries.length;
+						}
+
+						@Override
+						@SuppressWarnings("unchecked")
+						public Entry<K, V> next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+
+							Entry<K, V> entry = new SimpleImmutableEntry<>((K) entries[index], (V) entries[index + 1]);
+							index += 2;
+							return entry;
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return CompactMap.this.size();
+				}
+			};
+		}
+	}
+
+	private static final class ArrayIterator<E> implements Iterator<E> {
+
+		private final Object[] array;
+		private final int stride;
+		private int index;
+
+		ArrayIterator(Object[] array, int stride, int index) {
+			this.array = array;
+			this.stride = stride;
+			this.index = index;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < array.length;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public E next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			E element = (E) array[index];
+			index += stride;
+			return element;
+		}
+	}
+
+	/**
+	 * Returns an immutable list of the given elements, which must not be modified afterwards.
+	 */
+	static <E> List<E> listOf(Object[] elements) {
+		return new CompactList<>(trimArray(elements, elements.length));
+	}
+
+	/**
+	 * Collects the distinct elements of an immutable set, keeping the first of duplicates.
+	 */
+	static final class SetBuilder {
+
+		private final Object[] elements;
+		private final int[] table;
+		private int size;
+
+		SetBuilder(int maxSize) {
+			elements = new Object[maxSize];
+			table = newTable(maxSize);
+		}
+
+		void add(Object element) {
+			int index = find(elements, 1, size, table, element);
+
+			if (index < 0) {
+				if (table != null) {
+					table[~index] = size + 1;
+				}
+
+				elements[size++] = element;
+			}
+		}
+
+		<E> Set<E> build() {
+			return new CompactSet<>(trimArray(elements, size), trimTable(table, size));
+		}
+	}
+
+	/**
+	 * Collects the entries of an immutable map, keeping the last value of duplicate keys.
+	 */
+	static final class MapBuilder {
+
+		private final Object[] entries;
+		private final int[] table;
+		private int size;
+
+		MapBuilder(int maxSize) {
+			entries = new Object[maxSize * 2];
+			table = newTable(maxSize);
+		}
+
+		void put(Object key, Object value) {
+			int index = find(entries, 2, size, table, key);
+
+			if (index < 0) {
+				if (table != null) {
+					table[~index] = size + 1;
+				}
+
+				index = size++;
+				entries[index * 2] = key;
+			}
+
+			entries[index * 2 + 1] = value;
+		}
+
+		<K, V> Map<K, V> build() {
+			return new CompactMap<>(trimArray(entries, size * 2), trimTable(table, size));
+		}
+	}
+
+}
@@ -12,23 +12,29 @@
  */
 package org.omnifaces.utils;
 
-import static java.lang.Character.isSpaceChar;
-import static java.lang.Character.toLowerCase;
 import static java.lang.Character.toUpperCase;
 
 import java.io.IOException;
 import java.lang.reflect.Array;
-import java.text.Normalizer;
-import java.text.Normalizer.Form;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.omnifaces.utils.properties.PropertiesCodec;
+import org.omnifaces.utils.text.Texts;
 
 public final class Lang {
 
+	private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+	private static final int MAX_CACHED_PATTERNS = 1_000;
+	private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
 	private Lang() {
 	}
 
@@ -211,13 +217,7 @@ public final class Lang {
 	 * @return <code>true</code> if the given string starts with one of the given prefixes.
 	 */
 	public static boolean startsWithOneOf(String string, String... prefixes) {
-		for (String prefix : prefixes) {
-			if (string.startsWith(prefix)) {
-				return true;
-			}
-		}
-
-		return false;
+		return Texts.startsWithOneOf(string, prefixes);
 	}
 
 	/**
@@ -227,28 +227,86 @@ public final class Lang {
 	 * @return <code>true</code> if the given string ends with one of the given suffixes.
 	 */
 	public static boolean endsWithOneOf(String string, String... suffixes) {
-		for (String suffix : suffixes) {
-			if (string.endsWith(suffix)) {
-				return true;
-			}
-		}
-
-		return false;
+		return Texts.endsWithOneOf(string, suffixes);
 	}
 
 	/**
-     * Replaces the last substring of given string that matches the given regular expression with the given replacement.
-     *
-     * Author: https://stackoverflow.com/a/2282998
-     *
+	 * Replaces the last substring of given string that matches the given regular expression with the given replacement. The
+	 * regular expression is matched in {@link Pattern#DOTALL} mode. When the regular expression does not contain any
+	 * metacharacters, it is searched for as literal text without involving the regex engine at all. Otherwise, its compiled
+	 * pattern is cached.
+	 * <p>
+	 * Note that group 1 in the replacement refers to everything before the match, so group references like <code>$2</code> refer to
+	 * the first group of the regular expression.
+	 *
 	 * @param string The string to be replaced.
 	 * @param regex The regular expression to which given string is to be matched.
 	 * @param replacement The string to be substituted for the last match.
 	 * @return The resulting string.
 	 */
-    public static String replaceLast(String string, String regex, String replacement) {
-        return string.replaceFirst("(?s)(.*)" + regex, "$1" + replacement);
-    }
+	public static String replaceLast(String string, String regex, String replacement) {
+		if (replacement.indexOf('$') >= 0 || replacement.indexOf('\\') >= 0) {
+			// Author of the original approach: https://stackoverflow.com/a/2282998
+			return getPattern("(?s)(.*)" + regex).matcher(string).replaceFirst("$1" + replacement);
+		}
+
+		int start;
+		int end;
+
+		if (isLiteral(regex)) {
+			start = string.lastIndexOf(regex);
+			end = start + regex.length();
+		}
+		else {
+			Matcher matcher = getPattern("(?s)" + regex).matcher(string);
+			start = -1;
+			end = -1;
+
+			// The last match found by scanning forward is not necessarily the last possible one, as matches may overlap.
+			while (matcher.find()) {
+				start = matcher.start();
+			}
+
+			if (start >= 0) {
+				matcher.useTransparentBounds(true).useAnchoringBounds(false);
+
+				for (int i = string.length(); i >= start; i--) {
+					if (matcher.region(i, string.length()).lookingAt()) {
+						start = i;
+						end = matcher.end();
+						break;
+					}
+				}
+			}
+		}
+
+		return start < 0 ? string : string.substring(0, start) + replacement + string.substring(end);
+	}
+
+	private static boolean isLiteral(String regex) {
+		for (int i = 0; i < regex.length(); i++) {
+			if (REGEX_METACHARACTERS.indexOf(regex.charAt(i)) >= 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	// The regex is the cache key, so any flags must be embedded in it, such as (?s).
+	private static Pattern getPattern(String regex) {
+		Pattern pattern = PATTERNS.get(regex);
+
+		if (pattern == null) {
+			pattern = Pattern.compile(regex);
+
+			if (PATTERNS.size() < MAX_CACHED_PATTERNS) {
+				PATTERNS.put(regex, pattern);
+			}
+		}
+
+		return pattern;
+	}
 
  	/**
 	 * Returns <code>true</code> if the given string contains any ISO control characters.
@@ -257,7 +315,7 @@ public final class Lang {
 	 * @return <code>true</code> if the string contains any ISO control characters and <code>false</code> otherwise
 	 */
 	public static boolean containsIsoControlCharacters(String string) {
-		return string.codePoints().anyMatch(Character::isISOControl);
+		return Texts.containsIsoControlCharacters(string);
 	}
 
 	/**
@@ -283,13 +341,12 @@ public final class Lang {
 			return null;
 		}
 
-		return string.codePoints().collect(StringBuilder::new, (sb, cp) -> {
-			sb.appendCodePoint(sb.length() == 0 || isSpaceChar(sb.charAt(sb.length() - 1)) ? toUpperCase(cp) : toLowerCase(cp));
-		}, (sb1, sb2) -> {}).toString();
+		return Texts.toTitleCase(string);
 	}
 
 	/**
-	 * Converts given string to URL safe format, also called a "slug".
+	 * Converts given string to URL safe format, also called a "slug". Diacritics are stripped from letters, and all runs of
+	 * characters other than ASCII letters and digits are replaced by a single dash, except at the start and end.
 	 * @param string String to be converted to URL safe format.
 	 * @return The given string converted to URL safe format.
 	 */
@@ -298,54 +355,28 @@ public final class Lang {
 			return null;
 		}
 
-		return Normalizer.normalize(string.trim(), Form.NFD)
-			.replaceAll("\\p{InCombiningDiacriticalMarks}+", "")
-			.replaceAll("[^\\p{Alnum}]+", "-")
-			.replaceAll("(^-|-$)", "");
+		return UrlSafeConverter.toUrlSafe(string);
 	}
 
 	/**
 	 * Escape given string as valid {@link Properties} entry value.
 	 * @param string String to be escaped as valid {@link Properties} entry value.
 	 * @return The given string escaped as valid {@link Properties} entry value.
-	 * @throws IOException When appending a character fails.
+	 * @throws IOException Never, this is only declared for backwards compatibility.
+	 * @see PropertiesCodec
 	 */
 	public static String escapeAsProperty(String string) throws IOException {
-		Appendable builder = new StringBuilder(string.length());
-
-		for (char c : string.toCharArray()) {
-			if ((c > 61) && (c < 127)) {
-				if (c == '\\') {
-					builder.append('\\');
-					builder.append('\\');
-					continue;
-				}
-				builder.append(c);
-				continue;
-			}
-			switch(c) {
-				case '\t':builder.append('\\'); builder.append('t');
-						  break;
-				case '\n':builder.append('\\'); builder.append('n');
-						  break;
-				case '\r':builder.append('\\'); builder.append('r');
-						  break;
-				case '\f':builder.append('\\'); builder.append('f');
-						  break;
-				case '=': // Fall through
-				case ':':
-					builder.append('\\'); builder.append(c);
-					break;
-				default:
-					if ((c < 0x0020) || (c > 0x007e)) {
-						builder.append(String.format("\\u%04x", (int) c));
-					} else {
-						builder.append(c);
-					}
-			}
-		}
+		return PropertiesCodec.escape(string);
+	}
 
-		return builder.toString();
+	/**
+	 * Unescape given {@link Properties} entry value, as escaped by {@link #escapeAsProperty(String)}.
+	 * @param string String to be unescaped as {@link Properties} entry value.
+	 * @return The given string unescaped as {@link Properties} entry value.
+	 * @throws IllegalArgumentException When the string contains a malformed escape sequence.
+	 */
+	public static String unescapeFromProperty(String string) {
+		return PropertiesCodec.unescape(string);
 	}
 
 }
\ No newline at end of file
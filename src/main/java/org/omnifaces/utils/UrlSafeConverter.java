@@ -0,0 +1,164 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils;
+
+import java.text.Normalizer;
+import java.text.Normalizer.Form;
+
+/**
+ * Converts strings to URL safe format in a single pass, for {@link Lang#toUrlSafe(String)}.
+ *
+ * <p>
+ * The result is the same as decomposing the string to {@link Form#NFD}, removing all combining diacritical marks, replacing all runs of
+ * characters other than ASCII letters and digits with a dash, and removing the leading and trailing dash. Instead of normalizing the whole
+ * string, every character is looked up in a table which holds the ASCII letter or digit its decomposition boils down to, or whether it is a
+ * combining mark or a separator. The table is computed once from {@link Normalizer} for the Latin, Greek, Cyrillic and Latin Extended
+ * Additional blocks. Characters beyond it, which are rare in practice, are decomposed one by one.
+ */
+final class UrlSafeConverter {
+
+	private static final char SEPARATOR = 0;
+	private static final char MARK = 1;
+	private static final char COMPLEX = 2;
+	private static final int TABLE_SIZE = 0x2000;
+
+	private UrlSafeConverter() {
+	}
+
+	private static final class Table {
+
+		private static final char[] MAPPING = new char[TABLE_SIZE];
+
+		static {
+			for (char c = 0; c < TABLE_SIZE; c++) {
+				MAPPING[c] = isAsciiLetterOrDigit(c) ? c : c < 0x80 ? SEPARATOR : map(Normalizer.normalize(String.valueOf(c), Form.NFD));
+			}
+		}
+
+		private static char map(String decomposition) {
+			char mapping = MARK;
+
+			for (int i = 0; i < decomposition.length(); i++) {
+				char c = decomposition.charAt(i);
+
+				if (isCombiningDiacriticalMark(c)) {
+					continue;
+				}
+
+				char next = isAsciiLetterOrDigit(c) ? c : SEPARATOR;
+
+				if (mapping != MARK && !(mapping == SEPARATOR && next == SEPARATOR)) {
+					return COMPLEX;
+				}
+
+				mapping = next;
+			}
+
+			return mapping;
+		}
+	}
+
+	static String toUrlSafe(String string) {
+		if (isUrlSafe(string)) {
+			return string;
+		}
+
+		StringBuilder builder = new StringBuilder(string.length());
+		boolean separate = false;
+
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			char mapping;
+
+			if (c < 0x80) {
+				mapping = isAsciiLetterOrDigit(c) ? c : SEPARATOR;
+			}
+			else if (c < TABLE_SIZE) {
+				mapping = Table.MAPPING[c];
+			}
+			else {
+				mapping = COMPLEX;
+			}
+
+			if (mapping == MARK) {
+				continue;
+			}
+			else if (mapping == SEPARATOR) {
+				separate = true;
+			}
+			else if (mapping == COMPLEX) {
+				int codePoint = string.codePointAt(i);
+				i += Character.charCount(codePoint) - 1;
+				separate = appendDecomposed(builder, Normalizer.normalize(new String(Character.toChars(codePoint)), Form.NFD), separate);
+			}
+			else {
+				append(builder, mapping, separate);
+				separate = false;
+			}
+		}
+
+		return builder.toString();
+	}
+
+	private static boolean appendDecomposed(StringBuilder builder, String decomposition, boolean separate) {
+		boolean separateNext = separate;
+
+		for (int i = 0; i < decomposition.length(); i++) {
+			char c = decomposition.charAt(i);
+
+			if (isAsciiLetterOrDigit(c)) {
+				append(builder, c, separateNext);
+				separateNext = false;
+			}
+			else if (!isCombiningDiacriticalMark(c)) {
+				separateNext = true;
+			}
+		}
+
+		return separateNext;
+	}
+
+	private static void append(StringBuilder builder, char c, boolean separate) {
+		if (separate && builder.length() > 0) {
+			builder.append('-');
+		}
+
+		builder.append(c);
+	}
+
+	/**
+	 * Returns <code>true</code> if the given string is already in URL safe format, so that it can be returned as is without copying.
+	 */
+	private static boolean isUrlSafe(String string) {
+		int length = string.length();
+
+		for (int i = 0; i < length; i++) {
+			char c = string.charAt(i);
+
+			if (!isAsciiLetterOrDigit(c) && (c != '-' || i == 0 || i == length - 1 || string.charAt(i - 1) == '-')) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isAsciiLetterOrDigit(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+	}
+
+	private static boolean isCombiningDiacriticalMark(char c) {
+		return c >= 0x0300 && c <= 0x036F;
+	}
+
+}
@@ -0,0 +1,782 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.cache;
+
+import static org.omnifaces.utils.cache.CacheBuilder.UNBOUNDED;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A concurrent cache, optionally bounded by size or weight and optionally expiring entries after write or access. Instances are created
+ * via {@link #builder()}, for example:
+ * <pre>
+ * Cache&lt;String, Pattern&gt; patterns = Cache.builder().withMaximumSize(1000).build(Pattern::compile);
+ * Pattern pattern = patterns.get(regex);
+ * </pre>
+ *
+ * <p>
+ * Reads and writes go to a {@link ConcurrentHashMap}. The eviction policy is maintained separately under a lock, which is only ever tried
+ * and never waited for by reads: reads are recorded in small lossy buffers and writes in a queue, which are replayed against the policy by
+ * whichever thread gets the lock. Values are loaded at most once per key at a time; concurrent requests of the same absent key wait for
+ * the single load in progress rather than all hitting the underlying resource.
+ *
+ * <p>
+ * A bounded cache evicts by W-TinyLFU. New entries enter a small LRU window of 1% of the maximum. Entries leaving the window are
+ * candidates for the main space, an LRU space segmented in a probation part and a protected part for entries which were accessed again.
+ * When the cache is full, a candidate is only admitted if a frequency sketch estimates it was more popular recently than the victim it would
+ * replace, so that one-off accesses, such as a scan, do not flush the popular entries.
+ *
+ * <p>
+ * Keys and values must not be <code>null</code>. A loader returning <code>null</code> means there is no value, which is not cached.
+ * Loaders must not access the cache they are loading for.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public final class Cache<K, V> {
+
+	private static final double WINDOW_RATIO = 0.01;
+	private static final double PROTECTED_RATIO = 0.8;
+	private static final int ADMIT_HASHDOS_THRESHOLD = 6;
+	private static final int MAX_SKETCH_SIZE_FOR_WEIGHT = 1 << 16;
+	private static final int READ_BUFFER_STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+
+	private static final int NONE = 0;
+	private static final int WINDOW = 1;
+	private static final int PROBATION = 2;
+	private static final int PROTECTED = 3;
+
+	private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+	private final Function<? super K, ? extends V> defaultLoader;
+	private final ToIntBiFunction<? super K, ? super V> weigher;
+	private final long maximumWeight;
+	private final long expireAfterWriteNanos;
+	private final long expireAfterAccessNanos;
+	private final LongSupplier ticker;
+	private final boolean policyEnabled;
+
+	private final ReadBuffer<Node<K, V>>[] readBuffers;
+	private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder loadSuccessCount = new LongAdder();
+	private final LongAdder loadFailureCount = new LongAdder();
+	private final LongAdder totalLoadTimeNanos = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+	private final LongAdder evictionWeight = new LongAdder();
+
+	// The eviction policy, guarded by the eviction lock.
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	private final FrequencySketch sketch;
+	private final NodeDeque<K, V> window = new NodeDeque<>(false);
+	private final NodeDeque<K, V> probation = new NodeDeque<>(false);
+	private final NodeDeque<K, V> protectedSpace = new NodeDeque<>(false);
+	private final NodeDeque<K, V> writeOrder = new NodeDeque<>(true);
+	private final long windowMaximum;
+	private final long protectedMaximum;
+	private long windowWeight;
+	private long protectedWeight;
+	private long weightedSize;
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	Cache(CacheBuilder<K, V> builder, Function<? super K, ? extends V> defaultLoader) {
+		this.defaultLoader = defaultLoader;
+		this.weigher = builder.getWeigher() != null ? builder.getWeigher() : (key, value) -> 1;
+		this.maximumWeight = builder.getMaximumWeight();
+		this.expireAfterWriteNanos = builder.getExpireAfterWriteNanos();
+		this.expireAfterAccessNanos = builder.getExpireAfterAccessNanos();
+		this.ticker = builder.getTicker();
+		this.policyEnabled = maximumWeight != UNBOUNDED || expireAfterWriteNanos != 0 || expireAfterAccessNanos != 0;
+
+		this.readBuffers = new ReadBuffer[policyEnabled ? READ_BUFFER_STRIPES : 0];
+
+		for (int i = 0; i < readBuffers.length; i++) {
+			readBuffers[i] = new ReadBuffer<>();
+		}
+
+		if (maximumWeight == UNBOUNDED) {
+			sketch = null;
+			windowMaximum = UNBOUNDED;
+			protectedMaximum = 0;
+		}
+		else {
+			sketch = new FrequencySketch(builder.getWeigher() == null ? maximumWeight : Math.min(maximumWeight, MAX_SKETCH_SIZE_FOR_WEIGHT));
+			windowMaximum = Math.max(1, (long) (maximumWeight * WINDOW_RATIO));
+			protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_RATIO);
+		}
+	}
+
+	/**
+	 * Returns a builder of an unbounded cache whose entries never expire, to be configured via its <code>with</code> methods.
+	 *
+	 * @return a builder of a cache
+	 */
+	public static CacheBuilder<Object, Object> builder() {
+		return CacheBuilder.newBuilder();
+	}
+
+	/**
+	 * Returns the value of the given key, if it is cached.
+	 *
+	 * @param key the key
+	 * @return the value of the given key, or <code>null</code> if it is not cached
+	 */
+	public V getIfPresent(K key) {
+		Node<K, V> node = data.get(key);
+		long now = now();
+
+		if (node == null || isExpired(node, now)) {
+			missCount.increment();
+
+			if (node != null) {
+				removeExpired(node);
+			}
+
+			return null;
+		}
+
+		hitCount.increment();
+		afterRead(node, now);
+		return node.value;
+	}
+
+	/**
+	 * Returns the value of the given key, loading it with the loader this cache was built with if it is not cached.
+	 *
+	 * @param key the key
+	 * @return the value of the given key, or <code>null</code> if it is not cached and the loader returned <code>null</code>
+	 * @throws IllegalStateException when this cache was built without loader
+	 * @throws RuntimeException the exception thrown by the loader, if any
+	 */
+	public V get(K key) {
+		if (defaultLoader == null) {
+			throw new IllegalStateException("Cache was built without loader; use get(key, loader) instead");
+		}
+
+		return get(key, defaultLoader);
+	}
+
+	/**
+	 * Returns the value of the given key, loading it with the given loader if it is not cached. Concurrent calls for the same key wait for
+	 * the load in progress instead of loading it again.
+	 *
+	 * @param key the key
+	 * @param loader the function loading the value of the key, which must not access this cache
+	 * @return the value of the given key, or <code>null</code> if it is not cached and the loader returned <code>null</code>
+	 * @throws RuntimeException the exception thrown by the loader, if any
+	 */
+	public V get(K key, Function<? super K, ? extends V> loader) {
+		Node<K, V> node = data.get(key);
+		long now = now();
+
+		if (node != null && !isExpired(node, now)) {
+			hitCount.increment();
+			afterRead(node, now);
+			return node.value;
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Node<K, V>[] replaced = new Node[1];
+		boolean[] loaded = { false };
+
+		Node<K, V> result = data.compute(key, (k, existing) -> {
+			if (existing != null && !isExpired(existing, now())) {
+				return existing;
+			}
+
+			replaced[0] = existing;
+			Node<K, V> loadedNode = load(k, loader);
+			loaded[0] = loadedNode != null;
+			return loadedNode;
+		});
+
+		if (replaced[0] != null) {
+			afterRemoval(replaced[0], true);
+		}
+
+		if (loaded[0]) {
+			missCount.increment();
+			afterWrite(result);
+		}
+		else if (result != null) {
+			hitCount.increment();
+			afterRead(result, now);
+		}
+		else {
+			missCount.increment();
+		}
+
+		return result == null ? null : result.value;
+	}
+
+	/**
+	 * Associates the given value with the given key, replacing the previous value, if any.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 */
+	public void put(K key, V value) {
+		Objects.requireNonNull(value, "value");
+		Node<K, V> node = createNode(key, value);
+		Node<K, V> previous = data.put(key, node);
+
+		if (previous != null) {
+			afterRemoval(previous, false);
+		}
+
+		afterWrite(node);
+	}
+
+	/**
+	 * Removes the value of the given key, if any.
+	 *
+	 * @param key the key
+	 */
+	public void invalidate(K key) {
+		Node<K, V> node = data.remove(key);
+
+		if (node != null) {
+			afterRemoval(node, false);
+		}
+	}
+
+	/**
+	 * Removes all values.
+	 */
+	public void invalidateAll() {
+		for (K key : data.keySet()) {
+			invalidate(key);
+		}
+	}
+
+	/**
+	 * Returns the number of entries, which may include entries which have expired but were not yet removed.
+	 *
+	 * @return the number of entries
+	 */
+	public long estimatedSize() {
+		return data.mappingCount();
+	}
+
+	/**
+	 * Returns a snapshot of the statistics of this cache since it was built.
+	 *
+	 * @return a snapshot of the statistics of this cache
+	 */
+	public CacheStats getStats() {
+		return new CacheStats(hitCount.sum(), missCount.sum(), loadSuccessCount.sum(), loadFailureCount.sum(), totalLoadTimeNanos.sum(),
+			evictionCount.sum(), evictionWeight.sum());
+	}
+
+	/**
+	 * Performs pending maintenance, such as applying recorded reads and writes to the eviction policy and removing expired entries. This
+	 * happens anyway as the cache is used, but can be triggered explicitly for a cache which is idle.
+	 */
+	public void cleanUp() {
+		if (!policyEnabled) {
+			return;
+		}
+
+		evictionLock.lock();
+
+		try {
+			maintain();
+		}
+		finally {
+			evictionLock.unlock();
+		}
+
+		drain();
+	}
+
+	// Reading and writing ----------------------------------------------------------------------------------------------------------------
+
+	private long now() {
+		return expireAfterWriteNanos != 0 || expireAfterAccessNanos != 0 ? ticker.getAsLong() : 0;
+	}
+
+	private boolean isExpired(Node<K, V> node, long now) {
+		return (expireAfterWriteNanos != 0 && now - node.writeTime >= expireAfterWriteNanos)
+			|| (expireAfterAccessNanos != 0 && now - node.accessTime >= expireAfterAccessNanos);
+	}
+
+	private Node<K, V> createNode(K key, V value) {
+		int weight = weigher.applyAsInt(key, value);
+
+		if (weight < 0) {
+			throw new IllegalArgumentException("Weight must not be negative: " + weight);
+		}
+
+		return new Node<>(Objects.requireNonNull(key, "key"), value, weight, now());
+	}
+
+	private Node<K, V> load(K key, Function<? super K, ? extends V> loader) {
+		long start = System.nanoTime();
+		V value;
+
+		try {
+			value = loader.apply(key);
+		}
+		catch (RuntimeException | Error e) {
+			loadFailureCount.increment();
+			throw e;
+		}
+		finally {
+			totalLoadTimeNanos.add(System.nanoTime() - start);
+		}
+
+		if (value == null) {
+			loadFailureCount.increment();
+			return null;
+		}
+
+		loadSuccessCount.increment();
+		return createNode(key, value);
+	}
+
+	private void removeExpired(Node<K, V> node) {
+		if (data.remove(node.key, node)) {
+			afterRemoval(node, true);
+		}
+	}
+
+	private void afterRead(Node<K, V> node, long now) {
+		if (!policyEnabled) {
+			return;
+		}
+
+		if (expireAfterAccessNanos != 0) {
+			node.accessTime = now;
+		}
+
+		int stripe = (int) (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L >>> 32) & (readBuffers.length - 1);
+
+		if (!readBuffers[stripe].offer(node)) {
+			drain();
+		}
+	}
+
+	private void afterWrite(Node<K, V> node) {
+		if (policyEnabled) {
+			writeBuffer.add(() -> onAdd(node));
+			drain();
+		}
+	}
+
+	private void afterRemoval(Node<K, V> node, boolean evicted) {
+		if (evicted) {
+			evictionCount.increment();
+			evictionWeight.add(node.weight);
+		}
+
+		if (policyEnabled) {
+			writeBuffer.add(() -> onRemove(node));
+			drain();
+		}
+	}
+
+	/**
+	 * Maintains the policy if the lock is free. A thread which adds a write while another thread holds the lock relies on that thread to
+	 * apply it, so that thread checks for writes added in the meantime after releasing the lock.
+	 */
+	private void drain() {
+		do {
+			if (!evictionLock.tryLock()) {
+				return;
+			}
+
+			try {
+				maintain();
+			}
+			finally {
+				evictionLock.unlock();
+			}
+		}
+		while (!writeBuffer.isEmpty());
+	}
+
+	// Eviction policy, only invoked while holding the eviction lock. ---------------------------------------------------------------------
+
+	private void maintain() {
+		for (ReadBuffer<Node<K, V>> readBuffer : readBuffers) {
+			readBuffer.drain(this::onAccess);
+		}
+
+		for (Runnable write; (write = writeBuffer.poll()) != null;) {
+			write.run();
+		}
+
+		expire();
+		evict();
+	}
+
+	private void onAdd(Node<K, V> node) {
+		if (node.dead || node.space != NONE) {
+			return;
+		}
+
+		node.space = WINDOW;
+		window.linkLast(node);
+		windowWeight += node.weight;
+		weightedSize += node.weight;
+
+		if (expireAfterWriteNanos != 0) {
+			writeOrder.linkLast(node);
+		}
+
+		if (sketch != null) {
+			sketch.increment(node.key);
+		}
+	}
+
+	private void onRemove(Node<K, V> node) {
+		if (!node.dead) {
+			node.dead = true;
+			unlink(node);
+		}
+	}
+
+	private void onAccess(Node<K, V> node) {
+		if (node.dead || node.space == NONE) {
+			return;
+		}
+
+		if (sketch != null) {
+			sketch.increment(node.key);
+		}
+
+		switch (node.space) {
+			case WINDOW:
+				window.moveToLast(node);
+				break;
+			case PROBATION:
+				probation.unlink(node);
+				node.space = PROTECTED;
+				protectedSpace.linkLast(node);
+				protectedWeight += node.weight;
+				demoteFromProtected();
+				break;
+			default:
+				protectedSpace.moveToLast(node);
+		}
+	}
+
+	private void demoteFromProtected() {
+		while (protectedWeight > protectedMaximum) {
+			Node<K, V> node = protectedSpace.first;
+			protectedSpace.unlink(node);
+			protectedWeight -= node.weight;
+			node.space = PROBATION;
+			probation.linkLast(node);
+		}
+	}
+
+	private void unlink(Node<K, V> node) {
+		switch (node.space) {
+			case NONE:
+				return;
+			case WINDOW:
+				window.unlink(node);
+				windowWeight -= node.weight;
+				break;
+			case PROBATION:
+				probation.unlink(node);
+				break;
+			default:
+				protectedSpace.unlink(node);
+				protectedWeight -= node.weight;
+		}
+
+		if (expireAfterWriteNanos != 0) {
+			writeOrder.unlink(node);
+		}
+
+		weightedSize -= node.weight;
+		node.space = NONE;
+	}
+
+	private void evict(Node<K, V> node) {
+		if (data.remove(node.key, node)) {
+			evictionCount.increment();
+			evictionWeight.add(node.weight);
+		}
+
+		node.dead = true;
+		unlink(node);
+	}
+
+	private void expire() {
+		long now = now();
+
+		if (expireAfterAccessNanos != 0) {
+			// Every space is in access order, so the entries which expired after access are at their heads.
+			for (NodeDeque<K, V> space : List.of(window, probation, protectedSpace)) {
+				while (space.first != null && isExpired(space.first, now)) {
+					evict(space.first);
+				}
+			}
+		}
+
+		if (expireAfterWriteNanos != 0) {
+			while (writeOrder.first != null && isExpired(writeOrder.first, now)) {
+				evict(writeOrder.first);
+			}
+		}
+	}
+
+	private void evict() {
+		if (maximumWeight == UNBOUNDED) {
+			return;
+		}
+
+		// Move the least recently used entries exceeding the window to the probation space, as candidates for the main space.
+		Node<K, V> candidate = null;
+
+		while (windowWeight > windowMaximum) {
+			Node<K, V> node = window.first;
+			window.unlink(node);
+			windowWeight -= node.weight;
+			node.space = PROBATION;
+			probation.linkLast(node);
+
+			if (candidate == null) {
+				candidate = node;
+			}
+		}
+
+		// Let the candidates compete with the least recently used entries of the probation space, the victims, until the cache fits.
+		Node<K, V> victim = probation.first;
+
+		while (weightedSize > maximumWeight) {
+			if (victim == candidate) {
+				victim = null;
+			}
+
+			Node<K, V> evictee;
+
+			if (victim == null && candidate == null) {
+				evictee = protectedSpace.first != null ? protectedSpace.first : window.first;
+
+				if (evictee == null) {
+					break;
+				}
+			}
+			else if (victim == null || (candidate != null && !admit(candidate, victim))) {
+				evictee = candidate;
+				candidate = candidate.next;
+			}
+			else {
+				evictee = victim;
+				victim = victim.next;
+			}
+
+			evict(evictee);
+		}
+	}
+
+	private boolean admit(Node<K, V> candidate, Node<K, V> victim) {
+		int candidateFrequency = sketch.frequency(candidate.key);
+		int victimFrequency = sketch.frequency(victim.key);
+
+		if (candidateFrequency > victimFrequency) {
+			return true;
+		}
+
+		if (candidateFrequency < ADMIT_HASHDOS_THRESHOLD) {
+			return false;
+		}
+
+		// Admit a warm candidate once in a while, so that an attacker cannot keep the victim in place by colliding its hash.
+		return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+	}
+
+	// Helper classes ---------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * An entry of the cache. A new node is created for every write, so its value and weight never change.
+	 */
+	private static final class Node<K, V> {
+
+		final K key;
+		final V value;
+		final int weight;
+		final long writeTime;
+		volatile long accessTime;
+
+		// Guarded by the eviction lock.
+		boolean dead;
+		int space;
+		Node<K, V> previous;
+		Node<K, V> next;
+		Node<K, V> previousWritten;
+		Node<K, V> nextWritten;
+
+		Node(K key, V value, int weight, long now) {
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+			this.writeTime = now;
+			this.accessTime = now;
+		}
+	}
+
+	/**
+	 * A doubly linked list of nodes in access order or in write order.
+	 */
+	private static final class NodeDeque<K, V> {
+
+		private final boolean writeOrder;
+		Node<K, V> first;
+		Node<K, V> last;
+
+		NodeDeque(boolean writeOrder) {
+			this.writeOrder = writeOrder;
+		}
+
+		void linkLast(Node<K, V> node) {
+			setPrevious(node, last);
+			setNext(node, null);
+
+			if (last == null) {
+				first = node;
+			}
+			else {
+				setNext(last, node);
+			}
+
+			last = node;
+		}
+
+		void unlink(Node<K, V> node) {
+			Node<K, V> previous = getPrevious(node);
+			Node<K, V> next = getNext(node);
+
+			if (previous == null) {
+				first = next;
+			}
+			else {
+				setNext(previous, next);
+			}
+
+			if (next == null) {
+				last = previous;
+			}
+			else {
+				setPrevious(next, previous);
+			}
+
+			setPrevious(node, null);
+			setNext(node, null);
+		}
+
+		void moveToLast(Node<K, V> node) {
+			if (node != last) {
+				unlink(node);
+				linkLast(node);
+			}
+		}
+
+		private Node<K, V> getPrevious(Node<K, V> node) {
+			return writeOrder ? node.previousWritten : node.previous;
+		}
+
+		private Node<K, V> getNext(Node<K, V> node) {
+			return writeOrder ? node.nextWritten : node.next;
+		}
+
+		private void setPrevious(Node<K, V> node, Node<K, V> previous) {
+			if (writeOrder) {
+				node.previousWritten = previous;
+			}
+			else {
+				node.previous = previous;
+			}
+		}
+
+		private void setNext(Node<K, V> node, Node<K, V> next) {
+			if (writeOrder) {
+				node.nextWritten = next;
+			}
+			else {
+				node.next = next;
+			}
+		}
+	}
+
+	/**
+	 * A lossy ring buffer of recently read nodes. Offering never blocks; when the buffer is full or the slot is contended, the read is
+	 * simply not recorded, which only makes the eviction policy slightly less informed.
+	 */
+	private static final class ReadBuffer<E> {
+
+		private static final int SIZE = 16;
+		private static final int MASK = SIZE - 1;
+
+		private final AtomicReferenceArray<E> slots = new AtomicReferenceArray<>(SIZE);
+		private final AtomicLong writeCount = new AtomicLong();
+		private volatile long readCount;
+
+		/**
+		 * Returns <code>false</code> if the buffer is full and should be drained.
+		 */
+		boolean offer(E element) {
+			long writes = writeCount.get();
+
+			if (writes - readCount >= SIZE) {
+				return false;
+			}
+
+			if (writeCount.compareAndSet(writes, writes + 1)) {
+				slots.lazySet((int) writes & MASK, element);
+			}
+
+			return true;
+		}
+
+		/**
+		 * Drains the buffer, which may only be done by one thread at a time.
+		 */
+		void drain(Consumer<E> consumer) {
+			long reads = readCount;
+			long writes = writeCount.get();
+
+			for (; reads < writes; reads++) {
+				E element = slots.getAndSet((int) reads & MASK, null);
+
+				if (element == null) {
+					// Claimed by a writer which did not set it yet; it will be drained next time.
+					break;
+				}
+
+				consumer.accept(element);
+			}
+
+			readCount = reads;
+		}
+	}
+
+}
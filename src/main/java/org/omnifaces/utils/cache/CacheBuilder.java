@@ -0,0 +1,177 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.cache;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Configures and builds a {@link Cache}. Instances are immutable; the <code>with</code> methods return a new instance, so that a
+ * configured builder can be shared and used to build several caches.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public final class CacheBuilder<K, V> {
+
+	static final long UNBOUNDED = Long.MAX_VALUE;
+
+	private static final CacheBuilder<Object, Object> DEFAULT = new CacheBuilder<>(UNBOUNDED, null, 0, 0, System::nanoTime);
+
+	private final long maximumWeight;
+	private final ToIntBiFunction<? super K, ? super V> weigher;
+	private final long expireAfterWriteNanos;
+	private final long expireAfterAccessNanos;
+	private final LongSupplier ticker;
+
+	private CacheBuilder(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher, long expireAfterWriteNanos, long expireAfterAccessNanos, LongSupplier ticker) {
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+		this.expireAfterWriteNanos = expireAfterWriteNanos;
+		this.expireAfterAccessNanos = expireAfterAccessNanos;
+		this.ticker = ticker;
+	}
+
+	/**
+	 * Returns a builder of an unbounded cache whose entries never expire.
+	 */
+	static CacheBuilder<Object, Object> newBuilder() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Returns a copy of this builder which limits the number of entries.
+	 *
+	 * @param maximumSize the maximum number of entries
+	 * @return a copy of this builder which limits the number of entries
+	 * @throws IllegalArgumentException when the maximum size is negative
+	 */
+	public CacheBuilder<K, V> withMaximumSize(long maximumSize) {
+		if (maximumSize < 0) {
+			throw new IllegalArgumentException("Maximum size must not be negative");
+		}
+
+		return new CacheBuilder<>(maximumSize, null, expireAfterWriteNanos, expireAfterAccessNanos, ticker);
+	}
+
+	/**
+	 * Returns a copy of this builder which limits the total weight of the entries, such as their approximate size in bytes. The weight of
+	 * an entry is determined once, when it is put in the cache.
+	 *
+	 * @param <K1> the type of the keys
+	 * @param <V1> the type of the values
+	 * @param maximumWeight the maximum total weight of the entries
+	 * @param weigher the function computing the weight of an entry from its key and value, which must not be negative
+	 * @return a copy of this builder which limits the total weight of the entries
+	 * @throws IllegalArgumentException when the maximum weight is negative
+	 */
+	public <K1 extends K, V1 extends V> CacheBuilder<K1, V1> withMaximumWeight(long maximumWeight, ToIntBiFunction<? super K1, ? super V1> weigher) {
+		if (maximumWeight < 0) {
+			throw new IllegalArgumentException("Maximum weight must not be negative");
+		}
+
+		return new CacheBuilder<>(maximumWeight, Objects.requireNonNull(weigher, "weigher"), expireAfterWriteNanos, expireAfterAccessNanos, ticker);
+	}
+
+	/**
+	 * Returns a copy of this builder whose entries expire the given duration after they were put or loaded.
+	 *
+	 * @param duration the duration after which entries expire
+	 * @return a copy of this builder whose entries expire after write
+	 * @throws IllegalArgumentException when the duration is not positive
+	 */
+	public CacheBuilder<K, V> withExpireAfterWrite(Duration duration) {
+		return new CacheBuilder<>(maximumWeight, weigher, toPositiveNanos(duration), expireAfterAccessNanos, ticker);
+	}
+
+	/**
+	 * Returns a copy of this builder whose entries expire the given duration after they were last read, put or loaded.
+	 *
+	 * @param duration the duration after which entries expire
+	 * @return a copy of this builder whose entries expire after access
+	 * @throws IllegalArgumentException when the duration is not positive
+	 */
+	public CacheBuilder<K, V> withExpireAfterAccess(Duration duration) {
+		return new CacheBuilder<>(maximumWeight, weigher, expireAfterWriteNanos, toPositiveNanos(duration), ticker);
+	}
+
+	/**
+	 * Returns a copy of this builder whose cache takes the time in nanoseconds from the given source instead of {@link System#nanoTime()},
+	 * so that expiration can be tested without waiting.
+	 */
+	CacheBuilder<K, V> withTicker(LongSupplier ticker) {
+		return new CacheBuilder<>(maximumWeight, weigher, expireAfterWriteNanos, expireAfterAccessNanos, ticker);
+	}
+
+	/**
+	 * Builds a cache with the settings of this builder.
+	 *
+	 * @param <K1> the type of the keys
+	 * @param <V1> the type of the values
+	 * @return a new cache
+	 */
+	@SuppressWarnings("unchecked")
+	public <K1 extends K, V1 extends V> Cache<K1, V1> build() {
+		return new Cache<>((CacheBuilder<K1, V1>) this, null);
+	}
+
+	/**
+	 * Builds a cache with the settings of this builder, which loads absent values for {@link Cache#get(Object)} with the given loader.
+	 *
+	 * @param <K1> the type of the keys
+	 * @param <V1> the type of the values
+	 * @param loader the function loading the value of a key
+	 * @return a new cache
+	 */
+	@SuppressWarnings("unchecked")
+	public <K1 extends K, V1 extends V> Cache<K1, V1> build(Function<? super K1, ? extends V1> loader) {
+		return new Cache<>((CacheBuilder<K1, V1>) this, Objects.requireNonNull(loader, "loader"));
+	}
+
+	long getMaximumWeight() {
+		return maximumWeight;
+	}
+
+	ToIntBiFunction<? super K, ? super V> getWeigher() {
+		return weigher;
+	}
+
+	long getExpireAfterWriteNanos() {
+		return expireAfterWriteNanos;
+	}
+
+	long getExpireAfterAccessNanos() {
+		return expireAfterAccessNanos;
+	}
+
+	LongSupplier getTicker() {
+		return ticker;
+	}
+
+	private static long toPositiveNanos(Duration duration) {
+		if (duration.isNegative() || duration.isZero()) {
+			throw new IllegalArgumentException("Duration must be positive");
+		}
+
+		try {
+			return duration.toNanos();
+		}
+		catch (ArithmeticException e) {
+			return Long.MAX_VALUE;
+		}
+	}
+
+}
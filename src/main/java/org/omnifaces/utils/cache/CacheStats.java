@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.cache;
+
+import java.io.Serializable;
+
+/**
+ * An immutable snapshot of the statistics of a {@link Cache}, as returned by {@link Cache#getStats()}.
+ */
+public final class CacheStats implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long hitCount;
+	private final long missCount;
+	private final long loadSuccessCount;
+	private final long loadFailureCount;
+	private final long totalLoadTimeNanos;
+	private final long evictionCount;
+	private final long evictionWeight;
+
+	CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount, long totalLoadTimeNanos, long evictionCount, long evictionWeight) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.loadSuccessCount = loadSuccessCount;
+		this.loadFailureCount = loadFailureCount;
+		this.totalLoadTimeNanos = totalLoadTimeNanos;
+		this.evictionCount = evictionCount;
+		this.evictionWeight = evictionWeight;
+	}
+
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	public long getMissCount() {
+		return missCount;
+	}
+
+	public long getRequestCount() {
+		return hitCount + missCount;
+	}
+
+	/**
+	 * Returns the ratio of requests which were hits.
+	 *
+	 * @return the ratio of requests which were hits, or 1 if there were no requests
+	 */
+	public double getHitRate() {
+		long requestCount = getRequestCount();
+		return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+	}
+
+	public long getLoadSuccessCount() {
+		return loadSuccessCount;
+	}
+
+	/**
+	 * Returns the number of loads which threw an exception or returned <code>null</code>.
+	 *
+	 * @return the number of failed loads
+	 */
+	public long getLoadFailureCount() {
+		return loadFailureCount;
+	}
+
+	/**
+	 * Returns the total time spent in loads, whether they succeeded or failed.
+	 *
+	 * @return the total time spent in loads, in nanoseconds
+	 */
+	public long getTotalLoadTimeNanos() {
+		return totalLoadTimeNanos;
+	}
+
+	/**
+	 * Returns the number of entries evicted because of the maximum size or weight, or because they expired.
+	 *
+	 * @return the number of evicted entries
+	 */
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	public long getEvictionWeight() {
+		return evictionWeight;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[hits=" + hitCount + ", misses=" + missCount + ", loadSuccesses=" + loadSuccessCount
+			+ ", loadFailures=" + loadFailureCount + ", totalLoadTimeNanos=" + totalLoadTimeNanos + ", evictions=" + evictionCount
+			+ ", evictionWeight=" + evictionWeight + "]";
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.cache;
+
+/**
+ * Estimates how often keys were accessed recently, for the TinyLFU admission policy of {@link Cache}. This is a count-min sketch of four
+ * rows of 4-bit counters, packed 16 per <code>long</code>. The estimate is the minimum of the four counters a key hashes to, which is
+ * never less than the real count, capped at 15. To let the sketch follow a changing workload, all counters are halved once the number of
+ * increments reaches ten times the table size.
+ *
+ * <p>
+ * This class is not thread safe; the cache only uses it while holding its eviction lock.
+ */
+final class FrequencySketch {
+
+	private static final long[] SEEDS = { 0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L };
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final int MAX_TABLE_SIZE = 1 << 20;
+
+	private final long[] table;
+	private final int sampleSize;
+	private int size;
+
+	/**
+	 * Creates a sketch for a cache with the given maximum number of entries.
+	 */
+	FrequencySketch(long maximumSize) {
+		int tableSize = (int) Math.min(MAX_TABLE_SIZE, Math.max(16, Long.highestOneBit(Math.max(1, maximumSize) - 1) << 1));
+		table = new long[tableSize];
+		sampleSize = tableSize * 10;
+	}
+
+	/**
+	 * Returns the estimated number of recent accesses of the given key, between 0 and 15.
+	 */
+	int frequency(Object key) {
+		int hash = spread(key.hashCode());
+		int frequency = Integer.MAX_VALUE;
+
+		for (int i = 0; i < SEEDS.length; i++) {
+			long indexHash = indexHash(hash, i);
+			frequency = Math.min(frequency, (int) ((table[index(indexHash)] >>> shift(indexHash)) & 0xF));
+		}
+
+		return frequency;
+	}
+
+	/**
+	 * Records an access of the given key.
+	 */
+	void increment(Object key) {
+		int hash = spread(key.hashCode());
+		boolean incremented = false;
+
+		for (int i = 0; i < SEEDS.length; i++) {
+			long indexHash = indexHash(hash, i);
+			int index = index(indexHash);
+			int shift = shift(indexHash);
+
+			if (((table[index] >>> shift) & 0xF) != 0xF) {
+				table[index] += 1L << shift;
+				incremented = true;
+			}
+		}
+
+		if (incremented && ++size >= sampleSize) {
+			reset();
+		}
+	}
+
+	private void reset() {
+		for (int i = 0; i < table.length; i++) {
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+
+		size /= 2;
+	}
+
+	private static int spread(int hash) {
+		int spread = hash * 0x9E3779B9;
+		return spread ^ (spread >>> 16);
+	}
+
+	private static long indexHash(int hash, int row) {
+		long indexHash = (hash + SEEDS[row]) * SEEDS[row];
+		return indexHash ^ (indexHash >>> 32);
+	}
+
+	private int index(long indexHash) {
+		return (int) indexHash & (table.length - 1);
+	}
+
+	private static int shift(long indexHash) {
+		return (int) ((indexHash >>> 40) & 0xF) << 2;
+	}
+
+}
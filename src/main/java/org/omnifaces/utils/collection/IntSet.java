@@ -0,0 +1,289 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.collection;
+
+import static org.omnifaces.utils.collection.PrimitiveHashing.allocateInts;
+import static org.omnifaces.utils.collection.PrimitiveHashing.canShift;
+import static org.omnifaces.utils.collection.PrimitiveHashing.capacityFor;
+import static org.omnifaces.utils.collection.PrimitiveHashing.grow;
+import static org.omnifaces.utils.collection.PrimitiveHashing.maxFill;
+import static org.omnifaces.utils.collection.PrimitiveHashing.mix;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A set of <code>int</code> values in an open addressing hash table, taking 4 to 8 bytes per value instead of the some 40 bytes of a boxed
+ * value in a node of a {@link java.util.HashSet}. The table can be kept off-heap via {@link #offHeap(int)}, so that large sets are not
+ * scanned by the garbage collector. This class is not thread safe.
+ */
+public final class IntSet {
+
+	private final boolean offHeap;
+	private IntBuffer slots;
+	private int mask;
+	private int maxFill;
+	private int filled;
+	private boolean containsZero;
+
+	/**
+	 * Creates an empty set.
+	 */
+	public IntSet() {
+		this(0);
+	}
+
+	/**
+	 * Creates an empty set which can hold the given number of values without growing.
+	 *
+	 * @param expectedSize the expected number of values
+	 */
+	public IntSet(int expectedSize) {
+		this(expectedSize, false);
+	}
+
+	private IntSet(int expectedSize, boolean offHeap) {
+		this.offHeap = offHeap;
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * Creates an empty set whose table is kept in direct memory, outside the heap. The memory is released when the set is garbage
+	 * collected.
+	 *
+	 * @param expectedSize the expected number of values
+	 * @return an empty off-heap set
+	 */
+	public static IntSet offHeap(int expectedSize) {
+		return new IntSet(expectedSize, true);
+	}
+
+	/**
+	 * Creates a set of the given values.
+	 *
+	 * @param values the values
+	 * @return a set of the given values
+	 */
+	public static IntSet of(int... values) {
+		IntSet set = new IntSet(values.length);
+
+		for (int value : values) {
+			set.add(value);
+		}
+
+		return set;
+	}
+
+	public boolean contains(int value) {
+		if (value == 0) {
+			return containsZero;
+		}
+
+		for (int slot = mix(value) & mask;; slot = (slot + 1) & mask) {
+			int current = slots.get(slot);
+
+			if (current == value) {
+				return true;
+			}
+
+			if (current == 0) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Adds the given value.
+	 *
+	 * @param value the value to add
+	 * @return <code>true</code> if the value was not yet in this set
+	 */
+	public boolean add(int value) {
+		if (value == 0) {
+			boolean added = !containsZero;
+			containsZero = true;
+			return added;
+		}
+
+		int slot = mix(value) & mask;
+
+		for (int current; (current = slots.get(slot)) != 0; slot = (slot + 1) & mask) {
+			if (current == value) {
+				return false;
+			}
+		}
+
+		slots.put(slot, value);
+
+		if (++filled > maxFill) {
+			rehash(grow(slots.capacity()));
+		}
+
+		return true;
+	}
+
+	public void addAll(IntSet set) {
+		set.forEach(this::add);
+	}
+
+	/**
+	 * Removes the given value.
+	 *
+	 * @param value the value to remove
+	 * @return <code>true</code> if the value was in this set
+	 */
+	public boolean remove(int value) {
+		if (value == 0) {
+			boolean removed = containsZero;
+			containsZero = false;
+			return removed;
+		}
+
+		for (int slot = mix(value) & mask;; slot = (slot + 1) & mask) {
+			int current = slots.get(slot);
+
+			if (current == 0) {
+				return false;
+			}
+
+			if (current == value) {
+				shiftBack(slot);
+				filled--;
+				return true;
+			}
+		}
+	}
+
+	public int size() {
+		return filled + (containsZero ? 1 : 0);
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public void clear() {
+		allocate(capacityFor(0));
+		filled = 0;
+		containsZero = false;
+	}
+
+	public boolean isOffHeap() {
+		return offHeap;
+	}
+
+	/**
+	 * Performs the given action for every value, in no particular order.
+	 *
+	 * @param action the action to perform
+	 */
+	public void forEach(IntConsumer action) {
+		if (containsZero) {
+			action.accept(0);
+		}
+
+		for (int slot = 0; slot < slots.capacity(); slot++) {
+			int value = slots.get(slot);
+
+			if (value != 0) {
+				action.accept(value);
+			}
+		}
+	}
+
+	/**
+	 * Returns a stream of the values, in no particular order. This set must not be modified while the stream is consumed.
+	 *
+	 * @return a stream of the values
+	 */
+	public IntStream stream() {
+		IntBuffer table = slots;
+		return IntStream.concat(containsZero ? IntStream.of(0) : IntStream.empty(), IntStream.range(0, table.capacity()).map(table::get).filter(value -> value != 0));
+	}
+
+	public int[] toArray() {
+		return stream().toArray();
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (this == object) {
+			return true;
+		}
+
+		if (!(object instanceof IntSet)) {
+			return false;
+		}
+
+		IntSet other = (IntSet) object;
+		return size() == other.size() && stream().allMatch(other::contains);
+	}
+
+	@Override
+	public int hashCode() {
+		return stream().sum();
+	}
+
+	@Override
+	public String toString() {
+		int[] values = toArray();
+		Arrays.sort(values);
+		return Arrays.toString(values);
+	}
+
+	private void allocate(int capacity) {
+		slots = allocateInts(capacity, offHeap);
+		mask = capacity - 1;
+		maxFill = maxFill(capacity);
+	}
+
+	private void rehash(int capacity) {
+		IntBuffer oldSlots = slots;
+		allocate(capacity);
+
+		for (int i = 0; i < oldSlots.capacity(); i++) {
+			int value = oldSlots.get(i);
+
+			if (value != 0) {
+				int slot = mix(value) & mask;
+
+				while (slots.get(slot) != 0) {
+					slot = (slot + 1) & mask;
+				}
+
+				slots.put(slot, value);
+			}
+		}
+	}
+
+	private void shiftBack(int slot) {
+		int free = slot;
+
+		for (int next = (free + 1) & mask;; next = (next + 1) & mask) {
+			int value = slots.get(next);
+
+			if (value == 0) {
+				slots.put(free, 0);
+				return;
+			}
+
+			if (canShift(free, next, mix(value) & mask)) {
+				slots.put(free, value);
+				free = next;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.collection;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A position in a sorted sequence of results for keyset pagination, consisting of the sort key values of the result at that position and
+ * whether the results after or before it are requested. Cursors are created by {@link KeysetPaginator} from the first and last result of a
+ * {@link KeysetResultList}, and are only to be interpreted by a {@link KeysetLoader}.
+ */
+public final class KeysetCursor implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The direction to page in from a cursor.
+	 */
+	public enum Direction {
+
+		/** The results sorting after the cursor. */
+		AFTER,
+
+		/** The results sorting before the cursor. */
+		BEFORE
+	}
+
+	private final Direction direction;
+	private final ArrayList<Object> keys;
+	private final int offset;
+
+	KeysetCursor(Direction direction, Object[] keys, int offset) {
+		this.direction = direction;
+		this.keys = new ArrayList<>(Arrays.asList(keys));
+		this.offset = offset;
+	}
+
+	public Direction getDirection() {
+		return direction;
+	}
+
+	/**
+	 * Returns the sort key values of the result at this cursor, in order of significance.
+	 *
+	 * @return the sort key values of the result at this cursor
+	 */
+	public List<Object> getKeys() {
+		return unmodifiableList(keys);
+	}
+
+	/**
+	 * Returns the offset of this cursor in the full sequence, that is, the number of results sorting before the results requested via
+	 * this cursor.
+	 *
+	 * @return the offset of this cursor in the full sequence
+	 */
+	int getOffset() {
+		return offset;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (this == object) {
+			return true;
+		}
+
+		if (!(object instanceof KeysetCursor)) {
+			return false;
+		}
+
+		KeysetCursor other = (KeysetCursor) object;
+		return direction == other.direction && keys.equals(other.keys) && offset == other.offset;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(direction, keys, offset);
+	}
+
+	@Override
+	public String toString() {
+		return direction + keys.toString();
+	}
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.collection;
+
+import java.util.List;
+
+/**
+ * Loads a page of a sorted sequence of results relative to a cursor, typically by running a query which seeks to the sort key values of
+ * the cursor, such as <code>WHERE (created, id) &gt; (?, ?) ORDER BY created, id LIMIT ?</code>. Unlike an offset, such a query can use an
+ * index to find the start of the page, so its cost does not grow with the depth of the page.
+ *
+ * @param <E> the type of the results
+ */
+@FunctionalInterface
+public interface KeysetLoader<E> {
+
+	/**
+	 * Loads the results adjacent to the given cursor.
+	 *
+	 * @param cursor the cursor, or <code>null</code> for the first results
+	 * @param limit the maximum number of results to load
+	 * @return for {@link KeysetCursor.Direction#AFTER} or no cursor, the first results sorting after the cursor, and for
+	 * {@link KeysetCursor.Direction#BEFORE}, the last results sorting before the cursor; in both cases in sort order
+	 */
+	List<E> load(KeysetCursor cursor, int limit);
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.collection;
+
+import static org.omnifaces.utils.collection.PartialResultList.UNKNOWN_NUMBER_OF_RESULTS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.omnifaces.utils.collection.KeysetCursor.Direction;
+import org.omnifaces.utils.reflect.Getter;
+
+/**
+ * Pages through a sorted sequence of results via a {@link KeysetLoader}, by seeking to the sort keys of the last or first result of the
+ * current page instead of skipping an offset. The cost of loading a page therefore does not depend on how deep the page is, and results
+ * inserted or removed in earlier pages do not shift results across pages.
+ *
+ * <p>
+ * The sort keys are extracted from the results with the given key functions, typically {@link Getter}s such as
+ * <code>Person::getLastName, Person::getId</code>, in order of significance. The combination of all sort keys must be unique, so the last
+ * one is usually the identifier.
+ *
+ * <p>
+ * The pages are {@link KeysetResultList}s carrying the cursors to their adjacent pages. Their offset is known as long as the pages are
+ * reached from the first page via these cursors. Their estimated total number of results is
+ * {@link PartialResultList#UNKNOWN_NUMBER_OF_RESULTS}, except for the last page, which reveals the exact number if its offset is known.
+ *
+ * @param <E> the type of the results
+ */
+public final class KeysetPaginator<E> {
+
+	private final KeysetLoader<E> loader;
+	private final int pageSize;
+	private final List<Function<? super E, ?>> keyExtractors;
+
+	/**
+	 * Creates a keyset paginator.
+	 *
+	 * @param loader the loader of the pages
+	 * @param pageSize the number of results per page
+	 * @param keyExtractors the functions extracting the sort keys from a result, in order of significance
+	 */
+	@SafeVarargs
+	@SuppressWarnings("varargs") // List.of() copies the array, so it does not escape.
+	public KeysetPaginator(KeysetLoader<E> loader, int pageSize, Function<? super E, ?>... keyExtractors) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be positive");
+		}
+
+		if (keyExtractors.length == 0) {
+			throw new IllegalArgumentException("At least one key extractor is required");
+		}
+
+		this.loader = loader;
+		this.pageSize = pageSize;
+		this.keyExtractors = List.of(keyExtractors);
+	}
+
+	/**
+	 * Creates a keyset paginator with the given getters as key extractors.
+	 *
+	 * @param <E> the type of the results
+	 * @param loader the loader of the pages
+	 * @param pageSize the number of results per page
+	 * @param getters the getters of the sort keys of a result, in order of significance
+	 * @return a keyset paginator
+	 */
+	@SafeVarargs
+	@SuppressWarnings("varargs") // The array is only passed on to the constructor, which copies it.
+	public static <E> KeysetPaginator<E> of(KeysetLoader<E> loader, int pageSize, Getter<E>... getters) {
+		return new KeysetPaginator<>(loader, pageSize, getters);
+	}
+
+	/**
+	 * Returns the first page.
+	 *
+	 * @return the first page
+	 */
+	public KeysetResultList<E> getFirstPage() {
+		return getPage(null);
+	}
+
+	/**
+	 * Returns the page at the given cursor, as obtained from {@link KeysetResultList#getAfterCursor()} or
+	 * {@link KeysetResultList#getBeforeCursor()} of another page. When there turn out to be no results before a cursor anymore, e.g. because
+	 * they were removed in the meantime, the first page is returned instead, which then starts at the result of the cursor, so that there
+	 * is always a way back. Likewise, when there turn out to be no results after a cursor anymore, the empty page returned has a before
+	 * cursor at the result of the cursor.
+	 *
+	 * @param cursor the cursor, or <code>null</code> for the first page
+	 * @return the page at the given cursor
+	 */
+	public KeysetResultList<E> getPage(KeysetCursor cursor) {
+		// Load one more than a page, to find out whether there is a page beyond it without another query.
+		List<E> results = loader.load(cursor, pageSize + 1);
+		boolean before = cursor != null && cursor.getDirection() == Direction.BEFORE;
+
+		if (before && results.isEmpty()) {
+			return getFirstPage();
+		}
+
+		boolean hasMore = results.size() > pageSize;
+		List<E> page = !hasMore ? results : before ? results.subList(1, results.size()) : results.subList(0, pageSize);
+
+		int offset = getOffset(cursor, page.size(), before && !hasMore);
+		boolean hasAfter = before ? !page.isEmpty() : hasMore;
+		boolean hasBefore = before ? hasMore : cursor != null && !page.isEmpty() && offset != 0;
+		int estimatedTotalNumberOfResults = !hasAfter && offset != UNKNOWN_NUMBER_OF_RESULTS ? offset + page.size() : UNKNOWN_NUMBER_OF_RESULTS;
+
+		KeysetCursor afterCursor = hasAfter ? createCursor(Direction.AFTER, page.get(page.size() - 1), offset == UNKNOWN_NUMBER_OF_RESULTS ? offset : offset + page.size()) : null;
+		KeysetCursor beforeCursor = hasBefore ? createCursor(Direction.BEFORE, page.get(0), offset) : null;
+
+		if (!before && cursor != null && page.isEmpty()) {
+			// The results after the cursor were removed in the meantime. Go back from the result of the cursor, which sits just before the offset.
+			int cursorOffset = cursor.getOffset() == UNKNOWN_NUMBER_OF_RESULTS ? UNKNOWN_NUMBER_OF_RESULTS : cursor.getOffset() - 1;
+			beforeCursor = new KeysetCursor(Direction.BEFORE, cursor.getKeys().toArray(), cursorOffset);
+		}
+
+		return new KeysetResultList<>(new ArrayList<>(page), offset, estimatedTotalNumberOfResults, afterCursor, beforeCursor);
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	private static int getOffset(KeysetCursor cursor, int size, boolean first) {
+		if (cursor == null || first) {
+			return 0;
+		}
+
+		int offset = cursor.getOffset();
+
+		if (offset == UNKNOWN_NUMBER_OF_RESULTS || cursor.getDirection() == Direction.AFTER) {
+			return offset;
+		}
+
+		return Math.max(0, offset - size);
+	}
+
+	private KeysetCursor createCursor(Direction direction, E result, int offset) {
+		Object[] keys = new Object[keyExtractors.size()];
+
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = keyExtractors.get(i).apply(result);
+		}
+
+		return new KeysetCursor(direction, keys, offset);
+	}
+
+}
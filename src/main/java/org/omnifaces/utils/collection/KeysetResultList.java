@@ -0,0 +1,55 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.collection;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A {@link PartialResultList} obtained by keyset pagination, which additionally carries the cursors to the pages after and before it.
+ *
+ * @param <E> the type of element the list should contain
+ * @see KeysetPaginator
+ */
+public class KeysetResultList<E> extends PartialResultList<E> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final KeysetCursor afterCursor;
+	private final KeysetCursor beforeCursor;
+
+	KeysetResultList(List<E> wrappedList, int offset, int estimatedTotalNumberOfResults, KeysetCursor afterCursor, KeysetCursor beforeCursor) {
+		super(wrappedList, offset, estimatedTotalNumberOfResults);
+		this.afterCursor = afterCursor;
+		this.beforeCursor = beforeCursor;
+	}
+
+	/**
+	 * Returns the cursor to the page after this one.
+	 *
+	 * @return the cursor to the page after this one, or an empty optional if this is the last page
+	 */
+	public Optional<KeysetCursor> getAfterCursor() {
+		return Optional.ofNullable(afterCursor);
+	}
+
+	/**
+	 * Returns the cursor to the page before this one.
+	 *
+	 * @return the cursor to the page before this one, or an empty optional if this is the first page
+	 */
+	public Optional<KeysetCursor> getBeforeCursor() {
+		return Optional.ofNullable(beforeCursor);
+	}
+
+}
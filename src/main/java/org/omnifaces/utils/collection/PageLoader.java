@@ -0,0 +1,34 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.collection;
+
+/**
+ * Loads a page of a larger sequence of results, typically by running a query with an offset and a limit.
+ *
+ * @param <E> the type of the results
+ */
+@FunctionalInterface
+public interface PageLoader<E> {
+
+	/**
+	 * Loads the results starting at the given offset in the full sequence. Fewer results than the given limit are only returned when the
+	 * end of the sequence is reached.
+	 *
+	 * @param offset the offset of the first result to load
+	 * @param limit the maximum number of results to load
+	 * @return the loaded results, with the given offset and an estimate of the total number of results, or
+	 * {@link PartialResultList#UNKNOWN_NUMBER_OF_RESULTS} if no estimate can be given
+	 */
+	PartialResultList<E> load(int offset, int limit);
+
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.collection;
+
+import static org.omnifaces.utils.collection.PartialResultList.UNKNOWN_NUMBER_OF_RESULTS;
+
+import java.util.AbstractList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pages through a larger sequence of results via a {@link PageLoader}, keeping the most recently used pages in memory.
+ *
+ * <p>
+ * Every page is loaded at most once while it is cached, also when it is requested concurrently. When a page is requested, the next page is
+ * loaded in the background, so that it is usually available by the time a caller pages forward. {@link #asList()} offers all results as
+ * a lazily loaded read-only list, so that e.g. a lazy data table can be backed by it without re-querying the pages it just showed.
+ *
+ * <p>
+ * The total number of results is taken from the estimate of the most recently loaded page, until the last page is loaded, which reveals
+ * the exact number. The size of {@link #asList()} is always exact.
+ *
+ * @param <E> the type of the results
+ */
+public final class PagedResults<E> {
+
+	private static final int DEFAULT_MAX_CACHED_PAGES = 16;
+
+	private final PageLoader<E> loader;
+	private final int pageSize;
+	private final Executor prefetchExecutor;
+	private final Map<Integer, CompletableFuture<PartialResultList<E>>> pages;
+	private final AtomicLong loadCount = new AtomicLong();
+
+	private int generation;
+	private volatile int estimatedTotalNumberOfResults = UNKNOWN_NUMBER_OF_RESULTS;
+	private volatile int exactTotalNumberOfResults = UNKNOWN_NUMBER_OF_RESULTS;
+
+	/**
+	 * Creates paged results which caches up to 16 pages and prefetches on a shared pool of daemon threads. This pool rather than the common
+	 * fork join pool, as page loaders typically block on I/O.
+	 *
+	 * @param loader the loader of the pages
+	 * @param pageSize the number of results per page
+	 */
+	public PagedResults(PageLoader<E> loader, int pageSize) {
+		this(loader, pageSize, DEFAULT_MAX_CACHED_PAGES, DefaultPrefetchExecutor.INSTANCE);
+	}
+
+	/**
+	 * Creates paged results.
+	 *
+	 * @param loader the loader of the pages
+	 * @param pageSize the number of results per page
+	 * @param maxCachedPages the maximum number of pages to keep in memory, at least 2 so that a prefetched page does not evict the
+	 * current one
+	 * @param prefetchExecutor the executor to load the next page with, or <code>null</code> to not prefetch
+	 */
+	public PagedResults(PageLoader<E> loader, int pageSize, int maxCachedPages, Executor prefetchExecutor) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be positive");
+		}
+
+		if (maxCachedPages < 2) {
+			throw new IllegalArgumentException("At least 2 pages must be cached");
+		}
+
+		this.loader = loader;
+		this.pageSize = pageSize;
+		this.prefetchExecutor = prefetchExecutor;
+		this.pages = new LinkedHashMap<Integer, CompletableFuture<PartialResultList<E>>>(maxCachedPages * 4 / 3 + 1, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, CompletableFuture<PartialResultList<E>>> eldest) {
+				return size() > maxCachedPages;
+			}
+		};
+	}
+
+	/**
+	 * Returns the page with the given index, loading it if it is not cached, and starts prefetching the next page.
+	 *
+	 * @param pageIndex the zero based index of the page
+	 * @return the page with the given index
+	 * @throws RuntimeException the exception thrown by the page loader, if any, which is rethrown as is, as are errors
+	 */
+	public PartialResultList<E> getPage(int pageIndex) {
+		if (pageIndex < 0) {
+			throw new IndexOutOfBoundsException("Page index must not be negative");
+		}
+
+		PartialResultList<E> page;
+
+		try {
+			page = getOrLoad(pageIndex, null).join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+		}
+
+		if (prefetchExecutor != null && hasPage(pageIndex + 1)) {
+			getOrLoad(pageIndex + 1, prefetchExecutor);
+		}
+
+		return page;
+	}
+
+	/**
+	 * Returns the total number of results, which is exact once the last page has been loaded, and else the most recent estimate.
+	 *
+	 * @return the total number of results, or {@link PartialResultList#UNKNOWN_NUMBER_OF_RESULTS} if no estimate can be given
+	 */
+	public int getEstimatedTotalNumberOfResults() {
+		int exact = exactTotalNumberOfResults;
+		return exact != UNKNOWN_NUMBER_OF_RESULTS ? exact : estimatedTotalNumberOfResults;
+	}
+
+	/**
+	 * Returns all results as a lazily loaded read-only list. Getting an element loads the page it is on, if not cached. The size of the
+	 * list is exact, so that iterating over it never runs beyond the last result when the estimate is too high. Determining it loads the
+	 * page after the one on which the {@link #getEstimatedTotalNumberOfResults()} ends, and the pages after that as long as they are full.
+	 * If no estimate can be given, determining the size loads all pages.
+	 *
+	 * @return all results as a lazily loaded read-only list
+	 */
+	public List<E> asList() {
+		return new LazyList();
+	}
+
+	/**
+	 * Removes all pages from the cache, so that they are loaded again when requested, e.g. after the underlying results have changed.
+	 */
+	public void invalidate() {
+		synchronized (pages) {
+			pages.clear();
+			generation++;
+			exactTotalNumberOfResults = UNKNOWN_NUMBER_OF_RESULTS;
+		}
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Returns the number of times a page has been loaded, including prefetches.
+	 *
+	 * @return the number of times a page has been loaded
+	 */
+	public long getLoadCount() {
+		return loadCount.get();
+	}
+
+	private CompletableFuture<PartialResultList<E>> getOrLoad(int pageIndex, Executor executor) {
+		CompletableFuture<PartialResultList<E>> page;
+		boolean load = false;
+		int loadGeneration;
+
+		synchronized (pages) {
+			page = pages.get(pageIndex);
+			loadGeneration = generation;
+
+			if (page == null) {
+				page = new CompletableFuture<>();
+				pages.put(pageIndex, page);
+				load = true;
+			}
+		}
+
+		if (load) {
+			CompletableFuture<PartialResultList<E>> loadingPage = page;
+
+			if (executor == null) {
+				load(pageIndex, loadingPage, loadGeneration);
+			}
+			else {
+				try {
+					executor.execute(() -> load(pageIndex, loadingPage, loadGeneration));
+				}
+				catch (RejectedExecutionException e) {
+					fail(pageIndex, loadingPage, e);
+				}
+			}
+		}
+
+		return page;
+	}
+
+	private void load(int pageIndex, CompletableFuture<PartialResultList<E>> page, int loadGeneration) {
+		try {
+			int offset = pageIndex * pageSize;
+			PartialResultList<E> loadedPage = loader.load(offset, pageSize);
+			loadCount.incrementAndGet();
+
+			synchronized (pages) {
+				// Do not let a page which was loaded before an invalidation update the totals of the changed results.
+				if (loadGeneration == generation) {
+					estimatedTotalNumberOfResults = loadedPage.getEstimatedTotalNumberOfResults();
+
+					// An empty page beyond the first only tells that the results end somewhere before it.
+					if (loadedPage.size() < pageSize && (!loadedPage.isEmpty() || offset == 0)) {
+						exactTotalNumberOfResults = offset + loadedPage.size();
+					}
+				}
+			}
+
+			page.complete(loadedPage);
+		}
+		catch (Throwable e) {
+			// Also errors, as a page which is never completed would block all requests for it forever.
+			fail(pageIndex, page, e);
+		}
+	}
+
+	private void fail(int pageIndex, CompletableFuture<PartialResultList<E>> page, Throwable failure) {
+		// Do not cache failures, so that the next request tries again.
+		synchronized (pages) {
+			pages.remove(pageIndex, page);
+		}
+
+		page.completeExceptionally(failure);
+	}
+
+	private boolean hasPage(int pageIndex) {
+		int total = getEstimatedTotalNumberOfResults();
+		int offset = pageIndex * pageSize;
+
+		if (total == UNKNOWN_NUMBER_OF_RESULTS) {
+			return exactTotalNumberOfResults == UNKNOWN_NUMBER_OF_RESULTS;
+		}
+
+		return offset < total;
+	}
+
+	private class LazyList extends AbstractList<E> implements RandomAccess {
+
+		@Override
+		public E get(int index) {
+			if (index < 0) {
+				throw new IndexOutOfBoundsException("Index: " + index);
+			}
+
+			PartialResultList<E> page = getPage(index / pageSize);
+			int pageOffset = index % pageSize;
+
+			if (pageOffset >= page.size()) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (page.getOffset() + page.size()));
+			}
+
+			return page.get(pageOffset);
+		}
+
+		@Override
+		public int size() {
+			// All pages before the first are full, and all pages from the last are empty.
+			int first = 0;
+			int last = Integer.MAX_VALUE;
+			int step = 1;
+
+			while (true) {
+				int exact = exactTotalNumberOfResults;
+
+				if (exact != UNKNOWN_NUMBER_OF_RESULTS) {
+					return exact;
+				}
+
+				if (first >= last) {
+					return first * pageSize;
+				}
+
+				int estimate = estimatedTotalNumberOfResults;
+				int pageIndex;
+
+				if (last == Integer.MAX_VALUE) {
+					// Try the page after the estimated last result, which is short or empty if the estimate is exact or too high.
+					pageIndex = estimate == UNKNOWN_NUMBER_OF_RESULTS ? first : Math.max(first, estimate / pageSize);
+				}
+				else if (step > 0) {
+					// The estimate was too high, usually only slightly, so step back with increasing steps until a full page is found.
+					pageIndex = Math.max(first, last - step);
+					step *= 2;
+				}
+				else {
+					pageIndex = (first + last - 1) >>> 1;
+				}
+
+				PartialResultList<E> page = getPage(pageIndex);
+
+				// A loader returning more than asked still counts as a full page, so that the search always moves on.
+				if (page.size() >= pageSize) {
+					first = pageIndex + 1;
+
+					if (last != Integer.MAX_VALUE) {
+						step = 0;
+					}
+				}
+				else if (page.isEmpty()) {
+					last = pageIndex;
+				}
+			}
+		}
+	}
+
+	private static final class DefaultPrefetchExecutor {
+
+		private static final AtomicInteger threadNumber = new AtomicInteger();
+
+		private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "PagedResults-prefetch-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+}
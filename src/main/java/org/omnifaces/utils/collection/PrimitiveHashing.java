@@ -0,0 +1,103 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.collection;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Shared arithmetic of the open addressing hash tables of {@link IntSet}, {@link LongObjectMap} and {@link LongLongMap}. The tables use
+ * linear probing with a power of two number of slots, of which at most three quarters are filled. Key 0 marks a free slot, so the tables
+ * keep the entry for key 0 outside the slots. Removal shifts subsequent entries back instead of leaving tombstones, so lookups never slow
+ * down after many removals.
+ */
+final class PrimitiveHashing {
+
+	static final int MIN_CAPACITY = 16;
+	static final int MAX_CAPACITY = 1 << 30;
+
+	private PrimitiveHashing() {
+	}
+
+	/**
+	 * Returns the number of slots for the given expected number of entries.
+	 */
+	static int capacityFor(int expectedSize) {
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException("Expected size must not be negative");
+		}
+
+		long minCapacity = Math.max(MIN_CAPACITY, (long) expectedSize * 4 / 3 + 1);
+
+		if (minCapacity > MAX_CAPACITY) {
+			throw new IllegalArgumentException("Expected size is too large: " + expectedSize);
+		}
+
+		return Integer.highestOneBit((int) minCapacity - 1) << 1;
+	}
+
+	/**
+	 * Returns the maximum number of entries in the slots of a table with the given capacity.
+	 */
+	static int maxFill(int capacity) {
+		return capacity == MAX_CAPACITY ? capacity - 1 : capacity / 4 * 3;
+	}
+
+	/**
+	 * Returns the number of slots to grow a full table with the given capacity to.
+	 */
+	static int grow(int capacity) {
+		if (capacity >= MAX_CAPACITY) {
+			throw new IllegalStateException("Table cannot grow beyond " + MAX_CAPACITY + " slots");
+		}
+
+		return capacity * 2;
+	}
+
+	static int mix(int key) {
+		int hash = key * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	static int mix(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		hash ^= hash >>> 32;
+		return (int) (hash ^ (hash >>> 16));
+	}
+
+	/**
+	 * Returns whether the entry at the given slot, which hashes to the given ideal slot, may be shifted back into the given free slot.
+	 */
+	static boolean canShift(int free, int slot, int ideal) {
+		return free <= slot ? free >= ideal || ideal > slot : free >= ideal && ideal > slot;
+	}
+
+	static IntBuffer allocateInts(int length, boolean offHeap) {
+		if (offHeap && (long) length * Integer.BYTES > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Off-heap table is too large: " + length + " ints");
+		}
+
+		return offHeap ? ByteBuffer.allocateDirect(length * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer() : IntBuffer.wrap(new int[length]);
+	}
+
+	static LongBuffer allocateLongs(int length, boolean offHeap) {
+		if (offHeap && (long) length * Long.BYTES > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Off-heap table is too large: " + length + " longs");
+		}
+
+		return offHeap ? ByteBuffer.allocateDirect(length * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer() : LongBuffer.wrap(new long[length]);
+	}
+
+}
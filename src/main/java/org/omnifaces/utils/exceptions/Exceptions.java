@@ -14,11 +14,17 @@ package org.omnifaces.utils.exceptions;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.unmodifiableList;
-import static java.util.stream.Collectors.joining;
-
-import java.util.Arrays;
+import static java.util.stream.Collectors.toList;
+import static org.omnifaces.utils.exceptions.RecursiveStackTraceRenderer.UNLIMITED;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -60,6 +66,11 @@ public final class Exceptions {
 			"org.jboss.invocation.InterceptorContext$Invocation.proceed"
 	));
 
+	private static final Predicate<StackTraceElement> JAVA_SE_STACK_TRACE_FILTER = excludeFromStackTrace(JAVA_SE_STACK_TRACE_EXCLUSIONS);
+	private static final Predicate<StackTraceElement> JAVA_EE_STACK_TRACE_FILTER = excludeFromStackTrace(JAVA_EE_STACK_TRACE_EXCLUSIONS);
+	private static final Predicate<StackTraceElement> ALL_STACK_TRACE_FILTER = excludeFromStackTrace(
+			Stream.concat(JAVA_SE_STACK_TRACE_EXCLUSIONS.stream(), JAVA_EE_STACK_TRACE_EXCLUSIONS.stream()).collect(toList()));
+
 	public static final int SHORT_STACKTRACE_DEPTH = 2;
 
 	private Exceptions() {
@@ -70,81 +81,71 @@ public final class Exceptions {
 	}
 
 	public static String getRecursiveStackTrace(Throwable throwable, Predicate<StackTraceElement> filter) {
-		StringBuilder headerBuilder = new StringBuilder("Exception summary:\n\n");
-		StringBuilder builder = new StringBuilder("\n\nException details:");
-
-		int exceptionLevel = 0;
-
-		Throwable rootCause = null;
-		Throwable currentThrowable = throwable;
-
-		while (currentThrowable != null) {
-			String currentMessage = "Exception level " + exceptionLevel + ": " + getNameAndMessage(currentThrowable) + "\n";
-			builder.append("\n\n").append(currentMessage);
-			headerBuilder.append(currentMessage);
-
-			appendStackTrace(builder, currentThrowable, filter, exceptionLevel, 1);
-
-			rootCause = currentThrowable;
-
-			currentThrowable = currentThrowable.getCause();
-			exceptionLevel++;
-		}
-
-		StringBuilder messageBuilder = new StringBuilder().append(headerBuilder);
-
-		if (exceptionLevel > 1) {
-
-			messageBuilder.append("\n\nRoot cause at level ")
-			              .append(exceptionLevel - 1)
-			              .append(": ")
-			              .append(getNameAndMessage(rootCause))
-			              .append("\n");
-
-			appendShortStackTrace(messageBuilder, rootCause, filter, 1);
-		}
-
-		return messageBuilder.append(builder)
-		                     .toString();
+		return new RecursiveStackTraceRenderer(filter, false, UNLIMITED, UNLIMITED, 0).render(throwable);
 	}
 
-	private static void appendShortStackTrace(StringBuilder builder, Throwable throwable, Predicate<StackTraceElement> filter, int indentLevel) {
-		String indentString = getIndentString(indentLevel);
-
-		Arrays.stream(throwable.getStackTrace())
-		      .filter(filter)
-		      .limit(SHORT_STACKTRACE_DEPTH)
-		      .forEach(stackTraceElement -> builder.append(indentString).append("at ").append(stackTraceElement).append("\n"));
+	/**
+	 * Appends the recursive stack trace of the given throwable, in the format of {@link #getRecursiveStackTrace(Throwable, Predicate)}, to the
+	 * given appendable without building it in memory first. Frames in common with the enclosing trace are collapsed. Use a
+	 * {@link RecursiveStackTraceRenderer} directly to cap the size of the trace or to cache rendered traces.
+	 *
+	 * @param throwable the throwable to render
+	 * @param filter the filter which stack trace elements have to pass in order to be rendered
+	 * @param appendable the appendable to render to
+	 * @throws IOException when appending fails
+	 */
+	public static void appendRecursiveStackTrace(Throwable throwable, Predicate<StackTraceElement> filter, Appendable appendable) throws IOException {
+		new RecursiveStackTraceRenderer(filter).render(throwable, appendable);
 	}
 
-	private static void appendStackTrace(StringBuilder bodyBuilder, Throwable throwable, Predicate<StackTraceElement> filter, int exceptionLevel,
-			int indentLevel) {
-		String indentString = getIndentString(indentLevel);
+	/**
+	 * Computes a 64 bit fingerprint of the given throwable, its causes and its suppressed exceptions, based on their types and their stack
+	 * trace elements which pass the given filter. Messages are not taken into account, so exceptions thrown from the same place for the same
+	 * reason get the same fingerprint even when their messages contain e.g. varying identifiers.
+	 *
+	 * @param throwable the throwable to compute the fingerprint of
+	 * @param filter the filter which stack trace elements have to pass in order to be taken into account
+	 * @return the fingerprint of the given throwable
+	 */
+	public static long fingerprint(Throwable throwable, Predicate<StackTraceElement> filter) {
+		long hash = 1125899906842597L;
+		Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<Throwable> pending = new ArrayDeque<>();
+		pending.push(throwable);
+
+		while (!pending.isEmpty()) {
+			Throwable current = pending.pop();
+
+			if (!seen.add(current)) {
+				continue;
+			}
 
-		appendStackTrace(bodyBuilder, throwable, exceptionLevel, indentString, filter);
+			hash = mix(hash, current.getClass().getName().hashCode());
 
-	}
+			for (StackTraceElement stackTraceElement : current.getStackTrace()) {
+				if (filter.test(stackTraceElement)) {
+					hash = mix(hash, stackTraceElement.hashCode());
+				}
+			}
 
-	private static void appendStackTrace(StringBuilder builder, Throwable throwable, int exceptionLevel, String indentString,
-			Predicate<StackTraceElement> filter) {
-		Arrays.stream(throwable.getStackTrace())
-		      .filter(filter)
-		      .forEach(stackTraceElement -> builder.append(indentString).append("at ").append(stackTraceElement).append("\n"));
+			for (Throwable suppressed : current.getSuppressed()) {
+				pending.push(suppressed);
+			}
 
+			if (current.getCause() != null) {
+				pending.push(current.getCause());
+			}
+		}
 
-		for (Throwable suppressed : throwable.getSuppressed()) {
-			builder.append(indentString)
-			       .append("Suppressed at level ")
-			       .append(exceptionLevel)
-			       .append(": ")
-			       .append(getNameAndMessage(suppressed))
-			       .append("\n");
+		return hash;
+	}
 
-			appendStackTrace(builder, suppressed, exceptionLevel, indentString + "\t", filter);
-		}
+	private static long mix(long hash, int value) {
+		long mixed = (hash ^ value) * 0x9E3779B97F4A7C15L;
+		return mixed ^ (mixed >>> 29);
 	}
 
-	private static String getNameAndMessage(Throwable throwable) {
+	static String getNameAndMessage(Throwable throwable) {
 		String message = throwable.getMessage();
 
 		if (message == null) {
@@ -170,31 +171,36 @@ public final class Exceptions {
 		return throwable.getClass().getName() + ": " + message;
 	}
 
-	private static String getIndentString(int indentLevel) {
-		return Stream.generate(() -> "\t")
-		             .limit(indentLevel)
-		             .collect(joining());
-	}
-
 	public static Predicate<StackTraceElement> excludeJavaSE() {
 		// TODO better name for this
-		return excludeFromStackTrace(JAVA_SE_STACK_TRACE_EXCLUSIONS);
+		return JAVA_SE_STACK_TRACE_FILTER;
 	}
 
 	public static Predicate<StackTraceElement> excludeJavaEE() {
-		return excludeFromStackTrace(JAVA_EE_STACK_TRACE_EXCLUSIONS);
+		return JAVA_EE_STACK_TRACE_FILTER;
 	}
 
 	public static Predicate<StackTraceElement> excludeAll() {
 		// TODO better name for method and include the other exclusions as well
-		return excludeJavaSE().and(excludeJavaEE());
+		return ALL_STACK_TRACE_FILTER;
 	}
 
+	/**
+	 * Returns a predicate which excludes stack trace elements of which the class name, or the class name followed by a dot
+	 * and the method name, starts with one of the given package or class names. E.g. <code>"org.apache.catalina"</code>
+	 * excludes all classes in that package and its subpackages, and <code>"java.lang.Thread.run"</code> excludes only
+	 * the <code>run</code> method of <code>java.lang.Thread</code>.
+	 *
+	 * <p>
+	 * The given names are compiled into a matcher once, and the outcome is cached per class name, so testing a stack trace
+	 * element does not allocate. The returned predicate should therefore be reused rather than recreated for every trace.
+	 *
+	 * @param packageOrClassNames the package, class or class and method names to exclude
+	 * @return a predicate which returns <code>false</code> for stack trace elements matching one of the given names
+	 */
 	public static Predicate<StackTraceElement> excludeFromStackTrace(List<String> packageOrClassNames) {
 		Objects.requireNonNull(packageOrClassNames);
-		return stackTraceElement -> packageOrClassNames.stream()
-		                                               .noneMatch(exclusion -> stackTraceElement.toString().startsWith(exclusion) ||
-				                                               stackTraceElement.getClassName().startsWith(exclusion));
+		return new StackTraceExclusionFilter(packageOrClassNames);
 	}
 
 }
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.exceptions;
+
+import static org.omnifaces.utils.exceptions.Exceptions.SHORT_STACKTRACE_DEPTH;
+import static org.omnifaces.utils.exceptions.Exceptions.getNameAndMessage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Renders the recursive stack trace of a throwable in the format of {@link Exceptions#getRecursiveStackTrace(Throwable)}
+ * directly to an {@link Appendable}.
+ *
+ * <p>
+ * Compared to building the whole trace in memory first, this renderer:
+ * <ul>
+ * <li>reads the stack trace of every throwable only once;</li>
+ * <li>optionally collapses the frames a cause or suppressed exception has in common with its enclosing trace into a
+ * single <code>... N more</code> line, like {@link Throwable#printStackTrace()} does;</li>
+ * <li>optionally caps the number of exception levels and the number of characters rendered;</li>
+ * <li>optionally caches the rendered trace by the structure of the exception, so that repeated identical exceptions,
+ * as commonly seen when a dependency fails, are rendered only once.</li>
+ * </ul>
+ *
+ * <p>
+ * Instances are thread safe and are intended to be reused.
+ */
+public class RecursiveStackTraceRenderer {
+
+	public static final int UNLIMITED = Integer.MAX_VALUE;
+
+	private static final String TRUNCATED_MESSAGE = "\n... truncated\n";
+
+	private final Predicate<StackTraceElement> filter;
+	private final boolean collapseCommonFrames;
+	private final int maxExceptionLevels;
+	private final int maxLength;
+	private final Map<List<Object>, String> cache;
+
+	/**
+	 * Creates a renderer which collapses common frames, has no limits and does not cache.
+	 *
+	 * @param filter the filter which stack trace elements have to pass in order to be rendered
+	 */
+	public RecursiveStackTraceRenderer(Predicate<StackTraceElement> filter) {
+		this(filter, true, UNLIMITED, UNLIMITED, 0);
+	}
+
+	/**
+	 * Creates a renderer.
+	 *
+	 * @param filter the filter which stack trace elements have to pass in order to be rendered
+	 * @param collapseCommonFrames whether to collapse frames in common with the enclosing trace into <code>... N more</code>
+	 * @param maxExceptionLevels the maximum number of causes to render, or {@link #UNLIMITED}
+	 * @param maxLength the maximum number of characters to render, or {@link #UNLIMITED}
+	 * @param cacheSize the maximum number of rendered traces to cache, or 0 to disable caching
+	 * @throws IllegalArgumentException when one of the limits is not positive, or the cache size is negative
+	 */
+	public RecursiveStackTraceRenderer(Predicate<StackTraceElement> filter, boolean collapseCommonFrames, int maxExceptionLevels, int maxLength,
+			int cacheSize) {
+		if (maxExceptionLevels <= 0 || maxLength <= 0) {
+			throw new IllegalArgumentException("Limits must be greater than 0");
+		}
+
+		if (cacheSize < 0) {
+			throw new IllegalArgumentException("Cache size must not be negative");
+		}
+
+		this.filter = filter;
+		this.collapseCommonFrames = collapseCommonFrames;
+		this.maxExceptionLevels = maxExceptionLevels;
+		this.maxLength = maxLength;
+		this.cache = cacheSize == 0 ? null : Collections.synchronizedMap(new LinkedHashMap<List<Object>, String>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<List<Object>, String> eldest) {
+				return size() > cacheSize;
+			}
+		});
+	}
+
+	/**
+	 * Renders the recursive stack trace of the given throwable into a string.
+	 *
+	 * @param throwable the throwable to render
+	 * @return the recursive stack trace
+	 */
+	public String render(Throwable throwable) {
+		StringBuilder builder = new StringBuilder();
+
+		try {
+			render(throwable, builder);
+		}
+		catch (IOException e) {
+			// Not thrown by StringBuilder.
+			throw new UncheckedIOException(e);
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Renders the recursive stack trace of the given throwable to the given appendable.
+	 *
+	 * @param throwable the throwable to render
+	 * @param appendable the appendable to render to
+	 * @throws IOException when appending fails
+	 */
+	public void render(Throwable throwable, Appendable appendable) throws IOException {
+		if (cache == null) {
+			new Rendering(appendable).render(throwable);
+			return;
+		}
+
+		List<Object> key = cacheKey(throwable, new IdentityHashMap<>());
+		String rendered = cache.get(key);
+
+		if (rendered == null) {
+			StringBuilder builder = new StringBuilder();
+			new Rendering(builder).render(throwable);
+			rendered = builder.toString();
+			cache.put(key, rendered);
+		}
+
+		appendable.append(rendered);
+	}
+
+	public Predicate<StackTraceElement> getFilter() {
+		return filter;
+	}
+
+	/**
+	 * The state of rendering a single throwable.
+	 */
+	private class Rendering {
+
+		private final Appendable out;
+		private int remaining = maxLength;
+
+		private Rendering(Appendable out) {
+			this.out = out;
+		}
+
+		private void render(Throwable throwable) throws IOException {
+			List<Throwable> chain = new ArrayList<>();
+			Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+
+			for (Throwable current = throwable; current != null && seen.add(current); current = current.getCause()) {
+				chain.add(current);
+			}
+
+			int levels = Math.min(chain.size(), maxExceptionLevels);
+			StackTraceElement[][] traces = new StackTraceElement[chain.size()][];
+
+			append("Exception summary:\n\n");
+
+			for (int level = 0; level < levels; level++) {
+				appendLevelHeader(level, chain.get(level));
+			}
+
+			if (chain.size() > 1) {
+				int rootLevel = chain.size() - 1;
+				Throwable rootCause = chain.get(rootLevel);
+				StackTraceElement[] rootTrace = traces[rootLevel] = rootCause.getStackTrace();
+
+				append("\n\nRoot cause at level ").append(Integer.toString(rootLevel)).append(": ").append(getNameAndMessage(rootCause)).append("\n");
+
+				for (int i = 0, depth = 0; i < rootTrace.length && depth < SHORT_STACKTRACE_DEPTH && !isTruncated(); i++) {
+					if (filter.test(rootTrace[i])) {
+						appendFrame(rootTrace[i], 1);
+						depth++;
+					}
+				}
+			}
+
+			append("\n\nException details:");
+
+			for (int level = 0; level < levels && !isTruncated(); level++) {
+				Throwable current = chain.get(level);
+
+				if (traces[level] == null) {
+					traces[level] = current.getStackTrace();
+				}
+
+				append("\n\n");
+				appendLevelHeader(level, current);
+				Set<Throwable> path = Collections.newSetFromMap(new IdentityHashMap<>());
+				path.add(current);
+				appendStackTrace(current, traces[level], level == 0 ? null : traces[level - 1], level, 1, path);
+			}
+
+			if (chain.size() > levels) {
+				append("\n\n... ").append(Integer.toString(chain.size() - levels)).append(" more exception levels\n");
+			}
+
+			if (isTruncated()) {
+				out.append(TRUNCATED_MESSAGE);
+			}
+		}
+
+		private void appendLevelHeader(int level, Throwable throwable) throws IOException {
+			append("Exception level ").append(Integer.toString(level)).append(": ").append(getNameAndMessage(throwable)).append("\n");
+		}
+
+		private void appendStackTrace(Throwable throwable, StackTraceElement[] trace, StackTraceElement[] enclosingTrace, int exceptionLevel,
+				int indentLevel, Set<Throwable> path) throws IOException {
+			int framesInCommon = collapseCommonFrames && enclosingTrace != null ? countFramesInCommon(trace, enclosingTrace) : 0;
+
+			for (int i = 0; i < trace.length - framesInCommon && !isTruncated(); i++) {
+				if (filter.test(trace[i])) {
+					appendFrame(trace[i], indentLevel);
+				}
+			}
+
+			if (framesInCommon != 0) {
+				appendIndent(indentLevel).append("... ").append(Integer.toString(framesInCommon)).append(" more\n");
+			}
+
+			for (Throwable suppressed : throwable.getSuppressed()) {
+				// Only skip a suppressed exception which encloses itself, so that one which is also a cause or is suppressed in several places
+				// is still rendered at every place.
+				if (isTruncated() || !path.add(suppressed)) {
+					continue;
+				}
+
+				appendIndent(indentLevel).append("Suppressed at level ").append(Integer.toString(exceptionLevel)).append(": ")
+					.append(getNameAndMessage(suppressed)).append("\n");
+
+				appendStackTrace(suppressed, suppressed.getStackTrace(), trace, exceptionLevel, indentLevel + 1, path);
+				path.remove(suppressed);
+			}
+		}
+
+		private void appendFrame(StackTraceElement frame, int indentLevel) throws IOException {
+			appendIndent(indentLevel).append("at ").append(frame.toString()).append("\n");
+		}
+
+		private Rendering appendIndent(int indentLevel) throws IOException {
+			for (int i = 0; i < indentLevel; i++) {
+				append("\t");
+			}
+
+			return this;
+		}
+
+		private Rendering append(String string) throws IOException {
+			if (remaining > 0) {
+				if (string.length() <= remaining) {
+					out.append(string);
+				}
+				else {
+					out.append(string, 0, remaining);
+				}
+
+				remaining -= string.length();
+			}
+
+			return this;
+		}
+
+		private boolean isTruncated() {
+			return remaining < 0;
+		}
+
+	}
+
+	/**
+	 * Returns the exact structure of the given throwable which determines its rendering: the name and message and all stack trace
+	 * elements of the throwable and of all its suppressed exceptions and causes. This rather than the fingerprint, as a hash may collide
+	 * and as it ignores the frames which the filter excludes, while these still count in the <code>... N more</code> lines. A throwable
+	 * which is referenced again is represented by the index at which it was first seen.
+	 */
+	private static List<Object> cacheKey(Throwable throwable, Map<Throwable, Integer> seen) {
+		seen.put(throwable, seen.size());
+		List<Object> suppressedKeys = new ArrayList<>();
+
+		for (Throwable suppressed : throwable.getSuppressed()) {
+			suppressedKeys.add(seen.containsKey(suppressed) ? seen.get(suppressed) : cacheKey(suppressed, seen));
+		}
+
+		Throwable cause = throwable.getCause();
+		Object causeKey = cause == null ? null : seen.containsKey(cause) ? seen.get(cause) : cacheKey(cause, seen);
+
+		return Arrays.asList(getNameAndMessage(throwable), Arrays.asList(throwable.getStackTrace()), suppressedKeys, causeKey);
+	}
+
+	private static int countFramesInCommon(StackTraceElement[] trace, StackTraceElement[] enclosingTrace) {
+		int m = trace.length - 1;
+		int n = enclosingTrace.length - 1;
+
+		while (m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+			m--;
+			n--;
+		}
+
+		return trace.length - 1 - m;
+	}
+
+}
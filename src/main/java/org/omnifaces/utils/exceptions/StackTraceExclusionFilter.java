@@ -0,0 +1,145 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.exceptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+
+/**
+ * A stack trace element predicate which excludes elements of which the class name, or the class name followed by a dot and
+ * the method name, starts with one of a list of exclusions.
+ *
+ * <p>
+ * The exclusions are compiled into a character trie once. Per class name, the outcome of walking this trie is cached, so
+ * that testing a stack trace element for a class that has been seen before costs one map lookup and, only when there
+ * are method specific exclusions for that class, a prefix match on the method name. No strings are allocated for that.
+ */
+class StackTraceExclusionFilter implements Predicate<StackTraceElement> {
+
+	/**
+	 * Caching the decision per class name is only useful as long as there is a bounded number of class names. Generated
+	 * classes such as proxies may defeat that, so stop caching after this many entries rather than growing unbounded.
+	 */
+	private static final int MAX_CACHED_DECISIONS = 10_000;
+
+	private static final String[] NO_METHOD_PREFIXES = {};
+
+	/**
+	 * Marker for a class name which is excluded regardless of the method name. Compared by identity.
+	 */
+	private static final String[] EXCLUDE_CLASS = {};
+
+	private final Node root = new Node();
+	private final ConcurrentMap<String, String[]> decisions = new ConcurrentHashMap<>();
+
+	StackTraceExclusionFilter(List<String> packageOrClassNames) {
+		for (String exclusion : packageOrClassNames) {
+			Node node = root;
+
+			for (int i = 0; i < exclusion.length(); i++) {
+				node = node.children.computeIfAbsent(exclusion.charAt(i), c -> new Node());
+			}
+
+			node.terminal = true;
+		}
+	}
+
+	@Override
+	public boolean test(StackTraceElement stackTraceElement) {
+		String className = stackTraceElement.getClassName();
+		String[] methodPrefixes = decisions.get(className);
+
+		if (methodPrefixes == null) {
+			methodPrefixes = decide(className);
+
+			if (decisions.size() < MAX_CACHED_DECISIONS) {
+				decisions.putIfAbsent(className, methodPrefixes);
+			}
+		}
+
+		if (methodPrefixes == EXCLUDE_CLASS) {
+			return false;
+		}
+
+		String methodName = stackTraceElement.getMethodName();
+
+		for (String methodPrefix : methodPrefixes) {
+			if (methodName.startsWith(methodPrefix)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Walks the trie along the given class name. If a terminal node is encountered on the way, the class name starts with
+	 * an exclusion and the class is excluded entirely. Otherwise, any exclusions continuing with a dot after the full
+	 * class name are method specific, and the remainders after that dot are collected as method name prefixes.
+	 */
+	private String[] decide(String className) {
+		Node node = root;
+
+		for (int i = 0; i < className.length(); i++) {
+			if (node.terminal) {
+				return EXCLUDE_CLASS;
+			}
+
+			node = node.children.get(className.charAt(i));
+
+			if (node == null) {
+				return NO_METHOD_PREFIXES;
+			}
+		}
+
+		if (node.terminal) {
+			return EXCLUDE_CLASS;
+		}
+
+		Node methodNode = node.children.get('.');
+
+		if (methodNode == null) {
+			return NO_METHOD_PREFIXES;
+		}
+
+		List<String> methodPrefixes = new ArrayList<>();
+		collect(methodNode, new StringBuilder(), methodPrefixes);
+
+		return methodPrefixes.toArray(NO_METHOD_PREFIXES);
+	}
+
+	private static void collect(Node node, StringBuilder prefix, List<String> prefixes) {
+		if (node.terminal) {
+			// Any longer exclusions below this node are already covered by this shorter prefix.
+			prefixes.add(prefix.toString());
+			return;
+		}
+
+		for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+			prefix.append(child.getKey().charValue());
+			collect(child.getValue(), prefix, prefixes);
+			prefix.setLength(prefix.length() - 1);
+		}
+	}
+
+	private static class Node {
+		private final Map<Character, Node> children = new TreeMap<>();
+		private boolean terminal;
+	}
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.image;
+
+import static java.awt.Transparency.OPAQUE;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Downscales images in a single step with a separable area averaging (box) filter, wherein every target pixel is the average of the
+ * source pixels it covers, weighted by how much of each source pixel it covers. Colors are averaged premultiplied by alpha, so that fully
+ * transparent pixels do not bleed their color into their neighbours.
+ *
+ * <p>
+ * The target image is divided into horizontal tiles which are processed in parallel on the common fork join pool. Every tile reads the
+ * source rows it needs, scales them horizontally into a scratch row, and accumulates them vertically into another scratch row, which is
+ * finally written into the target raster. Pixels are read from and written to the <code>int[]</code> banks of the rasters directly where
+ * possible, and the scratch rows are reused for all rows of a tile.
+ */
+final class AreaAveragingScaler {
+
+	private static final int TILES_PER_THREAD = 4;
+	private static final int MIN_ROWS_PER_TILE = 8;
+
+	private final BufferedImage source;
+	private final int sourceWidth;
+	private final int targetWidth;
+	private final boolean alpha;
+	private final Weights columns;
+	private final Weights rows;
+
+	/** The source int bank, if the source pixels can be read directly from it, else null. */
+	private final int[] sourcePixels;
+	private final int sourceOffset;
+	private final int sourceStride;
+
+	private final int[] targetPixels;
+
+	private AreaAveragingScaler(BufferedImage source, BufferedImage target) {
+		this.source = source;
+		this.sourceWidth = source.getWidth();
+		this.targetWidth = target.getWidth();
+		this.alpha = target.getType() == TYPE_INT_ARGB;
+		this.columns = new Weights(sourceWidth, targetWidth);
+		this.rows = new Weights(source.getHeight(), target.getHeight());
+
+		Raster raster = source.getRaster();
+
+		if ((source.getType() == TYPE_INT_RGB || source.getType() == TYPE_INT_ARGB) && raster.getSampleModel() instanceof SinglePixelPackedSampleModel) {
+			// Take into account that the source may be a subimage sharing the bank of its parent.
+			DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+			this.sourcePixels = buffer.getData();
+			this.sourceStride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+			this.sourceOffset = buffer.getOffset() - raster.getSampleModelTranslateY() * sourceStride - raster.getSampleModelTranslateX();
+		}
+		else {
+			this.sourcePixels = null;
+			this.sourceStride = 0;
+			this.sourceOffset = 0;
+		}
+
+		this.targetPixels = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+	}
+
+	/**
+	 * Downscales the given image to the given size. The size should not be larger than the one of the image.
+	 */
+	static BufferedImage downscale(BufferedImage image, int width, int height) {
+		BufferedImage target = new BufferedImage(width, height, image.getTransparency() == OPAQUE ? TYPE_INT_RGB : TYPE_INT_ARGB);
+		AreaAveragingScaler scaler = new AreaAveragingScaler(image, target);
+
+		int tiles = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * TILES_PER_THREAD, height / MIN_ROWS_PER_TILE));
+		IntStream.range(0, tiles).parallel().forEach(tile -> scaler.scaleRows(tile * height / tiles, (tile + 1) * height / tiles));
+
+		return target;
+	}
+
+	private void scaleRows(int fromRow, int toRow) {
+		int[] sourceRow = new int[sourceWidth];
+		float[] scaledRow = new float[targetWidth * 4];
+		float[] accumulatedRow = new float[targetWidth * 4];
+		int scaledRowIndex = -1;
+
+		for (int y = fromRow; y < toRow; y++) {
+			Arrays.fill(accumulatedRow, 0);
+
+			for (int i = rows.offsets[y], last = rows.offsets[y + 1], sourceY = rows.firsts[y]; i < last; i++, sourceY++) {
+				// Consecutive target rows share at most one source row, which is then still in the scratch row.
+				if (sourceY != scaledRowIndex) {
+					readRow(sourceY, sourceRow);
+					scaleRow(sourceRow, scaledRow);
+					scaledRowIndex = sourceY;
+				}
+
+				float weight = rows.weights[i];
+
+				for (int x = 0; x < accumulatedRow.length; x++) {
+					accumulatedRow[x] += scaledRow[x] * weight;
+				}
+			}
+
+			writeRow(y, accumulatedRow);
+		}
+	}
+
+	private void readRow(int y, int[] row) {
+		if (sourcePixels != null) {
+			System.arraycopy(sourcePixels, sourceOffset + y * sourceStride, row, 0, sourceWidth);
+		}
+		else {
+			source.getRGB(0, y, sourceWidth, 1, row, 0, sourceWidth);
+		}
+	}
+
+	private void scaleRow(int[] row, float[] scaledRow) {
+		for (int x = 0, channel = 0; x < targetWidth; x++) {
+			float a = 0;
+			float r = 0;
+			float g = 0;
+			float b = 0;
+
+			for (int i = columns.offsets[x], last = columns.offsets[x + 1], sourceX = columns.firsts[x]; i < last; i++, sourceX++) {
+				int pixel = row[sourceX];
+				float weight = columns.weights[i];
+
+				if (alpha) {
+					// Premultiply, with alpha in the range 0-1.
+					weight *= (pixel >>> 24) / 255f;
+					a += weight;
+				}
+
+				r += ((pixel >> 16) & 0xFF) * weight;
+				g += ((pixel >> 8) & 0xFF) * weight;
+				b += (pixel & 0xFF) * weight;
+			}
+
+			scaledRow[channel++] = a;
+			scaledRow[channel++] = r;
+			scaledRow[channel++] = g;
+			scaledRow[channel++] = b;
+		}
+	}
+
+	private void writeRow(int y, float[] row) {
+		for (int x = 0, channel = 0, index = y * targetWidth; x < targetWidth; x++) {
+			float a = row[channel++];
+			float r = row[channel++];
+			float g = row[channel++];
+			float b = row[channel++];
+
+			if (alpha) {
+				if (a > 0) {
+					r /= a;
+					g /= a;
+					b /= a;
+				}
+
+				targetPixels[index++] = (toByte(a * 255) << 24) | (toByte(r) << 16) | (toByte(g) << 8) | toByte(b);
+			}
+			else {
+				targetPixels[index++] = (toByte(r) << 16) | (toByte(g) << 8) | toByte(b);
+			}
+		}
+	}
+
+	private static int toByte(float value) {
+		int rounded = (int) (value + 0.5f);
+		return rounded < 0 ? 0 : rounded > 255 ? 255 : rounded;
+	}
+
+	/**
+	 * The weights of the source pixels covered by every target pixel in one dimension, flattened into arrays. The weights of target pixel
+	 * <code>i</code> are at <code>weights[offsets[i]]</code> up to <code>weights[offsets[i + 1]]</code> and apply to the source pixels
+	 * starting at <code>firsts[i]</code>. The weights of every target pixel sum up to 1.
+	 */
+	private static final class Weights {
+
+		private final int[] firsts;
+		private final int[] offsets;
+		private final float[] weights;
+
+		private Weights(int sourceSize, int targetSize) {
+			double scale = (double) sourceSize / targetSize;
+			this.firsts = new int[targetSize];
+			this.offsets = new int[targetSize + 1];
+			this.weights = new float[targetSize * ((int) Math.ceil(scale) + 1)];
+			int offset = 0;
+
+			for (int i = 0; i < targetSize; i++) {
+				double start = i * scale;
+				double end = Math.min((i + 1) * scale, sourceSize);
+				int first = (int) start;
+				firsts[i] = first;
+				offsets[i] = offset;
+
+				for (int j = first; j < end; j++) {
+					weights[offset++] = (float) ((Math.min(end, j + 1) - Math.max(start, j)) / scale);
+				}
+			}
+
+			offsets[targetSize] = offset;
+		}
+	}
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.image;
+
+import static java.awt.image.BufferedImage.TYPE_3BYTE_BGR;
+import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * Encodes images in a given format with given settings. The underlying {@link ImageWriter}s are pooled per format, so that they are not
+ * looked up and created again for every image. Instances are immutable and thread safe; the <code>with</code> methods return a new
+ * instance.
+ *
+ * <p>
+ * Formats without alpha channel, such as JPEG, get images with transparency flattened onto a white background first. Images which are
+ * already opaque RGB are encoded as is, without copying.
+ */
+public final class ImageEncoder {
+
+	private static final ImageEncoder PNG = new ImageEncoder("png", false, null, null, false);
+	private static final ImageEncoder JPG = new ImageEncoder("jpeg", true, null, null, false);
+
+	private final String formatName;
+	private final boolean opaque;
+	private final Float quality;
+	private final String compressionType;
+	private final boolean progressive;
+
+	private ImageEncoder(String formatName, boolean opaque, Float quality, String compressionType, boolean progressive) {
+		this.formatName = formatName;
+		this.opaque = opaque;
+		this.quality = quality;
+		this.compressionType = compressionType;
+		this.progressive = progressive;
+	}
+
+	/**
+	 * Returns an encoder for PNG with the default settings of its writer.
+	 *
+	 * @return An encoder for PNG.
+	 */
+	public static ImageEncoder png() {
+		return PNG;
+	}
+
+	/**
+	 * Returns an encoder for JPEG with the default settings of its writer.
+	 *
+	 * @return An encoder for JPEG.
+	 */
+	public static ImageEncoder jpg() {
+		return JPG;
+	}
+
+	/**
+	 * Returns an encoder for the given format name, as known by {@link javax.imageio.ImageIO#getImageWritersByFormatName(String)}.
+	 *
+	 * @param formatName The format name, such as "png", "jpeg", "gif" or "bmp".
+	 * @return An encoder for the given format.
+	 * @throws IllegalArgumentException When there is no writer for the given format name.
+	 */
+	public static ImageEncoder of(String formatName) {
+		String name = formatName.toLowerCase(Locale.ROOT);
+		ImageWriterPool.release(name, ImageWriterPool.borrow(name));
+		return new ImageEncoder(name, "jpeg".equals(name) || "jpg".equals(name) || "bmp".equals(name), null, null, false);
+	}
+
+	/**
+	 * Returns a copy of this encoder with the given compression quality.
+	 *
+	 * @param quality The compression quality between 0 and 1. For lossy formats such as JPEG, 1 means the best image quality. For
+	 * lossless formats such as PNG, 1 means the fastest compression.
+	 * @return A copy of this encoder with the given compression quality.
+	 * @throws IllegalArgumentException When the quality is not between 0 and 1.
+	 */
+	public ImageEncoder withQuality(float quality) {
+		if (quality < 0 || quality > 1) {
+			throw new IllegalArgumentException("Quality must be between 0 and 1");
+		}
+
+		return new ImageEncoder(formatName, opaque, quality, compressionType, progressive);
+	}
+
+	/**
+	 * Returns a copy of this encoder with the given compression type.
+	 *
+	 * @param compressionType The compression type, one of {@link ImageWriteParam#getCompressionTypes()} of the writer.
+	 * @return A copy of this encoder with the given compression type.
+	 */
+	public ImageEncoder withCompressionType(String compressionType) {
+		return new ImageEncoder(formatName, opaque, quality, compressionType, progressive);
+	}
+
+	/**
+	 * Returns a copy of this encoder which writes progressive or interlaced images if the format supports it.
+	 *
+	 * @param progressive Whether to write progressive images.
+	 * @return A copy of this encoder which writes progressive images.
+	 */
+	public ImageEncoder withProgressive(boolean progressive) {
+		return new ImageEncoder(formatName, opaque, quality, compressionType, progressive);
+	}
+
+	/**
+	 * Encodes the given image and returns the encoded content.
+	 *
+	 * @param image The image to encode.
+	 * @return The encoded content.
+	 * @throws IOException When encoding fails.
+	 */
+	public byte[] encode(BufferedImage image) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		encode(image, output);
+		return output.toByteArray();
+	}
+
+	/**
+	 * Encodes the given image to the given stream. The stream is flushed, but not closed.
+	 *
+	 * @param image The image to encode.
+	 * @param output The stream to write the encoded content to.
+	 * @throws IOException When encoding fails.
+	 */
+	public void encode(BufferedImage image, OutputStream output) throws IOException {
+		IIOImage content = new IIOImage(opaque ? toOpaqueRgb(image) : image, null, null);
+		ImageWriter writer = ImageWriterPool.borrow(formatName);
+
+		try (ImageOutputStream imageOutput = new MemoryCacheImageOutputStream(output)) {
+			writer.setOutput(imageOutput);
+			writer.write(null, content, createWriteParam(writer));
+			imageOutput.flush();
+		}
+		catch (IOException | RuntimeException e) {
+			writer.dispose();
+			throw e;
+		}
+
+		ImageWriterPool.release(formatName, writer);
+		output.flush();
+	}
+
+	private ImageWriteParam createWriteParam(ImageWriter writer) {
+		if (quality == null && compressionType == null && !progressive) {
+			return null;
+		}
+
+		ImageWriteParam param = writer.getDefaultWriteParam();
+
+		if ((quality != null || compressionType != null) && param.canWriteCompressed()) {
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+
+			if (compressionType != null) {
+				param.setCompressionType(compressionType);
+			}
+			else if (param.getCompressionType() == null && param.getCompressionTypes() != null) {
+				param.setCompressionType(param.getCompressionTypes()[0]);
+			}
+
+			if (quality != null) {
+				param.setCompressionQuality(quality);
+			}
+		}
+
+		if (progressive && param.canWriteProgressive()) {
+			param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+		}
+
+		return param;
+	}
+
+	private static BufferedImage toOpaqueRgb(BufferedImage image) {
+		if (image.getType() == TYPE_INT_RGB || image.getType() == TYPE_3BYTE_BGR) {
+			return image;
+		}
+
+		// Start with a white layer to have images with an alpha layer handled correctly.
+		BufferedImage opaqueImage = new BufferedImage(image.getWidth(), image.getHeight(), TYPE_INT_RGB);
+		Graphics2D graphics = opaqueImage.createGraphics();
+		graphics.drawImage(image, 0, 0, Color.WHITE, null);
+		graphics.dispose();
+		return opaqueImage;
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.image;
+
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+
+/**
+ * Pools {@link ImageWriter}s per format, as looking them up via the service registry of {@link ImageIO} and creating them is relatively
+ * expensive. A writer is not thread safe, so it is borrowed for the duration of a single write. At most a few idle writers are kept per
+ * format; writers returned beyond that are disposed.
+ */
+final class ImageWriterPool {
+
+	private static final int MAX_IDLE_WRITERS = Runtime.getRuntime().availableProcessors() * 2;
+	private static final ConcurrentMap<String, BlockingQueue<ImageWriter>> idleWriters = new ConcurrentHashMap<>();
+
+	private ImageWriterPool() {
+	}
+
+	/**
+	 * Borrows a writer for the given format name, which must be returned via {@link #release(String, ImageWriter)} after use.
+	 *
+	 * @throws IllegalArgumentException When there is no writer for the given format name.
+	 */
+	static ImageWriter borrow(String formatName) {
+		ImageWriter writer = getIdleWriters(formatName).poll();
+
+		if (writer != null) {
+			return writer;
+		}
+
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+
+		if (!writers.hasNext()) {
+			throw new IllegalArgumentException("No image writer for format " + formatName);
+		}
+
+		return writers.next();
+	}
+
+	static void release(String formatName, ImageWriter writer) {
+		writer.reset();
+
+		if (!getIdleWriters(formatName).offer(writer)) {
+			writer.dispose();
+		}
+	}
+
+	private static BlockingQueue<ImageWriter> getIdleWriters(String formatName) {
+		return idleWriters.computeIfAbsent(formatName, k -> new ArrayBlockingQueue<>(MAX_IDLE_WRITERS));
+	}
+
+}
@@ -18,20 +18,22 @@ import static java.awt.Transparency.OPAQUE;
 import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
 import static java.awt.image.BufferedImage.TYPE_INT_RGB;
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static javax.imageio.ImageIO.read;
 
-import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
 
-import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
-import javax.imageio.ImageWriteParam;
-import javax.imageio.ImageWriter;
-import javax.imageio.stream.MemoryCacheImageOutputStream;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 public final class Images {
 
@@ -43,29 +45,125 @@ public final class Images {
 		return read(new ByteArrayInputStream(content));
 	}
 
+	/**
+	 * Decodes the given image content at a reduced resolution which is just large enough for the desired size.
+	 *
+	 * @param content The image content.
+	 * @param desiredWidth The desired width.
+	 * @param desiredHeight The desired height.
+	 * @return The decoded image, or <code>null</code> if the format is not supported.
+	 * @throws IOException When decoding fails.
+	 * @see #toBufferedImage(InputStream, int, int)
+	 */
+	public static BufferedImage toBufferedImage(byte[] content, int desiredWidth, int desiredHeight) throws IOException {
+		return toBufferedImage(new ByteArrayInputStream(content), desiredWidth, desiredHeight);
+	}
+
+	/**
+	 * Decodes the image from the given stream at a reduced resolution which is just large enough for the desired size. The size of the
+	 * image is read from its header first, and only every n-th pixel in both directions is decoded, wherein n is the largest factor for
+	 * which the decoded image is still at least as large as the desired size, so that it can be downscaled to it without loss of quality.
+	 * Memory usage is hence bound by the desired size rather than by the size of the image. The stream is not closed.
+	 *
+	 * @param input The stream to read the image from.
+	 * @param desiredWidth The desired width.
+	 * @param desiredHeight The desired height.
+	 * @return The decoded image, or <code>null</code> if the format is not supported.
+	 * @throws IOException When decoding fails.
+	 */
+	public static BufferedImage toBufferedImage(InputStream input, int desiredWidth, int desiredHeight) throws IOException {
+		return decode(ImageIO.createImageInputStream(input), 0, desiredWidth, desiredHeight);
+	}
+
+	/**
+	 * Decodes the image in the given file at a reduced resolution which is just large enough for the desired size.
+	 *
+	 * @param path The file to read the image from.
+	 * @param desiredWidth The desired width.
+	 * @param desiredHeight The desired height.
+	 * @return The decoded image, or <code>null</code> if the format is not supported.
+	 * @throws IOException When decoding fails.
+	 * @see #toBufferedImage(InputStream, int, int)
+	 */
+	public static BufferedImage toBufferedImage(Path path, int desiredWidth, int desiredHeight) throws IOException {
+		return decode(ImageIO.createImageInputStream(path.toFile()), 0, desiredWidth, desiredHeight);
+	}
+
+	/**
+	 * Decodes only the centered region of the image from the given stream which has the desired aspect ratio, at a reduced resolution
+	 * which is just large enough for the desired size. This is the same region as {@link #cropImage(BufferedImage, double)} would crop, but
+	 * without decoding the pixels outside it. The stream is not closed.
+	 *
+	 * @param input The stream to read the image from.
+	 * @param desiredAspectRatio The desired aspect ratio, e.g. 1.5 for 3:2.
+	 * @param desiredWidth The desired width.
+	 * @param desiredHeight The desired height.
+	 * @return The decoded region of the image, or <code>null</code> if the format is not supported.
+	 * @throws IOException When decoding fails.
+	 * @see #toBufferedImage(InputStream, int, int)
+	 */
+	public static BufferedImage toCroppedBufferedImage(InputStream input, double desiredAspectRatio, int desiredWidth, int desiredHeight) throws IOException {
+		return decode(ImageIO.createImageInputStream(input), desiredAspectRatio, desiredWidth, desiredHeight);
+	}
+
+	private static BufferedImage decode(ImageInputStream imageInput, double desiredAspectRatio, int desiredWidth, int desiredHeight) throws IOException {
+		if (desiredWidth <= 0 || desiredHeight <= 0) {
+			throw new IllegalArgumentException("Desired size must be positive");
+		}
+
+		if (imageInput == null) {
+			throw new IOException("Cannot create image input stream");
+		}
+
+		try (ImageInputStream stream = imageInput) {
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+
+			if (!readers.hasNext()) {
+				return null;
+			}
+
+			ImageReader reader = readers.next();
+
+			try {
+				reader.setInput(stream, true, true);
+				Rectangle region = getCropRegion(reader.getWidth(0), reader.getHeight(0), desiredAspectRatio);
+				int subsampling = max(1, min(region.width / desiredWidth, region.height / desiredHeight));
+
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceRegion(region);
+				param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+				return reader.read(0, param);
+			}
+			finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	private static Rectangle getCropRegion(int width, int height, double desiredAspectRatio) {
+		double currentAspectRatio = width * 1.0 / height;
+
+		if (desiredAspectRatio <= 0 || currentAspectRatio == desiredAspectRatio) {
+			return new Rectangle(width, height);
+		}
+
+		boolean cropHorizontally = (currentAspectRatio > desiredAspectRatio);
+
+		int desiredWidth = cropHorizontally ? (int) (height * desiredAspectRatio) : width;
+		int desiredHeight = cropHorizontally ? height : (int) (width / desiredAspectRatio);
+
+		int x = cropHorizontally ? (width - desiredWidth) / 2 : 0;
+		int y = cropHorizontally ? 0 : (height - desiredHeight) / 2;
+
+		return new Rectangle(x, y, desiredWidth, desiredHeight);
+	}
+
 	public static byte[] toPng(BufferedImage image) throws IOException {
-		ByteArrayOutputStream output = new ByteArrayOutputStream();
-		ImageIO.write(image, "png", output);
-		return output.toByteArray();
+		return ImageEncoder.png().encode(image);
 	}
 
 	public static byte[] toJpg(BufferedImage image) throws IOException {
-		// Start with a white layer to have images with an alpha layer handled correctly.
-		BufferedImage newBufferedImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
-		newBufferedImage.createGraphics().drawImage(image, 0, 0, Color.WHITE, null);
-
-		// Manually get the ImageWriter to be able to adjust quality
-		ImageWriter writer = ImageIO.getImageWritersBySuffix("jpg").next();
-		ImageWriteParam imageWriterParam = writer.getDefaultWriteParam();
-		imageWriterParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-		imageWriterParam.setCompressionQuality(1f);
-
-		ByteArrayOutputStream output = new ByteArrayOutputStream();
-		writer.setOutput(new MemoryCacheImageOutputStream(output));
-		writer.write(null, new IIOImage(newBufferedImage, null, null), imageWriterParam);
-		writer.dispose();
-
-		return output.toByteArray();
+		return ImageEncoder.jpg().withQuality(1f).encode(image);
 	}
 
 	public static BufferedImage cropImage(BufferedImage image, int desiredWidth, int desiredHeight) {
@@ -79,28 +177,19 @@ public final class Images {
 
 	/*
 	 * Examples of aspect ratios:
-	 * 1:1 = 1.0 (will delegate to cropToSquareImage())
+	 * 1:1 = 1.0
 	 * 4:3 = 1.33333
 	 * 3:2 = 1.5
 	 * 16:9 = 1.77778
 	 */
 	public static BufferedImage cropImage(BufferedImage image, double desiredAspectRatio) {
-		if (desiredAspectRatio == 1.0) {
-			return cropToSquareImage(image);
-		}
-
-		double currentAspectRatio = image.getWidth() * 1.0 / image.getHeight();
+		Rectangle region = getCropRegion(image.getWidth(), image.getHeight(), desiredAspectRatio);
 
-		if (currentAspectRatio == desiredAspectRatio) {
+		if (region.width == image.getWidth() && region.height == image.getHeight()) {
 			return image;
 		}
 
-		boolean cropHorizontally = (currentAspectRatio > desiredAspectRatio);
-
-		int desiredWidth = cropHorizontally ? (int) (image.getHeight() * desiredAspectRatio) : image.getWidth();
-		int desiredHeight = cropHorizontally ? image.getHeight() : (int) (image.getWidth() / desiredAspectRatio);
-
-		return cropImage(image, desiredWidth, desiredHeight);
+		return image.getSubimage(region.x, region.y, region.width, region.height);
 	}
 
 	public static BufferedImage cropToSquareImage(BufferedImage image) {
@@ -130,4 +219,23 @@ public final class Images {
 		return rescaledImage;
 	}
 
+	/**
+	 * Downscales the given image to the given size in a single step using area averaging, in parallel tiles on the common fork join pool.
+	 * This is both faster and sharper than {@link #progressiveBilinearDownscale(BufferedImage, int, int)}. A desired size larger than the
+	 * one of the image is capped to it, so the image is never upscaled.
+	 *
+	 * @param image The image to downscale.
+	 * @param desiredWidth The desired width.
+	 * @param desiredHeight The desired height.
+	 * @return The downscaled image, of type {@link BufferedImage#TYPE_INT_RGB} if the given image is opaque, else
+	 * {@link BufferedImage#TYPE_INT_ARGB}.
+	 */
+	public static BufferedImage downscale(BufferedImage image, int desiredWidth, int desiredHeight) {
+		if (desiredWidth <= 0 || desiredHeight <= 0) {
+			throw new IllegalArgumentException("Desired size must be positive");
+		}
+
+		return AreaAveragingScaler.downscale(image, min(desiredWidth, image.getWidth()), min(desiredHeight, image.getHeight()));
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.logging;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.logging.ErrorManager.CLOSE_FAILURE;
+import static java.util.logging.ErrorManager.FLUSH_FAILURE;
+import static java.util.logging.ErrorManager.WRITE_FAILURE;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * A handler which publishes log records to a target handler asynchronously.
+ *
+ * <p>
+ * Records which are {@link #isLoggable(LogRecord) loggable}, i.e. which pass the level and the {@link LogFilter} of this handler, are put in
+ * a bounded lock-free ring buffer. A single writer thread takes them out in batches, publishes them to the target handler and flushes the
+ * target once per batch. Formatting and I/O therefore no longer happen on the thread doing the logging. The target handler is typically a
+ * {@link java.util.logging.FileHandler} or {@link java.util.logging.ConsoleHandler}, e.g. configured with a
+ * {@link RecursiveStackTraceFormatter}.
+ *
+ * <p>
+ * When the buffer is full, the {@link OverflowPolicy} decides what happens. Dropped records are counted and can be monitored along with
+ * the queue depth.
+ */
+public class AsyncHandler extends Handler {
+
+	/**
+	 * What to do with a record when the buffer is full.
+	 */
+	public static enum OverflowPolicy {
+
+		/**
+		 * Drop the record.
+		 */
+		DROP,
+
+		/**
+		 * Block the logging thread until there is room for the record.
+		 */
+		BLOCK,
+
+		/**
+		 * Block the logging thread for one out of every sample rate overflowing records, and drop the others. This keeps a representative
+		 * sample of the records while bounding the time logging threads are blocked.
+		 */
+		SAMPLE
+	}
+
+	public static final int DEFAULT_CAPACITY = 8192;
+	public static final int DEFAULT_BATCH_SIZE = 256;
+	public static final int DEFAULT_SAMPLE_RATE = 10;
+
+	private static final long IDLE_PARK_NANOS = MILLISECONDS.toNanos(10);
+	private static final long FULL_PARK_NANOS = MICROSECONDS.toNanos(100);
+	private static final AtomicInteger handlerNumber = new AtomicInteger();
+
+	private final Handler target;
+	private final RingBuffer<LogRecord> buffer;
+	private final int batchSize;
+	private final OverflowPolicy overflowPolicy;
+	private final int sampleRate;
+	private final Thread writer;
+
+	private final AtomicInteger activePublishers = new AtomicInteger();
+	private final AtomicLong enqueuedCount = new AtomicLong();
+	private final AtomicLong overflowCount = new AtomicLong();
+	private final LongAdder droppedCount = new LongAdder();
+	private final AtomicLong publishedCount = new AtomicLong();
+
+	private final AtomicBoolean closed = new AtomicBoolean();
+	private volatile boolean stopped;
+
+	/**
+	 * Creates an async handler with a capacity of {@value #DEFAULT_CAPACITY} records, a batch size of {@value #DEFAULT_BATCH_SIZE} records
+	 * and which drops records when the buffer is full.
+	 *
+	 * @param target the handler to publish the records to
+	 */
+	public AsyncHandler(Handler target) {
+		this(target, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, OverflowPolicy.DROP, DEFAULT_SAMPLE_RATE);
+	}
+
+	/**
+	 * Creates an async handler.
+	 *
+	 * @param target the handler to publish the records to
+	 * @param capacity the minimum number of records the buffer can hold, rounded up to the next power of two
+	 * @param batchSize the maximum number of records published to the target handler before flushing it
+	 * @param overflowPolicy what to do with a record when the buffer is full
+	 * @param sampleRate for {@link OverflowPolicy#SAMPLE}, keep one out of this many overflowing records
+	 * @throws IllegalArgumentException when capacity, batch size or sample rate is less than 1
+	 */
+	public AsyncHandler(Handler target, int capacity, int batchSize, OverflowPolicy overflowPolicy, int sampleRate) {
+		if (batchSize < 1 || sampleRate < 1) {
+			throw new IllegalArgumentException("Batch size and sample rate must be greater than 0");
+		}
+
+		this.target = target;
+		this.buffer = new RingBuffer<>(capacity);
+		this.batchSize = batchSize;
+		this.overflowPolicy = overflowPolicy;
+		this.sampleRate = sampleRate;
+
+		writer = new Thread(this::write, "AsyncHandler-" + handlerNumber.incrementAndGet());
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Creates an async handler which only enqueues records passing the given filter.
+	 *
+	 * @param target the handler to publish the records to
+	 * @param filter the filter records have to pass before they are enqueued
+	 */
+	public AsyncHandler(Handler target, LogFilter filter) {
+		this(target);
+		setFilter(filter);
+	}
+
+	@Override
+	public void publish(LogRecord record) {
+		if (!isLoggable(record)) {
+			return;
+		}
+
+		// The source class and method are inferred from the call stack on first access, so this must happen on the logging thread.
+		record.getSourceClassName();
+
+		// Registered before checking whether closed, so that close() waits for this record to be enqueued before stopping the writer.
+		activePublishers.incrementAndGet();
+
+		try {
+			if (closed.get()) {
+				return;
+			}
+
+			if (!buffer.offer(record) && !overflow(record)) {
+				droppedCount.increment();
+				return;
+			}
+
+			enqueuedCount.incrementAndGet();
+		}
+		finally {
+			activePublishers.decrementAndGet();
+		}
+
+		LockSupport.unpark(writer);
+	}
+
+	private boolean overflow(LogRecord record) {
+		long overflows = overflowCount.incrementAndGet();
+
+		switch (overflowPolicy) {
+			case SAMPLE:
+				return overflows % sampleRate == 0 && offerBlocking(record);
+			case BLOCK:
+				return offerBlocking(record);
+			default:
+				return false;
+		}
+	}
+
+	private boolean offerBlocking(LogRecord record) {
+		while (!buffer.offer(record)) {
+			// A writer thread which died, e.g. of an error thrown by the target handler, will never make room again.
+			if (closed.get() || !writer.isAlive()) {
+				return false;
+			}
+
+			LockSupport.unpark(writer);
+			LockSupport.parkNanos(FULL_PARK_NANOS);
+		}
+
+		return true;
+	}
+
+	private void write() {
+		while (!stopped || !buffer.isEmpty()) {
+			int published = 0;
+
+			for (LogRecord record; published < batchSize && (record = buffer.poll()) != null; published++) {
+				try {
+					target.publish(record);
+				}
+				catch (RuntimeException e) {
+					reportError("Error while publishing log record.", e, WRITE_FAILURE);
+				}
+
+				publishedCount.incrementAndGet();
+			}
+
+			if (published > 0) {
+				flushTarget();
+			}
+			else if (!stopped) {
+				LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+			}
+		}
+	}
+
+	private void flushTarget() {
+		try {
+			target.flush();
+		}
+		catch (RuntimeException e) {
+			reportError("Error while flushing log handler.", e, FLUSH_FAILURE);
+		}
+	}
+
+	/**
+	 * Waits until all records enqueued so far have been published by the writer thread, and flushes the target handler.
+	 */
+	@Override
+	public void flush() {
+		long enqueued = enqueuedCount.get();
+
+		while (publishedCount.get() < enqueued && writer.isAlive()) {
+			LockSupport.unpark(writer);
+			LockSupport.parkNanos(FULL_PARK_NANOS);
+		}
+
+		flushTarget();
+	}
+
+	/**
+	 * Stops accepting records, waits until records which are concurrently being published are enqueued or dropped, waits until the writer
+	 * thread has published all enqueued records, and closes the target handler. Only the first call has any effect.
+	 */
+	@Override
+	public void close() {
+		if (!closed.compareAndSet(false, true)) {
+			return;
+		}
+
+		while (activePublishers.get() > 0) {
+			LockSupport.parkNanos(FULL_PARK_NANOS);
+		}
+
+		stopped = true;
+		LockSupport.unpark(writer);
+
+		try {
+			writer.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		try {
+			target.close();
+		}
+		catch (RuntimeException e) {
+			reportError("Error while closing log handler.", e, CLOSE_FAILURE);
+		}
+	}
+
+	/**
+	 * Returns the number of records currently waiting to be published.
+	 *
+	 * @return the current queue depth
+	 */
+	public int getQueueDepth() {
+		return buffer.size();
+	}
+
+	/**
+	 * Returns the maximum number of records which can wait to be published.
+	 *
+	 * @return the buffer capacity
+	 */
+	public int getCapacity() {
+		return buffer.capacity();
+	}
+
+	/**
+	 * Returns the number of records which were dropped because the buffer was full.
+	 *
+	 * @return the number of dropped records
+	 */
+	public long getDroppedCount() {
+		return droppedCount.sum();
+	}
+
+	/**
+	 * Returns the number of times a record found the buffer full, regardless of whether it was eventually dropped.
+	 *
+	 * @return the number of overflows
+	 */
+	public long getOverflowCount() {
+		return overflowCount.get();
+	}
+
+	/**
+	 * Returns the number of records which were published to the target handler.
+	 *
+	 * @return the number of published records
+	 */
+	public long getPublishedCount() {
+		return publishedCount.get();
+	}
+
+	public Handler getTarget() {
+		return target;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+}
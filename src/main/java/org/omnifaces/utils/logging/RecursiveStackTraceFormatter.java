@@ -12,16 +12,41 @@
  */
 package org.omnifaces.utils.logging;
 
+import static org.omnifaces.utils.exceptions.Exceptions.fingerprint;
 import static org.omnifaces.utils.exceptions.Exceptions.getRecursiveStackTrace;
 
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 import java.util.logging.Formatter;
 import java.util.logging.LogRecord;
 
+/**
+ * A formatter which appends the recursive stack trace of the thrown exception, if any, to the output of a wrapped formatter.
+ *
+ * <p>
+ * Optionally, exceptions can be aggregated by their {@link org.omnifaces.utils.exceptions.Exceptions#fingerprint(Throwable, Predicate)
+ * fingerprint}. In that mode the full stack trace of an exception is only rendered the first time its fingerprint is seen in a time window.
+ * Subsequent occurrences within the same window only render a reference to that first trace along with the number of occurrences so far,
+ * e.g. <code>Same exception as #1a2b3c4d, 4,213 times in the last 60s</code>. This keeps both CPU usage and log volume down when e.g. a
+ * dependency fails and the same exception is logged thousands of times per second. Counting an occurrence within a window takes no lock,
+ * so that threads logging the same exception at the same time do not wait for each other. Only starting a window for a fingerprint, which
+ * happens at most once per window per fingerprint, takes the lock on the table which keeps the number of fingerprints bounded.
+ */
 public class RecursiveStackTraceFormatter extends Formatter {
 
 	private final Formatter wrappedFormatter;
 	private final Predicate<StackTraceElement> filter;
+	private final Duration aggregationWindow;
+	private final int maxFingerprints;
+	private final Map<Long, Occurrences> occurrences;
+	private final Map<Long, Occurrences> windows;
 
 	public RecursiveStackTraceFormatter(Formatter wrappedFormatter) {
 		this(wrappedFormatter, stackTraceElement -> true);
@@ -30,6 +55,37 @@ public class RecursiveStackTraceFormatter extends Formatter {
 	public RecursiveStackTraceFormatter(Formatter wrappedFormatter, Predicate<StackTraceElement> filter) {
 		this.wrappedFormatter = wrappedFormatter;
 		this.filter = filter;
+		this.aggregationWindow = null;
+		this.maxFingerprints = 0;
+		this.occurrences = null;
+		this.windows = null;
+	}
+
+	/**
+	 * Creates a formatter which aggregates exceptions with the same fingerprint within the given window.
+	 *
+	 * @param wrappedFormatter the formatter to format the log record itself
+	 * @param filter the filter which stack trace elements have to pass in order to be rendered and fingerprinted
+	 * @param aggregationWindow the window in which the full stack trace of an exception is rendered only once
+	 * @param maxFingerprints the maximum number of fingerprints to track at the same time
+	 * @throws IllegalArgumentException when the window is not positive or the maximum number of fingerprints is less than 1
+	 */
+	public RecursiveStackTraceFormatter(Formatter wrappedFormatter, Predicate<StackTraceElement> filter, Duration aggregationWindow,
+			int maxFingerprints) {
+		if (aggregationWindow.isNegative() || aggregationWindow.isZero()) {
+			throw new IllegalArgumentException("Aggregation window must be positive");
+		}
+
+		if (maxFingerprints < 1) {
+			throw new IllegalArgumentException("Max fingerprints must be greater than 0");
+		}
+
+		this.wrappedFormatter = wrappedFormatter;
+		this.filter = filter;
+		this.aggregationWindow = aggregationWindow;
+		this.maxFingerprints = maxFingerprints;
+		this.occurrences = new ConcurrentHashMap<>();
+		this.windows = new LinkedHashMap<>();
 	}
 
 	@Override
@@ -41,6 +97,10 @@ public class RecursiveStackTraceFormatter extends Formatter {
 
 				String message = wrappedFormatter.format(record);
 
+				if (occurrences != null) {
+					return formatAggregated(message, throwable, record.getMillis());
+				}
+
 				String recursiveStackTrace = getRecursiveStackTrace(throwable, filter);
 
 				return String.format("%s%n%s", message, recursiveStackTrace);
@@ -54,6 +114,70 @@ public class RecursiveStackTraceFormatter extends Formatter {
 		return wrappedFormatter.format(record);
 	}
 
+	private String formatAggregated(String message, Throwable throwable, long millis) {
+		long fingerprint = fingerprint(throwable, filter);
+		String id = String.format("%08x", (int) (fingerprint ^ (fingerprint >>> 32)));
+		long count = occur(fingerprint, millis);
+
+		if (count == 1) {
+			return String.format("%s%nException fingerprint #%s%n%s", message, id, getRecursiveStackTrace(throwable, filter));
+		}
+
+		return String.format(Locale.ROOT, "%s%nSame exception as #%s, %,d times in the last %s%n", message, id, count,
+			formatWindow(aggregationWindow));
+	}
+
+	/**
+	 * Registers an occurrence of the given fingerprint at the given time and returns the number of occurrences in its current window
+	 * including this one. A return value of 1 means a new window has started. Within a window, the occurrences are counted without locking.
+	 * A new window is started under the lock on the windows, which keeps the fingerprints in the order in which their window started, so
+	 * that the expired and the eldest ones to make room for a new window are simply found at the head.
+	 */
+	private long occur(long fingerprint, long millis) {
+		long windowMillis = aggregationWindow.toMillis();
+		Occurrences current = occurrences.get(fingerprint);
+
+		if (current == null || current.isExpired(millis, windowMillis)) {
+			synchronized (windows) {
+				current = occurrences.get(fingerprint);
+
+				if (current == null || current.isExpired(millis, windowMillis)) {
+					windows.remove(fingerprint);
+					makeRoomForFingerprint(millis, windowMillis);
+					current = new Occurrences(millis);
+					windows.put(fingerprint, current);
+					occurrences.put(fingerprint, current);
+				}
+			}
+		}
+
+		return current.count.incrementAndGet();
+	}
+
+	/**
+	 * Keeps the fingerprint table bounded. First drops the fingerprints of which the window has expired, and if that is not enough, drops the
+	 * fingerprint of which the window started the longest time ago.
+	 */
+	private void makeRoomForFingerprint(long millis, long windowMillis) {
+		Iterator<Entry<Long, Occurrences>> eldest = windows.entrySet().iterator();
+
+		while (eldest.hasNext()) {
+			Entry<Long, Occurrences> next = eldest.next();
+
+			if (windows.size() < maxFingerprints && !next.getValue().isExpired(millis, windowMillis)) {
+				break;
+			}
+
+			eldest.remove();
+			occurrences.remove(next.getKey(), next.getValue());
+		}
+	}
+
+	private static String formatWindow(Duration window) {
+		long millis = window.toMillis();
+		return millis % 1000 == 0 ? (millis / 1000) + "s" : millis + "ms";
+	}
+
 	public Formatter getWrappedFormatter() {
 		return wrappedFormatter;
 	}
@@ -61,4 +185,39 @@ public class RecursiveStackTraceFormatter extends Formatter {
 	public Predicate<StackTraceElement> getFilter() {
 		return filter;
 	}
+
+	/**
+	 * Returns the window in which the full stack trace of an exception is rendered only once.
+	 *
+	 * @return the aggregation window, or <code>null</code> if exceptions are not aggregated
+	 */
+	public Duration getAggregationWindow() {
+		return aggregationWindow;
+	}
+
+	/**
+	 * Returns the maximum number of fingerprints to track at the same time.
+	 *
+	 * @return the maximum number of fingerprints, or 0 if exceptions are not aggregated
+	 */
+	public int getMaxFingerprints() {
+		return maxFingerprints;
+	}
+
+	/**
+	 * The occurrences of a fingerprint in its current window.
+	 */
+	private static class Occurrences {
+
+		private final long windowStart;
+		private final AtomicLong count = new AtomicLong();
+
+		private Occurrences(long windowStart) {
+			this.windowStart = windowStart;
+		}
+
+		private boolean isExpired(long millis, long windowMillis) {
+			return millis - windowStart >= windowMillis;
+		}
+	}
 }
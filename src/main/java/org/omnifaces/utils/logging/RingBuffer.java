@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free ring buffer for multiple producers and a single consumer.
+ *
+ * <p>
+ * Every slot carries a sequence number. A producer claims the slot at the tail position by a CAS on the tail, but only when the sequence
+ * of that slot says the consumer has released it, i.e. the buffer is not full. After storing the element, the producer publishes it by
+ * advancing the slot's sequence. The consumer only reads a slot once its sequence says it is published, and releases it by advancing the
+ * sequence by the capacity.
+ */
+class RingBuffer<E> {
+
+	private final int capacity;
+	private final int mask;
+	private final AtomicReferenceArray<E> elements;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	private volatile long head;
+
+	/**
+	 * @param minimumCapacity the minimum capacity, which is rounded up to the next power of two
+	 */
+	RingBuffer(int minimumCapacity) {
+		if (minimumCapacity < 1 || minimumCapacity > 1 << 30) {
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+		}
+
+		int powerOfTwo = 1;
+
+		while (powerOfTwo < minimumCapacity) {
+			powerOfTwo <<= 1;
+		}
+
+		capacity = powerOfTwo;
+		mask = capacity - 1;
+		elements = new AtomicReferenceArray<>(capacity);
+		sequences = new AtomicLongArray(capacity);
+
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Adds the given element if there is room. May be called by any thread.
+	 *
+	 * @return <code>true</code> if the element was added, <code>false</code> if the buffer is full
+	 */
+	boolean offer(E element) {
+		long position = tail.get();
+
+		while (true) {
+			int index = (int) (position & mask);
+			long difference = sequences.get(index) - position;
+
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					elements.lazySet(index, element);
+					sequences.set(index, position + 1);
+					return true;
+				}
+
+				position = tail.get();
+			}
+			else if (difference < 0) {
+				return false;
+			}
+			else {
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Removes the eldest element. May only be called by the single consumer thread.
+	 *
+	 * @return the eldest element, or <code>null</code> if the buffer is empty
+	 */
+	E poll() {
+		long position = head;
+		int index = (int) (position & mask);
+
+		if (sequences.get(index) != position + 1) {
+			return null;
+		}
+
+		E element = elements.get(index);
+		elements.lazySet(index, null);
+		sequences.set(index, position + capacity);
+		head = position + 1;
+
+		return element;
+	}
+
+	int size() {
+		return (int) Math.max(0, tail.get() - head);
+	}
+
+	boolean isEmpty() {
+		return size() == 0;
+	}
+
+	int capacity() {
+		return capacity;
+	}
+
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.properties;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.omnifaces.utils.properties.PropertiesUtils.PropertiesFormat;
+
+/**
+ * A read-only set of settings in a compact binary format which can be memory mapped and queried without loading all settings in memory.
+ *
+ * <p>
+ * The format is a sorted string table. After a header with a magic number, a version and the number of entries, there is an index of
+ * fixed size records with the offsets of the key and the value of each entry, sorted by the UTF-8 bytes of the key. After the index
+ * follows the data, wherein each string is stored as its length in bytes followed by its UTF-8 bytes. Looking up a key is a binary search
+ * over the index which compares the UTF-8 bytes of the key directly against the mapped data. Only the value of the key found is decoded.
+ *
+ * <p>
+ * Use {@link #compile(Map, OutputStream)} or {@link #compile(InputStream, PropertiesFormat, Path)} at build time or the first time a
+ * properties file is deployed, and {@link #open(Path)} at runtime. Instances are thread safe.
+ */
+public final class CompiledProperties {
+
+	private static final int MAGIC = 0x4F505250; // "OPRP"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 3 * Integer.BYTES;
+	private static final int INDEX_RECORD_SIZE = 2 * Integer.BYTES;
+
+	private final ByteBuffer buffer;
+	private final int size;
+	private final int dataStart;
+
+	private CompiledProperties(ByteBuffer buffer) {
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("Not a compiled properties file");
+		}
+
+		if (buffer.getInt(Integer.BYTES) != VERSION) {
+			throw new IllegalArgumentException("Unsupported compiled properties version " + buffer.getInt(Integer.BYTES));
+		}
+
+		int size = buffer.getInt(2 * Integer.BYTES);
+
+		if (size < 0 || HEADER_SIZE + (long) size * INDEX_RECORD_SIZE > buffer.limit()) {
+			throw new IllegalArgumentException("Corrupt compiled properties, index of " + size + " entries exceeds " + buffer.limit() + " bytes");
+		}
+
+		this.buffer = buffer;
+		this.size = size;
+		this.dataStart = HEADER_SIZE + size * INDEX_RECORD_SIZE;
+	}
+
+	/**
+	 * Memory maps the compiled properties file at the given path.
+	 *
+	 * @param path the path of a file created by one of the compile methods
+	 * @return the compiled properties
+	 * @throws IOException when the file cannot be read
+	 * @throws IllegalArgumentException when the file is not a compiled properties file
+	 */
+	public static CompiledProperties open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, READ)) {
+			// The mapping remains valid after the channel is closed.
+			return new CompiledProperties(channel.map(READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Wraps the given buffer containing compiled properties, e.g. read from a class path resource.
+	 *
+	 * @param buffer the buffer containing compiled properties
+	 * @return the compiled properties
+	 * @throws IllegalArgumentException when the buffer does not contain compiled properties
+	 */
+	public static CompiledProperties wrap(ByteBuffer buffer) {
+		return new CompiledProperties(buffer.slice());
+	}
+
+	/**
+	 * Parses the given properties stream in the given format and compiles it to the given path.
+	 *
+	 * @param in the stream with the properties in the given format
+	 * @param propertiesFormat the format of the properties
+	 * @param target the path to write the compiled properties to
+	 * @throws IOException when reading or writing fails
+	 */
+	public static void compile(InputStream in, PropertiesFormat propertiesFormat, Path target) throws IOException {
+		Map<String, String> settings = new HashMap<>();
+
+		for (Entry<?, ?> entry : PropertiesUtils.loadProperties(in, propertiesFormat).entrySet()) {
+			settings.put((String) entry.getKey(), (String) entry.getValue());
+		}
+
+		try (OutputStream out = Files.newOutputStream(target)) {
+			compile(settings, out);
+		}
+	}
+
+	/**
+	 * Compiles the given settings to the given stream.
+	 *
+	 * @param settings the settings to compile
+	 * @param out the stream to write the compiled properties to, which is not closed
+	 * @throws IOException when writing fails
+	 * @throws IllegalArgumentException when the compiled settings would exceed 2 GB, in which case nothing is written
+	 */
+	public static void compile(Map<String, String> settings, OutputStream out) throws IOException {
+		byte[][][] entries = new byte[settings.size()][][];
+		int i = 0;
+
+		for (Entry<String, String> entry : settings.entrySet()) {
+			entries[i++] = new byte[][] { entry.getKey().getBytes(UTF_8), entry.getValue().getBytes(UTF_8) };
+		}
+
+		Arrays.sort(entries, (l, r) -> Arrays.compareUnsigned(l[0], r[0]));
+
+		// The offsets are relative to the data, but the whole file must be addressable by an int position in a mapped buffer.
+		long end = HEADER_SIZE + (long) entries.length * INDEX_RECORD_SIZE;
+
+		for (byte[][] entry : entries) {
+			end += 2 * Integer.BYTES + entry[0].length + entry[1].length;
+		}
+
+		if (end > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Settings too large to compile");
+		}
+
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(entries.length);
+
+		int offset = 0;
+
+		for (byte[][] entry : entries) {
+			data.writeInt(offset);
+			offset += Integer.BYTES + entry[0].length;
+			data.writeInt(offset);
+			offset += Integer.BYTES + entry[1].length;
+		}
+
+		for (byte[][] entry : entries) {
+			for (byte[] string : entry) {
+				data.writeInt(string.length);
+				data.write(string);
+			}
+		}
+
+		data.flush();
+	}
+
+	/**
+	 * Returns the value of the setting with the given key.
+	 *
+	 * @param key the key of the setting
+	 * @return the value of the setting, or an empty optional if there is no such setting
+	 */
+	public Optional<String> get(String key) {
+		int index = indexOf(key.getBytes(UTF_8));
+		return index < 0 ? Optional.empty() : Optional.of(readString(valueOffset(index)));
+	}
+
+	/**
+	 * Returns <code>true</code> if there is a setting with the given key.
+	 *
+	 * @param key the key of the setting
+	 * @return <code>true</code> if there is a setting with the given key
+	 */
+	public boolean containsKey(String key) {
+		return indexOf(key.getBytes(UTF_8)) >= 0;
+	}
+
+	/**
+	 * Returns the number of settings.
+	 *
+	 * @return the number of settings
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns a stream of all keys in order of their UTF-8 bytes. The keys are decoded lazily.
+	 *
+	 * @return a stream of all keys
+	 */
+	public Stream<String> keys() {
+		return IntStream.range(0, size).mapToObj(index -> readString(keyOffset(index)));
+	}
+
+	/**
+	 * Decodes all settings into a new map. This defeats the purpose of this class for large sets of settings, but can be useful for small
+	 * ones or for debugging.
+	 *
+	 * @return a new map with all settings
+	 */
+	public Map<String, String> toMap() {
+		Map<String, String> settings = new HashMap<>(size * 4 / 3 + 1);
+
+		for (int index = 0; index < size; index++) {
+			settings.put(readString(keyOffset(index)), readString(valueOffset(index)));
+		}
+
+		return settings;
+	}
+
+	private int indexOf(byte[] key) {
+		int low = 0;
+		int high = size - 1;
+
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compareKey(keyOffset(middle), key);
+
+			if (comparison < 0) {
+				low = middle + 1;
+			}
+			else if (comparison > 0) {
+				high = middle - 1;
+			}
+			else {
+				return middle;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Compares the stored key at the given offset with the given key by their unsigned UTF-8 bytes, without decoding the stored key.
+	 */
+	private int compareKey(int offset, byte[] key) {
+		int position = dataStart + offset;
+		int length = buffer.getInt(position);
+		position += Integer.BYTES;
+
+		for (int i = 0, common = Math.min(length, key.length); i < common; i++) {
+			int comparison = Byte.toUnsignedInt(buffer.get(position + i)) - Byte.toUnsignedInt(key[i]);
+
+			if (comparison != 0) {
+				return comparison;
+			}
+		}
+
+		return length - key.length;
+	}
+
+	private int keyOffset(int index) {
+		return buffer.getInt(HEADER_SIZE + index * INDEX_RECORD_SIZE);
+	}
+
+	private int valueOffset(int index) {
+		return buffer.getInt(HEADER_SIZE + index * INDEX_RECORD_SIZE + Integer.BYTES);
+	}
+
+	private String readString(int offset) {
+		int position = dataStart + offset;
+		byte[] bytes = new byte[buffer.getInt(position)];
+
+		// Absolute bulk get is not available before Java 13, so use a duplicate to not disturb other threads.
+		ByteBuffer view = buffer.duplicate();
+		view.position(position + Integer.BYTES);
+		view.get(bytes);
+
+		return new String(bytes, UTF_8);
+	}
+
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.properties;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Properties;
+
+/**
+ * Escapes and unescapes text as {@link Properties} entry value.
+ *
+ * <p>
+ * Backslashes, tabs, new lines, carriage returns, form feeds, <code>=</code> and <code>:</code> are escaped with a backslash, and all other
+ * characters outside the printable ASCII range are escaped as <code>&#92;uxxxx</code>. Unescaping reverses this, and additionally accepts
+ * a backslash before any other character as that character, like {@link Properties#load(Reader)} does.
+ *
+ * <p>
+ * Next to whole strings, text can be escaped and unescaped from a {@link Reader} to a {@link Writer}, or chunk by chunk from one
+ * {@link CharBuffer} to another, so that arbitrarily large input is processed with a fixed amount of memory. The escape sequence of every
+ * ASCII character is looked up in a precomputed table.
+ */
+public final class PropertiesCodec {
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final int MAX_ESCAPED_LENGTH = 6;
+	private static final int ASCII_SIZE = 0x80;
+	private static final char UNICODE = 'u';
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/** Per ASCII character the character to put after the backslash, {@link #UNICODE} for a unicode escape, or 0 for none. */
+	private static final char[] ESCAPES = new char[ASCII_SIZE];
+
+	/** Per ASCII character the character an escape sequence of a backslash followed by it stands for, or 0 for itself. */
+	private static final char[] UNESCAPES = new char[ASCII_SIZE];
+
+	static {
+		for (char c = 0; c < ASCII_SIZE; c++) {
+			if (c < 0x20 || c > 0x7E) {
+				ESCAPES[c] = UNICODE;
+			}
+		}
+
+		char[][] escapes = { { '\\', '\\' }, { '\t', 't' }, { '\n', 'n' }, { '\r', 'r' }, { '\f', 'f' }, { '=', '=' }, { ':', ':' } };
+
+		for (char[] escape : escapes) {
+			ESCAPES[escape[0]] = escape[1];
+			UNESCAPES[escape[1]] = escape[0];
+		}
+	}
+
+	private PropertiesCodec() {
+	}
+
+	/**
+	 * Escapes given string as {@link Properties} entry value.
+	 *
+	 * @param string String to be escaped.
+	 * @return The given string escaped, or the given string itself if it contains nothing to escape.
+	 */
+	public static String escape(String string) {
+		int length = string.length();
+		int i = 0;
+
+		while (i < length && escapedLength(string.charAt(i)) == 1) {
+			i++;
+		}
+
+		if (i == length) {
+			return string;
+		}
+
+		StringBuilder builder = new StringBuilder(length + 16).append(string, 0, i);
+
+		for (; i < length; i++) {
+			char c = string.charAt(i);
+			char escape = c < ASCII_SIZE ? ESCAPES[c] : UNICODE;
+
+			if (escape == 0) {
+				builder.append(c);
+			}
+			else if (escape == UNICODE) {
+				builder.append('\\').append(UNICODE).append(HEX_DIGITS[(c >> 12) & 0xF]).append(HEX_DIGITS[(c >> 8) & 0xF])
+					.append(HEX_DIGITS[(c >> 4) & 0xF]).append(HEX_DIGITS[c & 0xF]);
+			}
+			else {
+				builder.append('\\').append(escape);
+			}
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Unescapes given {@link Properties} entry value.
+	 *
+	 * @param string String to be unescaped.
+	 * @return The given string unescaped, or the given string itself if it contains no escape sequences.
+	 * @throws IllegalArgumentException When the string contains a malformed escape sequence.
+	 */
+	public static String unescape(String string) {
+		if (string.indexOf('\\') < 0) {
+			return string;
+		}
+
+		CharBuffer out = CharBuffer.allocate(string.length());
+		unescape(CharBuffer.wrap(string), out, true);
+		return out.flip().toString();
+	}
+
+	/**
+	 * Escapes all text read from the given reader as {@link Properties} entry value and writes it to the given writer. Neither is closed.
+	 *
+	 * @param reader The reader to read the text to be escaped from.
+	 * @param writer The writer to write the escaped text to.
+	 * @throws IOException When reading or writing fails.
+	 */
+	public static void escape(Reader reader, Writer writer) throws IOException {
+		transcode(reader, writer, false);
+	}
+
+	/**
+	 * Unescapes all text read from the given reader as {@link Properties} entry value and writes it to the given writer. Neither is
+	 * closed.
+	 *
+	 * @param reader The reader to read the text to be unescaped from.
+	 * @param writer The writer to write the unescaped text to.
+	 * @throws IOException When reading or writing fails.
+	 * @throws IllegalArgumentException When the text contains a malformed escape sequence.
+	 */
+	public static void unescape(Reader reader, Writer writer) throws IOException {
+		transcode(reader, writer, true);
+	}
+
+	/**
+	 * Escapes as many characters from the given input buffer as fit escaped in the given output buffer. The position of the input buffer
+	 * is advanced past the characters which have been escaped. Call again with a drained output buffer as long as the input buffer has
+	 * remaining characters.
+	 *
+	 * @param in The buffer with the text to be escaped.
+	 * @param out The buffer to put the escaped text in.
+	 */
+	public static void escape(CharBuffer in, CharBuffer out) {
+		while (in.hasRemaining()) {
+			char c = in.get(in.position());
+			char escape = c < ASCII_SIZE ? ESCAPES[c] : UNICODE;
+
+			if (out.remaining() < escapedLength(c)) {
+				return;
+			}
+
+			if (escape == 0) {
+				out.put(c);
+			}
+			else if (escape == UNICODE) {
+				out.put('\\').put(UNICODE).put(HEX_DIGITS[(c >> 12) & 0xF]).put(HEX_DIGITS[(c >> 8) & 0xF])
+					.put(HEX_DIGITS[(c >> 4) & 0xF]).put(HEX_DIGITS[c & 0xF]);
+			}
+			else {
+				out.put('\\').put(escape);
+			}
+
+			in.get();
+		}
+	}
+
+	/**
+	 * Unescapes as many characters from the given input buffer as fit unescaped in the given output buffer. The position of the input
+	 * buffer is advanced past the characters which have been unescaped. An escape sequence which is cut off at the end of the input
+	 * buffer is left in it, so that it can be completed with the next chunk. Call again with more input or a drained output buffer as
+	 * long as the input buffer has remaining characters.
+	 *
+	 * @param in The buffer with the text to be unescaped.
+	 * @param out The buffer to put the unescaped text in.
+	 * @param endOfInput Whether the input buffer holds the last chunk of the text, so that an escape sequence which is cut off at its
+	 * end is malformed.
+	 * @throws IllegalArgumentException When the text contains a malformed escape sequence.
+	 */
+	public static void unescape(CharBuffer in, CharBuffer out, boolean endOfInput) {
+		while (in.hasRemaining() && out.hasRemaining()) {
+			int position = in.position();
+			char c = in.get(position);
+
+			if (c != '\\') {
+				out.put(c);
+				in.position(position + 1);
+				continue;
+			}
+
+			int escapeLength = (position + 1 < in.limit() && in.get(position + 1) == UNICODE) ? MAX_ESCAPED_LENGTH : 2;
+
+			if (position + escapeLength > in.limit()) {
+				if (endOfInput) {
+					throw new IllegalArgumentException("Malformed escape sequence at end of input.");
+				}
+
+				return;
+			}
+
+			char escaped = in.get(position + 1);
+
+			if (escaped == UNICODE) {
+				out.put(parseHex(in, position + 2));
+			}
+			else {
+				char unescaped = escaped < ASCII_SIZE ? UNESCAPES[escaped] : 0;
+				out.put(unescaped == 0 ? escaped : unescaped);
+			}
+
+			in.position(position + escapeLength);
+		}
+	}
+
+	private static void transcode(Reader reader, Writer writer, boolean unescape) throws IOException {
+		CharBuffer in = CharBuffer.allocate(BUFFER_SIZE);
+		CharBuffer out = CharBuffer.allocate(BUFFER_SIZE);
+		boolean endOfInput = false;
+
+		while (true) {
+			if (!endOfInput && in.hasRemaining() && reader.read(in) < 0) {
+				endOfInput = true;
+			}
+
+			in.flip();
+
+			if (unescape) {
+				unescape(in, out, endOfInput);
+			}
+			else {
+				escape(in, out);
+			}
+
+			boolean drained = !in.hasRemaining();
+			in.compact();
+			out.flip();
+			writer.write(out.array(), out.arrayOffset() + out.position(), out.remaining());
+			out.clear();
+
+			if (endOfInput && drained) {
+				break;
+			}
+		}
+	}
+
+	private static int escapedLength(char c) {
+		char escape = c < ASCII_SIZE ? ESCAPES[c] : UNICODE;
+		return escape == 0 ? 1 : escape == UNICODE ? MAX_ESCAPED_LENGTH : 2;
+	}
+
+	private static char parseHex(CharBuffer in, int position) {
+		int value = 0;
+
+		for (int i = position; i < position + 4; i++) {
+			char c = in.get(i);
+			int digit = (c >= '0' && c <= '9') ? c - '0' : (c >= 'a' && c <= 'f') ? c - 'a' + 10 : (c >= 'A' && c <= 'F') ? c - 'A' + 10 : -1;
+
+			if (digit < 0) {
+				throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+			}
+
+			value = (value << 4) | digit;
+		}
+
+		return (char) value;
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.properties;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The result of loading and merging multiple properties sources with {@link PropertiesUtils#loadAll(List, java.util.concurrent.Executor)}:
+ * the merged settings, and per source how long it took to load and how many keys it contributed.
+ */
+public class PropertiesLoadReport {
+
+	private final Map<String, String> settings;
+	private final List<Source> sources;
+	private final Duration totalLoadTime;
+
+	PropertiesLoadReport(Map<String, String> settings, List<Source> sources, Duration totalLoadTime) {
+		this.settings = unmodifiableMap(settings);
+		this.sources = unmodifiableList(sources);
+		this.totalLoadTime = totalLoadTime;
+	}
+
+	/**
+	 * Returns the merged settings of all sources. When multiple sources contain the same key, the one of the source with the highest
+	 * precedence wins, which is the one given last, regardless of the order in which the sources finished loading.
+	 *
+	 * @return an immutable map containing the merged settings
+	 */
+	public Map<String, String> getSettings() {
+		return settings;
+	}
+
+	/**
+	 * Returns the sources in order of increasing precedence.
+	 *
+	 * @return the sources
+	 */
+	public List<Source> getSources() {
+		return sources;
+	}
+
+	/**
+	 * Returns the wall clock time it took to load and merge all sources.
+	 *
+	 * @return the total load time
+	 */
+	public Duration getTotalLoadTime() {
+		return totalLoadTime;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format("Loaded %d settings from %d sources in %d ms.", settings.size(), sources.size(), totalLoadTime.toMillis()));
+
+		for (Source source : sources) {
+			builder.append(String.format("%n  %s: %s in %d ms", source.getUrl(),
+				source.getError().map(e -> "failed with " + e).orElse(source.getKeyCount() + " keys"), source.getLoadTime().toMillis()));
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * A single properties source.
+	 */
+	public static class Source {
+
+		private final URL url;
+		private final int keyCount;
+		private final Duration loadTime;
+		private final Exception error;
+
+		Source(URL url, int keyCount, Duration loadTime, Exception error) {
+			this.url = url;
+			this.keyCount = keyCount;
+			this.loadTime = loadTime;
+			this.error = error;
+		}
+
+		public URL getUrl() {
+			return url;
+		}
+
+		/**
+		 * Returns the number of keys in this source, including the ones overridden by sources with a higher precedence.
+		 *
+		 * @return the number of keys in this source
+		 */
+		public int getKeyCount() {
+			return keyCount;
+		}
+
+		public Duration getLoadTime() {
+			return loadTime;
+		}
+
+		/**
+		 * Returns the error which occurred while loading this source, if any. A source which failed to load does not contribute any keys.
+		 *
+		 * @return the error which occurred while loading this source
+		 */
+		public Optional<Exception> getError() {
+			return Optional.ofNullable(error);
+		}
+	}
+}
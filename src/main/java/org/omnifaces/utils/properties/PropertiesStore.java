@@ -0,0 +1,341 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.properties;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.logging.Level.SEVERE;
+import static org.omnifaces.utils.properties.PropertiesUtils.CONFIGURATION_BASE_DIR;
+import static org.omnifaces.utils.properties.PropertiesUtils.META_INF_CONFIGURATION_BASE_DIR;
+import static org.omnifaces.utils.properties.PropertiesUtils.getEarBaseUrl;
+import static org.omnifaces.utils.properties.PropertiesUtils.getResource;
+import static org.omnifaces.utils.properties.PropertiesUtils.getStage;
+import static org.omnifaces.utils.properties.PropertiesUtils.loadProperties;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+import org.omnifaces.utils.properties.PropertiesUtils.PropertiesFormat;
+
+/**
+ * A store of settings which are loaded once from one or more layered properties files, such as a base file and a stage specific file.
+ *
+ * <p>
+ * The layers are merged into an immutable snapshot, wherein later layers override earlier ones. Layers which are backed by a file on the
+ * file system are watched for changes, upon which all layers are reloaded and the snapshot is atomically replaced. Readers never block and
+ * never see a partially updated snapshot; they see either the old or the new one. When a layer fails to load, e.g. because it is being
+ * saved and is not well-formed yet, the old snapshot is kept. A layer which does not exist is taken as empty.
+ *
+ * <p>
+ * The stores returned by {@link #fromClassPath(String, PropertiesFormat, String, String)} and
+ * {@link #fromEar(String, PropertiesFormat, String)} are shared, so that repeatedly asking for the same settings does not re-read and
+ * re-parse the files.
+ */
+public final class PropertiesStore implements AutoCloseable {
+
+	private static final Logger logger = Logger.getLogger(PropertiesStore.class.getName());
+	private static final long RELOAD_DELAY_MILLIS = 100;
+	private static final ConcurrentMap<String, PropertiesStore> sharedStores = new ConcurrentHashMap<>();
+
+	private final List<URL> layers;
+	private final PropertiesFormat propertiesFormat;
+	private final String sharedKey;
+	private final WatchService watchService;
+
+	private volatile Map<String, String> settings;
+
+	/**
+	 * Creates a store of the settings in the given layers, watching those layers which are backed by a file for changes.
+	 *
+	 * @param layers the URLs of the properties files, in increasing order of precedence
+	 * @param propertiesFormat the format of the properties files
+	 * @throws UncheckedIOException when a layer fails to load
+	 */
+	public PropertiesStore(List<URL> layers, PropertiesFormat propertiesFormat) {
+		this(layers, propertiesFormat, null);
+	}
+
+	private PropertiesStore(List<URL> layers, PropertiesFormat propertiesFormat, String sharedKey) {
+		this.layers = unmodifiableList(new ArrayList<>(layers));
+		this.propertiesFormat = propertiesFormat;
+		this.sharedKey = sharedKey;
+		Set<Path> files = getFiles();
+		// Register before loading, so that no change in between can be missed, but only start processing the changes after loading, so that
+		// the initial snapshot can never overwrite a newer one of the watcher.
+		this.watchService = register(files);
+
+		try {
+			this.settings = load();
+		}
+		catch (RuntimeException e) {
+			close();
+			throw e;
+		}
+
+		startWatcher(files);
+	}
+
+	/**
+	 * Returns the shared store of the properties file with the given name in the configuration directory of META-INF, layered with the
+	 * one in the stage specific subdirectory of it. See {@link PropertiesUtils#loadStagedFromClassPath(java.util.function.BiConsumer, String,
+	 * String, String)}.
+	 *
+	 * @param fileName the file name of the properties file
+	 * @param propertiesFormat the format of the properties file
+	 * @param stageSystemPropertyName the name of the system property from which the stage is read
+	 * @param defaultStage the default stage
+	 * @return the shared store
+	 */
+	public static PropertiesStore fromClassPath(String fileName, PropertiesFormat propertiesFormat, String stageSystemPropertyName,
+			String defaultStage) {
+		String stage = getStage(stageSystemPropertyName, defaultStage);
+		String key = "classpath:" + stage + ":" + propertiesFormat + ":" + fileName;
+
+		return sharedStores.computeIfAbsent(key, k -> {
+			List<URL> layers = new ArrayList<>();
+			getResource(META_INF_CONFIGURATION_BASE_DIR + fileName).ifPresent(layers::add);
+			getResource(META_INF_CONFIGURATION_BASE_DIR + stage + "/" + fileName).ifPresent(layers::add);
+			return new PropertiesStore(layers, propertiesFormat, k);
+		});
+	}
+
+	/**
+	 * Returns the shared store of the properties file with the given name in the configuration directory of an EAR, layered with the one in
+	 * the stage specific subdirectory of it. See {@link PropertiesUtils#loadStagedFromEar(java.util.function.BiConsumer, String, String)}.
+	 *
+	 * @param fileName the file name of the properties file
+	 * @param propertiesFormat the format of the properties file
+	 * @param stageSystemPropertyName the name of the system property from which the stage is read
+	 * @return the shared store
+	 */
+	public static PropertiesStore fromEar(String fileName, PropertiesFormat propertiesFormat, String stageSystemPropertyName) {
+		String stage = getStage(stageSystemPropertyName, null);
+		String key = "ear:" + stage + ":" + propertiesFormat + ":" + fileName;
+
+		return sharedStores.computeIfAbsent(key, k -> {
+			String earBaseUrl = getEarBaseUrl();
+
+			try {
+				List<URL> layers = new ArrayList<>();
+				layers.add(new URL(earBaseUrl + CONFIGURATION_BASE_DIR + fileName));
+				layers.add(new URL(earBaseUrl + CONFIGURATION_BASE_DIR + stage + "/" + fileName));
+				return new PropertiesStore(layers, propertiesFormat, k);
+			}
+			catch (MalformedURLException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	/**
+	 * Returns the current snapshot of the settings.
+	 *
+	 * @return an immutable map containing the current settings
+	 */
+	public Map<String, String> getSettings() {
+		return settings;
+	}
+
+	/**
+	 * Returns the current value of the setting with the given key.
+	 *
+	 * @param key the key of the setting
+	 * @return the current value of the setting, or an empty optional if there is no such setting
+	 */
+	public Optional<String> get(String key) {
+		return Optional.ofNullable(settings.get(key));
+	}
+
+	/**
+	 * Reloads all layers and replaces the current snapshot. When a layer fails to load, the current snapshot is kept.
+	 *
+	 * @throws UncheckedIOException when a layer fails to load
+	 */
+	public void reload() {
+		settings = load();
+	}
+
+	/**
+	 * Stops watching for changes. A shared store is also removed from the shared stores, so that the next request for it creates a new one.
+	 */
+	@Override
+	public void close() {
+		if (sharedKey != null) {
+			sharedStores.remove(sharedKey, this);
+		}
+
+		if (watchService != null) {
+			try {
+				watchService.close();
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	public List<URL> getLayers() {
+		return layers;
+	}
+
+	private Map<String, String> load() {
+		Map<String, String> loadedSettings = new HashMap<>();
+
+		for (URL layer : layers) {
+			for (Entry<?, ?> entry : loadLayer(layer).entrySet()) {
+				loadedSettings.put((String) entry.getKey(), (String) entry.getValue());
+			}
+		}
+
+		logger.fine(() -> String.format("Loaded %d settings from %s.", loadedSettings.size(), layers));
+		return unmodifiableMap(loadedSettings);
+	}
+
+	private Properties loadLayer(URL layer) {
+		try (InputStream in = layer.openStream()) {
+			return loadProperties(in, propertiesFormat);
+		}
+		catch (FileNotFoundException e) {
+			return new Properties();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Error while loading settings from " + layer + ".", e);
+		}
+		catch (IllegalArgumentException e) {
+			// Thrown by Properties#load() on a malformed escape.
+			throw new UncheckedIOException("Error while loading settings from " + layer + ".", new IOException(e));
+		}
+	}
+
+	private Set<Path> getFiles() {
+		Set<Path> files = new HashSet<>();
+
+		for (URL layer : layers) {
+			toPath(layer).ifPresent(files::add);
+		}
+
+		return files;
+	}
+
+	private WatchService register(Set<Path> files) {
+		if (files.isEmpty()) {
+			return null;
+		}
+
+		try {
+			WatchService newWatchService = FileSystems.getDefault().newWatchService();
+			Set<Path> directories = new HashSet<>();
+
+			for (Path file : files) {
+				Path directory = file.getParent();
+
+				if (Files.isDirectory(directory) && directories.add(directory)) {
+					directory.register(newWatchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+				}
+			}
+
+			return newWatchService;
+		}
+		catch (IOException e) {
+			logger.log(SEVERE, "Error while watching settings, changes will not be reloaded.", e);
+			return null;
+		}
+	}
+
+	private void startWatcher(Set<Path> files) {
+		if (watchService != null) {
+			Thread watcher = new Thread(() -> processEvents(watchService, files), "PropertiesStore-" + layers.get(0));
+			watcher.setDaemon(true);
+			watcher.start();
+		}
+	}
+
+	private void processEvents(WatchService watchService, Set<Path> files) {
+		try {
+			while (true) {
+				WatchKey key = watchService.take();
+				boolean changed = false;
+
+				// Coalesce the burst of events an editor or deployment typically causes into a single reload.
+				do {
+					Path directory = (Path) key.watchable();
+
+					changed |= key.pollEvents().stream()
+					              .map(event -> event.context())
+					              .filter(Path.class::isInstance)
+					              .anyMatch(context -> files.contains(directory.resolve((Path) context)));
+
+					key.reset();
+				}
+				while ((key = watchService.poll(RELOAD_DELAY_MILLIS, MILLISECONDS)) != null);
+
+				if (changed) {
+					try {
+						reload();
+					}
+					catch (RuntimeException e) {
+						logger.log(SEVERE, "Error while reloading settings, keeping the previous settings.", e);
+					}
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (ClosedWatchServiceException e) {
+			// Store is closed.
+		}
+	}
+
+	private static Optional<Path> toPath(URL url) {
+		if (!"file".equals(url.getProtocol())) {
+			return Optional.empty();
+		}
+
+		try {
+			return Optional.of(Paths.get(url.toURI()).toAbsolutePath());
+		}
+		catch (URISyntaxException | IllegalArgumentException e) {
+			return Optional.empty();
+		}
+	}
+
+}
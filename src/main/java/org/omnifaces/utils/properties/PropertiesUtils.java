@@ -13,29 +13,51 @@
 package org.omnifaces.utils.properties;
 
 import static java.lang.System.getProperty;
+import static java.lang.System.nanoTime;
 import static java.util.Arrays.asList;
+import static java.util.Collections.list;
 import static java.util.Collections.unmodifiableMap;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
 import static java.util.logging.Level.SEVERE;
+import static java.util.stream.Collectors.toList;
 import static org.omnifaces.utils.properties.PropertiesUtils.PropertiesFormat.LIST;
 import static org.omnifaces.utils.properties.PropertiesUtils.PropertiesFormat.XML;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 public final class PropertiesUtils {
 
 	private static final Logger logger = Logger.getLogger(PropertiesUtils.class.getName());
-	private static final String CONFIGURATION_BASE_DIR = "/conf/";
-	private static final String META_INF_CONFIGURATION_BASE_DIR = "META-INF/conf/";
+	static final String CONFIGURATION_BASE_DIR = "/conf/";
+	static final String META_INF_CONFIGURATION_BASE_DIR = "META-INF/conf/";
 
 	public static enum PropertiesFormat {XML, LIST}
 
@@ -222,14 +244,8 @@ public final class PropertiesUtils {
 	}
 	
 	public static void loadPropertiesFromStream(InputStream in, String locationDescription, Map<? super String, ? super String> settings, PropertiesFormat propertiesFormat) {
-		Properties properties = new Properties();
 		try {
-
-			if (propertiesFormat == XML) {
-				properties.loadFromXML(in);
-			} else {
-				properties.load(in);
-			}
+			Properties properties = loadProperties(in, propertiesFormat);
 
 			logger.info(String.format("Loaded %d settings from %s.", properties.size(), locationDescription));
 
@@ -242,6 +258,232 @@ public final class PropertiesUtils {
 		}
 	}
 	
+	/**
+	 * Loads all properties files with the given resource names from the class path, including every occurrence of the same resource name in
+	 * different jars, and merges them. The files are parsed concurrently on a dedicated pool of daemon threads, so that slow class path
+	 * resources do not occupy the common fork join pool. See {@link #loadAllFromClassPath(Executor, String...)} for the details.
+	 *
+	 * @param resourceNames the names of the resources to load, e.g. <code>META-INF/conf/application.properties</code> or
+	 * <code>META-INF/conf/*.properties</code>
+	 * @return a report containing the merged settings, and per source its load time and number of keys
+	 * @throws UncheckedIOException when the class path could not be searched for the resources
+	 */
+	public static PropertiesLoadReport loadAllFromClassPath(String... resourceNames) {
+		return loadAllFromClassPath(DefaultLoadExecutor.INSTANCE, resourceNames);
+	}
+
+	/**
+	 * Loads all properties files with the given resource names from the class path, including every occurrence of the same resource name in
+	 * different jars, and merges them. The files are parsed concurrently using the given executor. Resources ending with <code>.xml</code>
+	 * are parsed in XML format, all others in properties list format.
+	 *
+	 * <p>
+	 * The last path segment of a resource name may contain the wildcards <code>*</code> and <code>?</code>, e.g.
+	 * <code>META-INF/conf/*.properties</code>, in which case all matching resources in every occurrence of the directory are loaded. This is
+	 * supported for directories and jars on the class path.
+	 *
+	 * <p>
+	 * The settings are merged in a deterministic order of precedence: resources with a later given name override earlier ones, and among the
+	 * occurrences of the same resource name, the order of {@link ClassLoader#getResources(String)} applies, wherein later occurrences
+	 * override earlier ones. Resources matching the same wildcard name in the same directory or jar are ordered by their name.
+	 *
+	 * @param executor the executor to load the files with
+	 * @param resourceNames the names of the resources to load
+	 * @return a report containing the merged settings, and per source its load time and number of keys
+	 * @throws UncheckedIOException when the class path could not be searched for the resources
+	 */
+	public static PropertiesLoadReport loadAllFromClassPath(Executor executor, String... resourceNames) {
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+		if (classLoader == null) {
+			classLoader = PropertiesUtils.class.getClassLoader();
+		}
+
+		List<URL> urls = new ArrayList<>();
+
+		for (String resourceName : resourceNames) {
+			try {
+				urls.addAll(getResources(classLoader, resourceName));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		return loadAll(urls, executor);
+	}
+
+	private static List<URL> getResources(ClassLoader classLoader, String resourceName) throws IOException {
+		int nameStart = resourceName.lastIndexOf('/') + 1;
+		String name = resourceName.substring(nameStart);
+
+		if (name.indexOf('*') < 0 && name.indexOf('?') < 0) {
+			return list(classLoader.getResources(resourceName));
+		}
+
+		String directory = resourceName.substring(0, nameStart);
+		Pattern pattern = Pattern.compile(globToRegex(name));
+		List<URL> urls = new ArrayList<>();
+
+		for (URL directoryUrl : list(classLoader.getResources(directory.isEmpty() ? "" : directory.substring(0, directory.length() - 1)))) {
+			List<String> names = new ArrayList<>();
+
+			if ("file".equals(directoryUrl.getProtocol())) {
+				try (DirectoryStream<Path> paths = Files.newDirectoryStream(toPath(directoryUrl))) {
+					for (Path path : paths) {
+						if (Files.isRegularFile(path)) {
+							names.add(path.getFileName().toString());
+						}
+					}
+				}
+			}
+			else if ("jar".equals(directoryUrl.getProtocol())) {
+				JarURLConnection connection = (JarURLConnection) directoryUrl.openConnection();
+				connection.setUseCaches(false);
+
+				try (JarFile jar = connection.getJarFile()) {
+					for (JarEntry entry : list(jar.entries())) {
+						String entryName = entry.getName();
+
+						if (!entry.isDirectory() && entryName.startsWith(directory) && entryName.indexOf('/', directory.length()) < 0) {
+							names.add(entryName.substring(directory.length()));
+						}
+					}
+				}
+			}
+			else {
+				logger.warning(String.format("Cannot search %s for %s, only directories and jars are supported.", directoryUrl, name));
+			}
+
+			String base = directoryUrl.toExternalForm();
+			base = base.endsWith("/") ? base : (base + "/");
+			names.sort(null);
+
+			for (String match : names) {
+				if (pattern.matcher(match).matches()) {
+					urls.add(new URL(base + match));
+				}
+			}
+		}
+
+		return urls;
+	}
+
+	private static Path toPath(URL url) throws IOException {
+		try {
+			return Paths.get(url.toURI());
+		} catch (URISyntaxException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static String globToRegex(String glob) {
+		StringBuilder regex = new StringBuilder();
+		int literalStart = 0;
+
+		for (int i = 0; i < glob.length(); i++) {
+			char c = glob.charAt(i);
+
+			if (c == '*' || c == '?') {
+				if (i > literalStart) {
+					regex.append(Pattern.quote(glob.substring(literalStart, i)));
+				}
+
+				regex.append(c == '*' ? ".*" : ".");
+				literalStart = i + 1;
+			}
+		}
+
+		if (literalStart < glob.length()) {
+			regex.append(Pattern.quote(glob.substring(literalStart)));
+		}
+
+		return regex.toString();
+	}
+
+	/**
+	 * Loads all properties files at the given URLs concurrently using the given executor, and merges them in the given order, wherein later
+	 * ones override earlier ones. URLs ending with <code>.xml</code> are parsed in XML format, all others in properties list format. A source
+	 * which fails to load is logged and recorded in the report, and does not contribute any settings.
+	 *
+	 * @param urls the URLs of the properties files, in increasing order of precedence
+	 * @param executor the executor to load the files with
+	 * @return a report containing the merged settings, and per source its load time and number of keys
+	 */
+	public static PropertiesLoadReport loadAll(List<URL> urls, Executor executor) {
+		long start = nanoTime();
+
+		List<CompletableFuture<LoadedSource>> futures = urls.stream()
+		                                                    .map(url -> supplyAsync(() -> loadSource(url), executor))
+		                                                    .collect(toList());
+
+		Map<String, String> settings = new HashMap<>();
+		List<PropertiesLoadReport.Source> sources = new ArrayList<>(urls.size());
+
+		for (CompletableFuture<LoadedSource> future : futures) {
+			LoadedSource loadedSource = future.join();
+
+			for (Entry<?, ?> entry : loadedSource.properties.entrySet()) {
+				settings.put((String) entry.getKey(), (String) entry.getValue());
+			}
+
+			sources.add(loadedSource.source);
+		}
+
+		PropertiesLoadReport report = new PropertiesLoadReport(settings, sources, Duration.ofNanos(nanoTime() - start));
+		logger.fine(report::toString);
+
+		return report;
+	}
+
+	private static LoadedSource loadSource(URL url) {
+		long start = nanoTime();
+		Properties properties = new Properties();
+		Exception error = null;
+
+		try (InputStream in = url.openStream()) {
+			properties = loadProperties(in, url.getPath().endsWith(".xml") ? XML : LIST);
+		} catch (IOException | RuntimeException e) {
+			logger.log(SEVERE, "Error while loading settings from " + url + ".", e);
+			error = e;
+		}
+
+		return new LoadedSource(properties, new PropertiesLoadReport.Source(url, properties.size(), Duration.ofNanos(nanoTime() - start), error));
+	}
+
+	static Properties loadProperties(InputStream in, PropertiesFormat propertiesFormat) throws IOException {
+		Properties properties = new Properties();
+
+		if (propertiesFormat == XML) {
+			properties.loadFromXML(in);
+		} else {
+			properties.load(in);
+		}
+
+		return properties;
+	}
+
+	private static final class DefaultLoadExecutor {
+
+		private static final AtomicInteger threadNumber = new AtomicInteger();
+
+		private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "PropertiesUtils-load-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	private static class LoadedSource {
+
+		private final Properties properties;
+		private final PropertiesLoadReport.Source source;
+
+		private LoadedSource(Properties properties, PropertiesLoadReport.Source source) {
+			this.properties = properties;
+			this.source = source;
+		}
+	}
+
 	public static String getStage(String stageSystemPropertyName, String defaultStage) {
 		String stage = getProperty(stageSystemPropertyName);
 		if (stage == null) {
@@ -255,7 +497,7 @@ public final class PropertiesUtils {
 		return stage;
 	}
 
-	private static Optional<URL> getResource(String name) {
+	static Optional<URL> getResource(String name) {
 		URL url = Thread.currentThread().getContextClassLoader().getResource(name);
 		if (url == null) {
 			url = PropertiesUtils.class.getClassLoader().getResource(name);
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.properties;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Customizes how a property of a type bound by {@link SettingsBinder} is mapped to a setting. Put it on the method of an interface, on the
+ * component of a record, or on the getter or setter of a bean.
+ */
+@Retention(RUNTIME)
+@Target(METHOD)
+public @interface Setting {
+
+	/**
+	 * The key of the setting, relative to the key prefix given to {@link SettingsBinder#bind(java.util.Map, String)}. Defaults to the
+	 * property name.
+	 *
+	 * @return the key of the setting
+	 */
+	String key() default "";
+
+	/**
+	 * The value to use when the setting is absent. At most one value may be given. Defaults to none, which means that the setting is
+	 * required, unless the property is of type {@link java.util.Optional}.
+	 *
+	 * @return the default value of the setting
+	 */
+	String[] defaultValue() default {};
+
+}
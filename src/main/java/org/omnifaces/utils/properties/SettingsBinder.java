@@ -0,0 +1,524 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.properties;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.stream.Collectors.toList;
+import static org.omnifaces.utils.reflect.Reflections.findConstructor;
+import static org.omnifaces.utils.reflect.Reflections.instantiate;
+import static org.omnifaces.utils.reflect.Reflections.invokeMethod;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Binds a map of settings, such as returned by {@link PropertiesUtils} or {@link PropertiesStore}, to a typed view once, so that code using
+ * the settings does not have to parse them at every access.
+ *
+ * <p>
+ * The target type can be:
+ * <ul>
+ * <li>a record, of which every component is a property. It is created via its canonical constructor, which does not need to be
+ * public;</li>
+ * <li>a bean with a public default constructor, of which every writable property is a property. It is created via the default
+ * constructor and populated via the setters;</li>
+ * <li>an interface, of which every abstract method without parameters is a property. The returned view is a {@link Proxy} which returns
+ * the values that were converted during binding.</li>
+ * </ul>
+ * For records and beans, reading a property afterwards is a plain field read. For interfaces, every call of an accessor goes through the
+ * invocation handler of the proxy and looks up the converted value by method name in a hash map, which is cheap compared to parsing, but
+ * not free; prefer a record or a bean for settings which are read on hot paths. The property name is used as setting key by default. This
+ * and a default value can be customized with {@link Setting}.
+ *
+ * <p>
+ * The converters for the property types are determined once per target type by {@link #of(Class)}, which throws an
+ * {@link IllegalArgumentException} for unsupported types. Supported are strings, primitives and their wrappers, {@link BigDecimal},
+ * {@link BigInteger}, enums, {@link Duration}, comma separated {@link List}s and {@link Set}s of those, any type with a public static
+ * <code>valueOf(String)</code> or <code>parse(CharSequence)</code> method or a public constructor taking a string, and {@link Optional}s
+ * of all of those. Durations can be given in ISO-8601 format like <code>PT5S</code>, or as a number with a unit like <code>500ms</code>,
+ * <code>5s</code>, <code>5m</code>, <code>5h</code> or <code>5d</code>, wherein a number without unit means milliseconds.
+ *
+ * <p>
+ * {@link #bind(Map, String)} validates all settings at once, and throws an {@link IllegalArgumentException} describing all missing and
+ * invalid settings, so that configuration errors surface at load time rather than at first use.
+ *
+ * @param <T> the type to bind settings to
+ */
+public final class SettingsBinder<T> {
+
+	private static final ClassValue<SettingsBinder<?>> binders = new ClassValue<SettingsBinder<?>>() {
+		@Override
+		protected SettingsBinder<?> computeValue(Class<?> type) {
+			return new SettingsBinder<>(type);
+		}
+	};
+
+	private static final Pattern DURATION_PATTERN = Pattern.compile("(-?\\d+)\\s*(ms|s|m|h|d)?");
+
+	private final Class<T> type;
+	private final List<Property> properties;
+	private final Function<Object[], T> factory;
+
+	private SettingsBinder(Class<T> type) {
+		this.type = type;
+		List<Property> boundProperties = new ArrayList<>();
+
+		if (type.isInterface()) {
+			this.factory = compileInterface(type, boundProperties);
+		}
+		else if (isRecord(type)) {
+			this.factory = compileRecord(type, boundProperties);
+		}
+		else {
+			this.factory = compileBean(type, boundProperties);
+		}
+
+		this.properties = unmodifiableList(boundProperties);
+	}
+
+	/**
+	 * Returns the binder for the given type. Binders are created once per type.
+	 *
+	 * @param <T> the type to bind settings to
+	 * @param type the type to bind settings to
+	 * @return the binder for the given type
+	 * @throws IllegalArgumentException when the given type or one of its property types is not supported
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> SettingsBinder<T> of(Class<T> type) {
+		return (SettingsBinder<T>) binders.get(type);
+	}
+
+	/**
+	 * Binds the given settings to the given type.
+	 *
+	 * @param <T> the type to bind settings to
+	 * @param settings the settings to bind
+	 * @param type the type to bind settings to
+	 * @return an instance of the given type holding the converted settings
+	 * @throws IllegalArgumentException when the given type is not supported, or when settings are missing or invalid
+	 */
+	public static <T> T bind(Map<String, String> settings, Class<T> type) {
+		return of(type).bind(settings);
+	}
+
+	/**
+	 * Binds the given settings.
+	 *
+	 * @param settings the settings to bind
+	 * @return an instance of the type of this binder holding the converted settings
+	 * @throws IllegalArgumentException when settings are missing or invalid
+	 */
+	public T bind(Map<String, String> settings) {
+		return bind(settings, "");
+	}
+
+	/**
+	 * Binds the given settings, wherein the key of every setting is prefixed with the given prefix.
+	 *
+	 * @param settings the settings to bind
+	 * @param keyPrefix the prefix for the key of every setting, e.g. <code>"mail."</code>
+	 * @return an instance of the type of this binder holding the converted settings
+	 * @throws IllegalArgumentException when settings are missing or invalid
+	 */
+	public T bind(Map<String, String> settings, String keyPrefix) {
+		Object[] values = new Object[properties.size()];
+		List<String> errors = new ArrayList<>();
+
+		for (int i = 0; i < values.length; i++) {
+			Property property = properties.get(i);
+			String key = keyPrefix + property.key;
+			String value = settings.get(key);
+
+			if (value == null) {
+				value = property.defaultValue;
+			}
+
+			if (value == null) {
+				if (property.optional) {
+					values[i] = Optional.empty();
+				}
+				else {
+					errors.add(String.format("Missing required setting '%s'.", key));
+				}
+
+				continue;
+			}
+
+			try {
+				Object converted = property.converter.apply(value.trim());
+				values[i] = property.optional ? Optional.of(converted) : converted;
+			}
+			catch (RuntimeException e) {
+				errors.add(String.format("Invalid value '%s' for setting '%s' of type %s: %s", value, key, property.type.getTypeName(), e));
+			}
+		}
+
+		if (!errors.isEmpty()) {
+			throw new IllegalArgumentException("Cannot bind settings to " + type.getName() + ":\n" + String.join("\n", errors));
+		}
+
+		return factory.apply(values);
+	}
+
+	public Class<T> getType() {
+		return type;
+	}
+
+	// Compilation per kind of type -----------------------------------------------------------------------------------------------------------
+
+	private static <T> Function<Object[], T> compileInterface(Class<T> type, List<Property> properties) {
+		List<String> names = new ArrayList<>();
+
+		for (Method method : type.getMethods()) {
+			if (Modifier.isAbstract(method.getModifiers()) && method.getParameterCount() == 0 && method.getDeclaringClass() != Object.class) {
+				String name = toPropertyName(method.getName());
+				properties.add(new Property(name, method.getGenericReturnType(), method.getAnnotation(Setting.class)));
+				names.add(method.getName());
+			}
+			else if (!Modifier.isStatic(method.getModifiers())) {
+				throw new IllegalArgumentException("Cannot bind settings to method " + method + ", it has parameters or is a default method");
+			}
+		}
+
+		return values -> {
+			Map<String, Object> valuesByMethodName = new HashMap<>();
+
+			for (int i = 0; i < values.length; i++) {
+				valuesByMethodName.put(names.get(i), values[i]);
+			}
+
+			return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, new SettingsInvocationHandler(type, valuesByMethodName)));
+		};
+	}
+
+	private static <T> Function<Object[], T> compileRecord(Class<T> type, List<Property> properties) {
+		Object[] components = (Object[]) invokeMethod(type, "getRecordComponents");
+		Class<?>[] parameterTypes = new Class<?>[components.length];
+
+		for (int i = 0; i < components.length; i++) {
+			String name = invokeMethod(components[i], "getName");
+			Method accessor = invokeMethod(components[i], "getAccessor");
+			parameterTypes[i] = invokeMethod(components[i], "getType");
+			properties.add(new Property(name, accessor.getGenericReturnType(), accessor.getAnnotation(Setting.class)));
+		}
+
+		Constructor<T> constructor;
+
+		try {
+			constructor = type.getDeclaredConstructor(parameterTypes);
+			constructor.setAccessible(true);
+		}
+		catch (NoSuchMethodException | RuntimeException e) {
+			throw new IllegalArgumentException("Cannot access canonical constructor of " + type, e);
+		}
+
+		return values -> {
+			try {
+				return constructor.newInstance(values);
+			}
+			catch (ReflectiveOperationException e) {
+				throw new IllegalStateException(e);
+			}
+		};
+	}
+
+	private static <T> Function<Object[], T> compileBean(Class<T> type, List<Property> properties) {
+		findConstructor(type).orElseThrow(() -> new IllegalArgumentException("Cannot bind settings to " + type
+			+ ", it is not an interface, a record, or a bean with a public default constructor"));
+
+		List<Method> setters = new ArrayList<>();
+
+		try {
+			for (PropertyDescriptor descriptor : Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors()) {
+				Method setter = descriptor.getWriteMethod();
+
+				if (setter != null) {
+					Method getter = descriptor.getReadMethod();
+					Setting setting = setter.getAnnotation(Setting.class);
+
+					if (setting == null && getter != null) {
+						setting = getter.getAnnotation(Setting.class);
+					}
+
+					properties.add(new Property(descriptor.getName(), setter.getGenericParameterTypes()[0], setting));
+					setters.add(setter);
+				}
+			}
+		}
+		catch (IntrospectionException e) {
+			throw new IllegalArgumentException(e);
+		}
+
+		return values -> {
+			T bean = instantiate(type);
+
+			for (int i = 0; i < values.length; i++) {
+				invokeMethod(bean, setters.get(i), values[i]);
+			}
+
+			return bean;
+		};
+	}
+
+	private static boolean isRecord(Class<?> type) {
+		// Records are only available as of Java 16, whereas this library targets Java 11.
+		Class<?> superclass = type.getSuperclass();
+		return superclass != null && "java.lang.Record".equals(superclass.getName());
+	}
+
+	private static String toPropertyName(String methodName) {
+		for (String prefix : new String[] { "get", "is" }) {
+			if (methodName.length() > prefix.length() && methodName.startsWith(prefix) && Character.isUpperCase(methodName.charAt(prefix.length()))) {
+				return Introspector.decapitalize(methodName.substring(prefix.length()));
+			}
+		}
+
+		return methodName;
+	}
+
+	// Converters -----------------------------------------------------------------------------------------------------------------------------
+
+	private static Function<String, ?> compileConverter(Type type) {
+		if (type instanceof ParameterizedType) {
+			ParameterizedType parameterizedType = (ParameterizedType) type;
+			Class<?> rawType = (Class<?>) parameterizedType.getRawType();
+			Type elementType = parameterizedType.getActualTypeArguments()[0];
+
+			if (rawType == List.class || rawType == Collection.class) {
+				Function<String, ?> elementConverter = compileConverter(elementType);
+				return value -> unmodifiableList(split(value).stream().map(elementConverter).collect(toList()));
+			}
+			else if (rawType == Set.class) {
+				Function<String, ?> elementConverter = compileConverter(elementType);
+				return value -> unmodifiableSet(new LinkedHashSet<>(split(value).stream().map(elementConverter).collect(toList())));
+			}
+		}
+		else if (type instanceof Class) {
+			return compileConverter((Class<?>) type);
+		}
+
+		throw new IllegalArgumentException("Cannot bind settings to type " + type.getTypeName());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Function<String, ?> compileConverter(Class<?> type) {
+		if (type == String.class) {
+			return Function.identity();
+		}
+		else if (type == int.class || type == Integer.class) {
+			return Integer::valueOf;
+		}
+		else if (type == long.class || type == Long.class) {
+			return Long::valueOf;
+		}
+		else if (type == boolean.class || type == Boolean.class) {
+			return SettingsBinder::parseBoolean;
+		}
+		else if (type == double.class || type == Double.class) {
+			return Double::valueOf;
+		}
+		else if (type == float.class || type == Float.class) {
+			return Float::valueOf;
+		}
+		else if (type == short.class || type == Short.class) {
+			return Short::valueOf;
+		}
+		else if (type == byte.class || type == Byte.class) {
+			return Byte::valueOf;
+		}
+		else if (type == char.class || type == Character.class) {
+			return SettingsBinder::parseCharacter;
+		}
+		else if (type == BigDecimal.class) {
+			return BigDecimal::new;
+		}
+		else if (type == BigInteger.class) {
+			return BigInteger::new;
+		}
+		else if (type == Duration.class) {
+			return SettingsBinder::parseDuration;
+		}
+		else if (type.isEnum()) {
+			Class<? extends Enum> enumType = (Class<? extends Enum>) type;
+			return value -> Enum.valueOf(enumType, value);
+		}
+
+		return compileFactoryMethodConverter(type);
+	}
+
+	private static Function<String, ?> compileFactoryMethodConverter(Class<?> type) {
+		for (Method method : type.getMethods()) {
+			if (Modifier.isStatic(method.getModifiers()) && type.isAssignableFrom(method.getReturnType()) && method.getParameterCount() == 1
+				&& (method.getName().equals("valueOf") && method.getParameterTypes()[0] == String.class
+					|| method.getName().equals("parse") && method.getParameterTypes()[0] == CharSequence.class))
+			{
+				return value -> invoke(() -> method.invoke(null, value));
+			}
+		}
+
+		Optional<? extends Constructor<?>> constructor = findConstructor(type, String.class);
+
+		if (constructor.isPresent()) {
+			return value -> invoke(() -> constructor.get().newInstance(value));
+		}
+
+		throw new IllegalArgumentException("Cannot bind settings to type " + type.getName());
+	}
+
+	private static Object invoke(ReflectiveCall call) {
+		try {
+			return call.invoke();
+		}
+		catch (ReflectiveOperationException e) {
+			Throwable cause = e.getCause() != null ? e.getCause() : e;
+			throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalArgumentException(cause);
+		}
+	}
+
+	@FunctionalInterface
+	private interface ReflectiveCall {
+		Object invoke() throws ReflectiveOperationException;
+	}
+
+	private static List<String> split(String value) {
+		return value.isEmpty() ? Arrays.asList() : Arrays.stream(value.split(",")).map(String::trim).collect(toList());
+	}
+
+	private static Boolean parseBoolean(String value) {
+		if ("true".equalsIgnoreCase(value)) {
+			return true;
+		}
+		else if ("false".equalsIgnoreCase(value)) {
+			return false;
+		}
+
+		throw new IllegalArgumentException("Not a boolean");
+	}
+
+	private static Character parseCharacter(String value) {
+		if (value.length() != 1) {
+			throw new IllegalArgumentException("Not a single character");
+		}
+
+		return value.charAt(0);
+	}
+
+	private static Duration parseDuration(String value) {
+		if (value.startsWith("P") || value.startsWith("-P")) {
+			return Duration.parse(value);
+		}
+
+		Matcher matcher = DURATION_PATTERN.matcher(value);
+
+		if (!matcher.matches()) {
+			throw new IllegalArgumentException("Not a duration");
+		}
+
+		long amount = Long.parseLong(matcher.group(1));
+		String unit = matcher.group(2) == null ? "ms" : matcher.group(2);
+
+		switch (unit) {
+			case "s": return Duration.ofSeconds(amount);
+			case "m": return Duration.ofMinutes(amount);
+			case "h": return Duration.ofHours(amount);
+			case "d": return Duration.ofDays(amount);
+			default: return Duration.ofMillis(amount);
+		}
+	}
+
+	// Nested classes -------------------------------------------------------------------------------------------------------------------------
+
+	private static class Property {
+
+		private final String key;
+		private final Type type;
+		private final boolean optional;
+		private final String defaultValue;
+		private final Function<String, ?> converter;
+
+		private Property(String name, Type type, Setting setting) {
+			this.key = setting != null && !setting.key().isEmpty() ? setting.key() : name;
+			this.type = type;
+
+			if (setting != null && setting.defaultValue().length > 1) {
+				throw new IllegalArgumentException("At most one default value can be given for setting " + key);
+			}
+
+			this.defaultValue = setting != null && setting.defaultValue().length == 1 ? setting.defaultValue()[0] : null;
+
+			if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == Optional.class) {
+				this.optional = true;
+				this.converter = compileConverter(((ParameterizedType) type).getActualTypeArguments()[0]);
+			}
+			else {
+				this.optional = false;
+				this.converter = compileConverter(type);
+			}
+		}
+	}
+
+	private static class SettingsInvocationHandler implements InvocationHandler {
+
+		private final Class<?> type;
+		private final Map<String, Object> values;
+
+		private SettingsInvocationHandler(Class<?> type, Map<String, Object> values) {
+			this.type = type;
+			this.values = values;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "equals":
+					return args.length == 1 && args[0] != null && Proxy.isProxyClass(args[0].getClass())
+						&& Proxy.getInvocationHandler(args[0]) instanceof SettingsInvocationHandler
+						&& type == ((SettingsInvocationHandler) Proxy.getInvocationHandler(args[0])).type
+						&& values.equals(((SettingsInvocationHandler) Proxy.getInvocationHandler(args[0])).values);
+				case "hashCode":
+					return Objects.hash(type, values);
+				case "toString":
+					return type.getSimpleName() + values;
+				default:
+					return values.get(method.getName());
+			}
+		}
+	}
+
+}
@@ -127,11 +127,30 @@ public final class Certificates {
 	 * @return a random RSA keypair
 	 */
 	public static KeyPair generateRandomRSAKeys() {
+		return createKeyPairGenerator("RSA", "BC", 2048).generateKeyPair();
+	}
+
+	/**
+	 * Creates a key pair generator for the given algorithm, provider and key size.
+	 *
+	 * <p>
+	 * Key pair generators are not thread safe, so the returned instance should not be shared between threads. When many
+	 * key pairs are needed, consider a {@link KeyPairPool} instead, which generates them in the background.
+	 *
+	 * @param algorithm the key algorithm, e.g. "RSA"
+	 * @param provider the security provider name, or <code>null</code> to use the most preferred provider
+	 * @param keySize the key size in bits
+	 * @return a key pair generator initialized with the given key size
+	 * @throws IllegalStateException when the algorithm or provider is not available
+	 */
+	public static KeyPairGenerator createKeyPairGenerator(String algorithm, String provider, int keySize) {
 		try {
-			KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA", "BC");
-			keyPairGenerator.initialize(2048);
+			KeyPairGenerator keyPairGenerator = provider == null ?
+				KeyPairGenerator.getInstance(algorithm) :
+				KeyPairGenerator.getInstance(algorithm, provider);
+			keyPairGenerator.initialize(keySize);
 
-			return keyPairGenerator.generateKeyPair();
+			return keyPairGenerator;
 		} catch (NoSuchAlgorithmException | NoSuchProviderException e) {
 			throw new IllegalStateException(e);
 		}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.security;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.logging.Level.SEVERE;
+import static org.omnifaces.utils.security.Certificates.createKeyPairGenerator;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * A pool of key pairs which are pre-generated in the background.
+ *
+ * <p>
+ * Generating a key pair, especially an RSA one, can take hundreds of milliseconds. This pool keeps up to a configured
+ * watermark of key pairs ready, generated in parallel by a number of daemon worker threads. As soon as a key pair is
+ * taken from the pool, a worker starts generating a replacement. When the pool is empty, {@link #get()} falls back to
+ * generating a key pair on the caller's thread, so callers are never worse off than calling
+ * {@link Certificates#generateRandomRSAKeys()} directly.
+ *
+ * <p>
+ * Each key pair is handed out only once. The pool should be {@link #close() closed} when no longer needed in order to
+ * stop the worker threads. A worker which fails to generate a key pair logs the failure and retries after a backoff
+ * which doubles on every consecutive failure up to one minute, so the pool recovers once the cause is gone.
+ */
+public class KeyPairPool implements AutoCloseable {
+
+	private static final Logger logger = Logger.getLogger(KeyPairPool.class.getName());
+	private static final AtomicInteger poolNumber = new AtomicInteger();
+	private static final long MIN_BACKOFF_MILLIS = 100;
+	private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+	private final String algorithm;
+	private final String provider;
+	private final int keySize;
+	private final int watermark;
+	private final Supplier<KeyPairGenerator> keyPairGenerators;
+
+	private final BlockingQueue<KeyPair> pool;
+	private final ExecutorService workers;
+
+	private final LongAdder generatedCount = new LongAdder();
+	private final LongAdder generationTimeNanos = new LongAdder();
+	private final AtomicLong maxGenerationTimeNanos = new AtomicLong();
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder failureCount = new LongAdder();
+
+	private volatile boolean closed;
+
+	/**
+	 * Creates a pool of 2048 bits RSA key pairs using the default provider, with the given watermark and one worker
+	 * thread per available processor.
+	 *
+	 * @param watermark the maximum number of key pairs to keep ready
+	 */
+	public KeyPairPool(int watermark) {
+		this("RSA", null, 2048, watermark, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a pool of key pairs.
+	 *
+	 * @param algorithm the key algorithm, e.g. "RSA"
+	 * @param provider the security provider name, or <code>null</code> to use the most preferred provider
+	 * @param keySize the key size in bits
+	 * @param watermark the maximum number of key pairs to keep ready
+	 * @param parallelism the number of worker threads generating key pairs
+	 * @throws IllegalArgumentException when watermark or parallelism is less than 1
+	 * @throws IllegalStateException when the algorithm or provider is not available
+	 */
+	public KeyPairPool(String algorithm, String provider, int keySize, int watermark, int parallelism) {
+		this(algorithm, provider, keySize, watermark, parallelism, () -> createKeyPairGenerator(algorithm, provider, keySize));
+	}
+
+	KeyPairPool(String algorithm, String provider, int keySize, int watermark, int parallelism, Supplier<KeyPairGenerator> keyPairGenerators) {
+		if (watermark < 1) {
+			throw new IllegalArgumentException("Watermark must be greater than 0");
+		}
+
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be greater than 0");
+		}
+
+		// Fail fast on an unknown algorithm, provider or key size instead of in the workers.
+		keyPairGenerators.get();
+
+		this.algorithm = algorithm;
+		this.provider = provider;
+		this.keySize = keySize;
+		this.watermark = watermark;
+		this.keyPairGenerators = keyPairGenerators;
+		this.pool = new LinkedBlockingQueue<>(watermark);
+
+		String threadNamePrefix = "KeyPairPool-" + poolNumber.incrementAndGet() + "-worker-";
+		AtomicInteger threadNumber = new AtomicInteger();
+
+		this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread thread = new Thread(runnable, threadNamePrefix + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		for (int i = 0; i < parallelism; i++) {
+			workers.execute(this::fill);
+		}
+	}
+
+	/**
+	 * Returns a key pair from the pool, or generates one on the caller's thread when the pool is currently empty.
+	 *
+	 * @return a key pair that has not been handed out before
+	 */
+	public KeyPair get() {
+		KeyPair keyPair = pool.poll();
+
+		if (keyPair != null) {
+			hitCount.increment();
+			return keyPair;
+		}
+
+		missCount.increment();
+		return generate(keyPairGenerators.get());
+	}
+
+	/**
+	 * Returns a key pair from the pool if one is available right now.
+	 *
+	 * @return a key pair that has not been handed out before, or an empty optional when the pool is currently empty
+	 */
+	public Optional<KeyPair> poll() {
+		KeyPair keyPair = pool.poll();
+
+		if (keyPair != null) {
+			hitCount.increment();
+		}
+
+		return Optional.ofNullable(keyPair);
+	}
+
+	/**
+	 * Stops the worker threads and discards all key pairs that were not handed out yet.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		workers.shutdownNow();
+		pool.clear();
+	}
+
+	private void fill() {
+		long backoffMillis = 0;
+
+		while (!closed) {
+			try {
+				KeyPairGenerator keyPairGenerator = keyPairGenerators.get();
+
+				while (!closed) {
+					KeyPair keyPair = generate(keyPairGenerator);
+					backoffMillis = 0;
+
+					// Blocks while the pool is at its watermark, and continues as soon as a key pair is taken.
+					while (!closed && !pool.offer(keyPair, 100, MILLISECONDS)) {
+						// Keep waiting.
+					}
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (RuntimeException e) {
+				failureCount.increment();
+				backoffMillis = Math.min(Math.max(MIN_BACKOFF_MILLIS, backoffMillis * 2), MAX_BACKOFF_MILLIS);
+				logger.log(SEVERE, "Error while generating key pair, retrying in " + backoffMillis + " ms.", e);
+
+				try {
+					Thread.sleep(backoffMillis);
+				}
+				catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	private KeyPair generate(KeyPairGenerator keyPairGenerator) {
+		long start = System.nanoTime();
+		KeyPair keyPair = keyPairGenerator.generateKeyPair();
+		long duration = System.nanoTime() - start;
+
+		generatedCount.increment();
+		generationTimeNanos.add(duration);
+		maxGenerationTimeNanos.accumulateAndGet(duration, Math::max);
+
+		return keyPair;
+	}
+
+	/**
+	 * Returns the number of key pairs that are currently ready in the pool.
+	 *
+	 * @return the current pool depth
+	 */
+	public int getPoolDepth() {
+		return pool.size();
+	}
+
+	/**
+	 * Returns the maximum number of key pairs that are kept ready in the pool.
+	 *
+	 * @return the watermark
+	 */
+	public int getWatermark() {
+		return watermark;
+	}
+
+	/**
+	 * Returns the total number of key pairs generated, both by the workers and on callers' threads.
+	 *
+	 * @return the total number of key pairs generated
+	 */
+	public long getGeneratedCount() {
+		return generatedCount.sum();
+	}
+
+	/**
+	 * Returns the average time it took to generate a single key pair, in nanoseconds.
+	 *
+	 * @return the average generation latency in nanoseconds, or 0 when no key pair was generated yet
+	 */
+	public long getAverageGenerationTimeNanos() {
+		long count = generatedCount.sum();
+		return count == 0 ? 0 : generationTimeNanos.sum() / count;
+	}
+
+	/**
+	 * Returns the longest time it took to generate a single key pair, in nanoseconds.
+	 *
+	 * @return the maximum generation latency in nanoseconds, or 0 when no key pair was generated yet
+	 */
+	public long getMaxGenerationTimeNanos() {
+		return maxGenerationTimeNanos.get();
+	}
+
+	/**
+	 * Returns the number of times a key pair was immediately available in the pool.
+	 *
+	 * @return the number of pool hits
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * Returns the number of times {@link #get()} found the pool empty and generated a key pair on the caller's thread.
+	 *
+	 * @return the number of pool misses
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * Returns the number of times a worker failed to generate a key pair and backed off before retrying.
+	 *
+	 * @return the number of worker failures
+	 */
+	public long getFailureCount() {
+		return failureCount.sum();
+	}
+
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	public int getKeySize() {
+		return keySize;
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Spliterator over chunks of adjacent elements of a source, of which the bound is checked by a fresh predicate per chunk, looking ahead a
+ * single element. The predicate is tested on every element of its chunk, so that it can keep track of e.g. the total weight so far. The
+ * first element of a chunk is always taken, also when it does not pass. A chunk ends before the first next element which does not pass.
+ * This covers chunks by count, weight or time as well as groups of equal elements, for which the predicate compares every element to the
+ * first one.
+ *
+ * <p>
+ * As the start of a chunk depends on all elements before it, this spliterator does not split.
+ */
+class BoundedChunkSpliterator<T> implements Spliterator<List<T>> {
+
+	private final Spliterator<T> source;
+	private final Supplier<Predicate<T>> boundFactory;
+
+	private T next;
+	private boolean hasNext;
+
+	BoundedChunkSpliterator(Spliterator<T> source, Supplier<Predicate<T>> boundFactory) {
+		this.source = source;
+		this.boundFactory = boundFactory;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super List<T>> action) {
+		if (!hasNext && !source.tryAdvance(this::setNext)) {
+			return false;
+		}
+
+		Predicate<T> bound = boundFactory.get();
+		List<T> chunk = new ArrayList<>();
+		bound.test(next);
+		chunk.add(next);
+		hasNext = false;
+
+		while (source.tryAdvance(this::setNext)) {
+			if (!bound.test(next)) {
+				break;
+			}
+
+			chunk.add(next);
+			hasNext = false;
+		}
+
+		if (!hasNext) {
+			next = null;
+		}
+
+		action.accept(chunk);
+		return true;
+	}
+
+	private void setNext(T element) {
+		next = element;
+		hasNext = true;
+	}
+
+	@Override
+	public Spliterator<List<T>> trySplit() {
+		return null;
+	}
+
+	@Override
+	public long estimateSize() {
+		return source.estimateSize();
+	}
+
+	@Override
+	public int characteristics() {
+		return (source.characteristics() & ORDERED) | NONNULL;
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.stream;
+
+import static java.util.stream.Collector.Characteristics.UNORDERED;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * Collects the k least elements by a comparator in a bounded binary max-heap, whose root is the greatest element kept so far. An element
+ * is only added when the heap is not full yet or when it is less than the root, which it then replaces. This takes O(n log k) time and
+ * O(min(n, k)) memory, instead of the O(n log n) time and O(n) memory of sorting all elements. Partial heaps of a parallel stream are merged by
+ * offering the elements of the smaller one to the larger one.
+ */
+class BoundedHeapCollector<T> implements Collector<T, BoundedHeapCollector.BoundedHeap<T>, List<T>> {
+
+	/** The initial capacity of a heap, which grows by doubling up to k, so that a large k costs no memory up front. */
+	static final int INITIAL_CAPACITY = 16;
+
+	private final int k;
+	private final Comparator<? super T> comparator;
+
+	BoundedHeapCollector(int k, Comparator<? super T> comparator) {
+		if (k < 0) {
+			throw new IllegalArgumentException("k must not be negative");
+		}
+
+		this.k = k;
+		this.comparator = comparator;
+	}
+
+	static class BoundedHeap<T> {
+
+		private final int k;
+		private final Comparator<? super T> comparator;
+		private Object[] heap;
+		private int size;
+
+		BoundedHeap(int k, Comparator<? super T> comparator) {
+			this.k = k;
+			this.comparator = comparator;
+			this.heap = new Object[Math.min(k, INITIAL_CAPACITY)];
+		}
+
+		void offer(T element) {
+			if (size < k) {
+				if (size == heap.length) {
+					heap = Arrays.copyOf(heap, (int) Math.min(k, size * 2L));
+				}
+
+				heap[size] = element;
+				siftUp(size++);
+			}
+			else if (size > 0 && comparator.compare(element, get(0)) < 0) {
+				heap[0] = element;
+				siftDown(0, size);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		BoundedHeap<T> merge(BoundedHeap<T> other) {
+			BoundedHeap<T> larger = size >= other.size ? this : other;
+			BoundedHeap<T> smaller = larger == this ? other : this;
+
+			for (int i = 0; i < smaller.size; i++) {
+				larger.offer((T) smaller.heap[i]);
+			}
+
+			return larger;
+		}
+
+		/**
+		 * Sorts the heap in place by repeatedly moving the root behind the shrinking heap, and returns it as a list.
+		 */
+		@SuppressWarnings("unchecked")
+		List<T> toSortedList() {
+			for (int end = size - 1; end > 0; end--) {
+				swap(0, end);
+				siftDown(0, end);
+			}
+
+			return (List<T>) Arrays.asList(Arrays.copyOf(heap, size));
+		}
+
+		@SuppressWarnings("unchecked")
+		private T get(int index) {
+			return (T) heap[index];
+		}
+
+		private void siftUp(int index) {
+			for (int child = index, parent; child > 0 && comparator.compare(get(child), get(parent = (child - 1) / 2)) > 0; child = parent) {
+				swap(child, parent);
+			}
+		}
+
+		private void siftDown(int index, int end) {
+			for (int parent = index;;) {
+				int largest = parent;
+				int left = parent * 2 + 1;
+				int right = left + 1;
+
+				if (left < end && comparator.compare(get(left), get(largest)) > 0) {
+					largest = left;
+				}
+
+				if (right < end && comparator.compare(get(right), get(largest)) > 0) {
+					largest = right;
+				}
+
+				if (largest == parent) {
+					return;
+				}
+
+				swap(parent, largest);
+				parent = largest;
+			}
+		}
+
+		private void swap(int i, int j) {
+			Object element = heap[i];
+			heap[i] = heap[j];
+			heap[j] = element;
+		}
+	}
+
+	@Override
+	public Supplier<BoundedHeap<T>> supplier() {
+		return () -> new BoundedHeap<>(k, comparator);
+	}
+
+	@Override
+	public BiConsumer<BoundedHeap<T>, T> accumulator() {
+		return BoundedHeap::offer;
+	}
+
+	@Override
+	public BinaryOperator<BoundedHeap<T>> combiner() {
+		return BoundedHeap::merge;
+	}
+
+	@Override
+	public Function<BoundedHeap<T>, List<T>> finisher() {
+		return BoundedHeap::toSortedList;
+	}
+
+	@Override
+	public Set<Characteristics> characteristics() {
+		return EnumSet.of(UNORDERED);
+	}
+}
@@ -14,6 +14,7 @@ package org.omnifaces.utils.stream;
 
 import static java.util.Comparator.naturalOrder;
 import static java.util.function.Function.identity;
+import static java.util.stream.Collector.Characteristics.UNORDERED;
 
 import java.util.Comparator;
 import java.util.LinkedHashMap;
@@ -24,9 +25,15 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collector;
 import java.util.stream.Stream;
 
+import org.omnifaces.utils.collection.IntSet;
+import org.omnifaces.utils.collection.LongLongMap;
+import org.omnifaces.utils.collection.LongObjectMap;
+
 public final class Collectors {
 
 	private Collectors() {
@@ -44,6 +51,113 @@ public final class Collectors {
 		return java.util.stream.Collectors.toCollection(LinkedHashSet::new);
 	}
 
+	/**
+	 * Returns a collector which collects the <code>int</code> values mapped from the elements into an {@link IntSet}. An
+	 * {@link java.util.stream.IntStream} can be collected without boxing via
+	 * <code>intStream.collect(IntSet::new, IntSet::add, IntSet::addAll)</code>.
+	 *
+	 * @param <T> The type of the elements
+	 * @param mapper The function mapping an element to a value.
+	 * @return A collector which collects into an {@link IntSet}.
+	 */
+	public static <T> Collector<T, ?, IntSet> toIntSet(ToIntFunction<? super T> mapper) {
+		return Collector.of(IntSet::new, (set, element) -> set.add(mapper.applyAsInt(element)), (left, right) -> {
+			left.addAll(right);
+			return left;
+		}, UNORDERED);
+	}
+
+	/**
+	 * Returns a collector which collects the elements into a {@link LongObjectMap} by the <code>long</code> keys mapped from them.
+	 *
+	 * @param <T> The type of the elements
+	 * @param keyMapper The function mapping an element to its key.
+	 * @return A collector which collects into a {@link LongObjectMap}.
+	 * @throws IllegalStateException When two elements have the same key.
+	 */
+	public static <T> Collector<T, ?, LongObjectMap<T>> toLongObjectMap(ToLongFunction<? super T> keyMapper) {
+		return toLongObjectMap(keyMapper, identity());
+	}
+
+	/**
+	 * Returns a collector which collects the values mapped from the elements into a {@link LongObjectMap} by the <code>long</code> keys
+	 * mapped from them.
+	 *
+	 * @param <T> The type of the elements
+	 * @param <V> The type of the values
+	 * @param keyMapper The function mapping an element to its key.
+	 * @param valueMapper The function mapping an element to its value, which must not be <code>null</code>.
+	 * @return A collector which collects into a {@link LongObjectMap}.
+	 * @throws IllegalStateException When two elements have the same key.
+	 */
+	public static <T, V> Collector<T, ?, LongObjectMap<V>> toLongObjectMap(ToLongFunction<? super T> keyMapper, Function<? super T, ? extends V> valueMapper) {
+		return Collector.of(LongObjectMap::new, (map, element) -> putUnique(map, keyMapper.applyAsLong(element), valueMapper.apply(element)), (left, right) -> {
+			right.forEach((key, value) -> putUnique(left, key, value));
+			return left;
+		}, UNORDERED);
+	}
+
+	/**
+	 * Returns a collector which collects the <code>long</code> values mapped from the elements into a {@link LongLongMap} by the
+	 * <code>long</code> keys mapped from them.
+	 *
+	 * @param <T> The type of the elements
+	 * @param keyMapper The function mapping an element to its key.
+	 * @param valueMapper The function mapping an element to its value.
+	 * @return A collector which collects into a {@link LongLongMap}.
+	 * @throws IllegalStateException When two elements have the same key.
+	 */
+	public static <T> Collector<T, ?, LongLongMap> toLongLongMap(ToLongFunction<? super T> keyMapper, ToLongFunction<? super T> valueMapper) {
+		return Collector.of(LongLongMap::new, (map, element) -> putUnique(map, keyMapper.applyAsLong(element), valueMapper.applyAsLong(element)), (left, right) -> {
+			right.forEach((key, value) -> putUnique(left, key, value));
+			return left;
+		}, UNORDERED);
+	}
+
+	private static <V> void putUnique(LongObjectMap<V> map, long key, V value) {
+		if (map.put(key, value) != null) {
+			throw new IllegalStateException("Duplicate key " + key);
+		}
+	}
+
+	private static void putUnique(LongLongMap map, long key, long value) {
+		if (map.containsKey(key)) {
+			throw new IllegalStateException("Duplicate key " + key);
+		}
+
+		map.put(key, value, 0);
+	}
+
+	/**
+	 * Returns a collector which collects the k greatest elements by the given comparator, in descending order. Only k elements per thread
+	 * are kept in memory, in a bounded heap, so this takes O(n log k) time instead of the O(n log n) time of sorting the whole stream and
+	 * limiting it. Which of equal elements are returned is not defined.
+	 *
+	 * @param <T> The type of the elements
+	 * @param k The maximum number of elements to collect.
+	 * @param comparator The comparator to order the elements by.
+	 * @return A collector which collects the k greatest elements in descending order.
+	 * @throws IllegalArgumentException When k is negative.
+	 */
+	public static <T> Collector<T, ?, List<T>> topK(int k, Comparator<? super T> comparator) {
+		return new BoundedHeapCollector<T>(k, comparator.reversed());
+	}
+
+	/**
+	 * Returns a collector which collects the k least elements by the given comparator, in ascending order. Only k elements per thread are
+	 * kept in memory, in a bounded heap, so this takes O(n log k) time instead of the O(n log n) time of sorting the whole stream and
+	 * limiting it. Which of equal elements are returned is not defined.
+	 *
+	 * @param <T> The type of the elements
+	 * @param k The maximum number of elements to collect.
+	 * @param comparator The comparator to order the elements by.
+	 * @return A collector which collects the k least elements in ascending order.
+	 * @throws IllegalArgumentException When k is negative.
+	 */
+	public static <T> Collector<T, ?, List<T>> bottomK(int k, Comparator<? super T> comparator) {
+		return new BoundedHeapCollector<>(k, comparator);
+	}
+
 	public static <T> Collector<T, ?, Void> forEachBatch(Consumer<List<T>> batchConsumer, int batchSize) {
 		return new ForEachBatchCollector<>(batchConsumer, batchSize);
 	}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.stream;
+
+import java.util.Arrays;
+
+/**
+ * The primitive counterpart of {@link BoundedHeapCollector.BoundedHeap}, keeping the k least <code>long</code> keys without boxing. The
+ * streams of {@link Streams#topK(java.util.stream.LongStream, int)} and friends map their values to keys whose natural order is the
+ * requested order: <code>int</code> values are widened, <code>double</code> values are mapped to their sortable bits, and for the greatest
+ * values the bits are inverted.
+ */
+final class LongBoundedHeap {
+
+	private final int k;
+	private long[] heap;
+	private int size;
+
+	LongBoundedHeap(int k) {
+		this.k = k;
+		heap = new long[Math.min(k, BoundedHeapCollector.INITIAL_CAPACITY)];
+	}
+
+	void offer(long key) {
+		if (size < k) {
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, (int) Math.min(k, size * 2L));
+			}
+
+			heap[size] = key;
+			siftUp(size++);
+		}
+		else if (size > 0 && key < heap[0]) {
+			heap[0] = key;
+			siftDown(0, size);
+		}
+	}
+
+	void merge(LongBoundedHeap other) {
+		for (int i = 0; i < other.size; i++) {
+			offer(other.heap[i]);
+		}
+	}
+
+	/**
+	 * Returns the keys in ascending order.
+	 */
+	long[] toSortedArray() {
+		long[] sorted = Arrays.copyOf(heap, size);
+		Arrays.sort(sorted);
+		return sorted;
+	}
+
+	static long toSortableBits(double value) {
+		long bits = Double.doubleToLongBits(value);
+		return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+	}
+
+	static double fromSortableBits(long key) {
+		return Double.longBitsToDouble(key ^ ((key >> 63) & Long.MAX_VALUE));
+	}
+
+	private void siftUp(int index) {
+		for (int child = index, parent; child > 0 && heap[child] > heap[parent = (child - 1) / 2]; child = parent) {
+			swap(child, parent);
+		}
+	}
+
+	private void siftDown(int index, int end) {
+		for (int parent = index;;) {
+			int largest = parent;
+			int left = parent * 2 + 1;
+			int right = left + 1;
+
+			if (left < end && heap[left] > heap[largest]) {
+				largest = left;
+			}
+
+			if (right < end && heap[right] > heap[largest]) {
+				largest = right;
+			}
+
+			if (largest == parent) {
+				return;
+			}
+
+			swap(parent, largest);
+			parent = largest;
+		}
+	}
+
+	private void swap(int i, int j) {
+		long key = heap[i];
+		heap[i] = heap[j];
+		heap[j] = key;
+	}
+
+}
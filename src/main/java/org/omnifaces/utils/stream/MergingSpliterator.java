@@ -0,0 +1,184 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.stream;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator merging sources which are each sorted by the same comparator into one sorted sequence, pulling a single element from a
+ * source at a time, and only once the element before it from that source was consumed.
+ *
+ * <p>
+ * The sources are kept in a binary min-heap ordered by their current head element, so that every element takes O(log k) comparisons for
+ * k sources. Equal heads are ordered by source index, so that the merge is stable: equal elements appear in the order of their sources.
+ * Optionally, elements equal to the previously returned one are skipped.
+ */
+class MergingSpliterator<T> implements Spliterator<T> {
+
+	private final Spliterator<? extends T>[] sources;
+	private final Comparator<? super T> comparator;
+	private final boolean distinct;
+
+	private final Object[] heads;
+	private final int[] heap;
+	private int size = -1;
+	private T previous;
+	private boolean hasPrevious;
+	private boolean refill;
+
+	MergingSpliterator(Spliterator<? extends T>[] sources, Comparator<? super T> comparator, boolean distinct) {
+		this.sources = sources;
+		this.comparator = comparator;
+		this.distinct = distinct;
+		this.heads = new Object[sources.length];
+		this.heap = new int[sources.length];
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		if (size < 0) {
+			fill();
+		}
+
+		while (true) {
+			refill();
+
+			if (size == 0) {
+				return false;
+			}
+
+			int source = heap[0];
+			T element = head(source);
+			refill = true;
+
+			if (distinct) {
+				if (hasPrevious && comparator.compare(previous, element) == 0) {
+					continue;
+				}
+
+				previous = element;
+				hasPrevious = true;
+			}
+
+			action.accept(element);
+			return true;
+		}
+	}
+
+	@Override
+	public Spliterator<T> trySplit() {
+		return null;
+	}
+
+	@Override
+	public long estimateSize() {
+		long estimate = size > 0 ? size : 0;
+
+		for (Spliterator<? extends T> source : sources) {
+			estimate += source.estimateSize();
+
+			if (estimate < 0) {
+				return Long.MAX_VALUE;
+			}
+		}
+
+		return estimate;
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | SORTED;
+	}
+
+	@Override
+	public Comparator<? super T> getComparator() {
+		return comparator;
+	}
+
+	/**
+	 * Pulls the first element of every source and builds the heap of the nonempty ones.
+	 */
+	private void fill() {
+		size = 0;
+
+		for (int source = 0; source < sources.length; source++) {
+			if (advance(source)) {
+				heap[size++] = source;
+			}
+		}
+
+		for (int i = size / 2 - 1; i >= 0; i--) {
+			siftDown(i);
+		}
+	}
+
+	/**
+	 * Pulls the next element of the source whose head was returned last, if any. This is deferred until the next element is requested, so
+	 * that no source is pulled beyond what is consumed.
+	 */
+	private void refill() {
+		if (refill) {
+			int source = heap[0];
+			refill = false;
+
+			if (!advance(source)) {
+				heads[source] = null;
+				heap[0] = heap[--size];
+			}
+
+			siftDown(0);
+		}
+	}
+
+	private boolean advance(int source) {
+		return sources[source].tryAdvance(element -> heads[source] = element);
+	}
+
+	@SuppressWarnings("unchecked")
+	private T head(int source) {
+		return (T) heads[source];
+	}
+
+	private boolean isLess(int source1, int source2) {
+		int comparison = comparator.compare(head(source1), head(source2));
+		return comparison < 0 || (comparison == 0 && source1 < source2);
+	}
+
+	private void siftDown(int index) {
+		for (int parent = index;;) {
+			int least = parent;
+			int left = parent * 2 + 1;
+			int right = left + 1;
+
+			if (left < size && isLess(heap[left], heap[least])) {
+				least = left;
+			}
+
+			if (right < size && isLess(heap[right], heap[least])) {
+				least = right;
+			}
+
+			if (least == parent) {
+				return;
+			}
+
+			int source = heap[parent];
+			heap[parent] = heap[least];
+			heap[least] = source;
+			parent = least;
+		}
+	}
+
+}
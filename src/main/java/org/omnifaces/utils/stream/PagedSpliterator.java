@@ -0,0 +1,121 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.stream;
+
+import static org.omnifaces.utils.collection.PartialResultList.UNKNOWN_NUMBER_OF_RESULTS;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.omnifaces.utils.collection.PageLoader;
+import org.omnifaces.utils.collection.PartialResultList;
+
+/**
+ * Spliterator over the results of a {@link PageLoader}, holding at most one page at a time.
+ *
+ * <p>
+ * It covers a range of offsets, which is open ended unless it was split off. Splitting divides the pages which are not loaded yet in two
+ * halves by offset, based on the estimated total number of results. The prefix takes over the currently loaded page, if any, so that
+ * encounter order is retained. The suffix keeps the open end, so that results beyond an estimate which turns out to be too low are not
+ * lost, while an estimate which is too high merely results in short or empty pages.
+ */
+class PagedSpliterator<T> implements Spliterator<T> {
+
+	private final PageLoader<T> loader;
+	private final int pageSize;
+	private final int end;
+
+	private int offset;
+	private PartialResultList<T> page;
+	private int index;
+	private boolean exhausted;
+	private int estimatedTotalNumberOfResults = UNKNOWN_NUMBER_OF_RESULTS;
+
+	PagedSpliterator(PageLoader<T> loader, int pageSize, int offset, int end) {
+		this.loader = loader;
+		this.pageSize = pageSize;
+		this.offset = offset;
+		this.end = end;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		while (page == null || index >= page.size()) {
+			if (exhausted || offset >= end) {
+				page = null;
+				return false;
+			}
+
+			loadNextPage();
+		}
+
+		action.accept(page.get(index++));
+		return true;
+	}
+
+	@Override
+	public Spliterator<T> trySplit() {
+		if (page == null && estimatedTotalNumberOfResults == UNKNOWN_NUMBER_OF_RESULTS && !exhausted && offset < end) {
+			// The estimate is needed to split, and it is only known after the first page is loaded.
+			loadNextPage();
+		}
+
+		if (exhausted || estimatedTotalNumberOfResults == UNKNOWN_NUMBER_OF_RESULTS) {
+			return null;
+		}
+
+		int remainingPages = (Math.min(end, estimatedTotalNumberOfResults) - offset) / pageSize;
+
+		if (remainingPages < 2) {
+			return null;
+		}
+
+		int middle = offset + (remainingPages / 2) * pageSize;
+		PagedSpliterator<T> prefix = new PagedSpliterator<>(loader, pageSize, offset, middle);
+		prefix.page = page;
+		prefix.index = index;
+		prefix.estimatedTotalNumberOfResults = estimatedTotalNumberOfResults;
+
+		page = null;
+		index = 0;
+		offset = middle;
+
+		return prefix;
+	}
+
+	@Override
+	public long estimateSize() {
+		if (estimatedTotalNumberOfResults == UNKNOWN_NUMBER_OF_RESULTS && !exhausted) {
+			return end == Integer.MAX_VALUE ? Long.MAX_VALUE : end - offset;
+		}
+
+		long remainingInPage = page == null ? 0 : page.size() - index;
+		long remainingPages = exhausted ? 0 : Math.max(0, Math.min(end, estimatedTotalNumberOfResults) - offset);
+		return remainingInPage + remainingPages;
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED;
+	}
+
+	private void loadNextPage() {
+		int limit = (int) Math.min(pageSize, (long) end - offset);
+		page = loader.load(offset, limit);
+		index = 0;
+		estimatedTotalNumberOfResults = page.getEstimatedTotalNumberOfResults();
+		exhausted = page.size() < limit;
+		offset += limit;
+	}
+
+}
@@ -20,20 +20,36 @@ import static java.util.Spliterator.ORDERED;
 import static java.util.Spliterator.SORTED;
 import static java.util.Spliterators.spliteratorUnknownSize;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.RandomAccess;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+import org.omnifaces.utils.collection.IntSet;
+import org.omnifaces.utils.collection.LongLongMap;
+import org.omnifaces.utils.collection.LongObjectMap;
+import org.omnifaces.utils.collection.PageLoader;
+
 public class Streams {
 
+	/** Marks the first element of a group as not taken yet, as the elements themselves may be <code>null</code>. */
+	private static final Object NO_ELEMENT = new Object();
+
 	private static class ZippedIterator<T, U, R> implements Iterator<R> {
 
 		private final Iterator<? extends T> iterator1;
@@ -58,17 +74,74 @@ public class Streams {
 		}
 
 	}
+
+	/**
+	 * Returns a stream of the results of the given zip function applied to the elements of the given streams pairwise. When both streams
+	 * know their exact size and that of their splits, e.g. when they stream arrays or lists, and their sizes are equal, the returned stream
+	 * knows its exact size too and splits both streams at the same index, so that it can efficiently run in parallel. It is parallel when
+	 * either of the given streams is parallel. Otherwise, the given streams are zipped by iterating them sequentially, and the returned
+	 * stream is still ordered when both are and still parallel when either is, though only the processing downstream runs in parallel.
+	 *
+	 * @param <T> the type of the elements of the first stream
+	 * @param <U> the type of the elements of the second stream
+	 * @param <R> the type of the results
+	 * @param stream1 the first stream
+	 * @param stream2 the second stream
+	 * @param zipFunction the function to combine the elements of both streams with
+	 * @return a stream of the zipped elements of the given streams
+	 */
 	public static <T, U, R> Stream<R> zip(Stream<? extends T> stream1, Stream<? extends U> stream2, BiFunction<? super T, ? super U, R> zipFunction) {
+		boolean parallel = stream1.isParallel() || stream2.isParallel();
 		Spliterator<? extends T> spliterator1 = stream1.spliterator();
 		Spliterator<? extends U> spliterator2 = stream2.spliterator();
 
+		if (ZippedSpliterator.canZip(spliterator1, spliterator2)) {
+			return StreamSupport.stream(new ZippedSpliterator<>(spliterator1, spliterator2, zipFunction), parallel);
+		}
 
 		ZippedIterator<T, U, R> zippedIterator = new ZippedIterator<>(Spliterators.iterator(spliterator1), Spliterators.iterator(spliterator2), zipFunction);
 
-		// TODO determine and set flags
-		return StreamSupport.stream(spliteratorUnknownSize(zippedIterator, 0), false);
+		int characteristics = spliterator1.characteristics() & spliterator2.characteristics() & Spliterator.ORDERED;
+		return StreamSupport.stream(spliteratorUnknownSize(zippedIterator, characteristics), parallel);
 	}
 
+	/**
+	 * Returns a stream of the results of the given zip function applied to the elements of the given lists pairwise. When both lists are
+	 * {@link RandomAccess} lists of the same size, the returned stream gets the elements by index, so that it knows its exact size and
+	 * splits evenly when run in parallel. Otherwise, this is the same as zipping the streams of the given lists.
+	 *
+	 * @param <T> the type of the elements of the first list
+	 * @param <U> the type of the elements of the second list
+	 * @param <R> the type of the results
+	 * @param list1 the first list
+	 * @param list2 the second list
+	 * @param zipFunction the function to combine the elements of both lists with
+	 * @return a stream of the zipped elements of the given lists
+	 * @see #zip(Stream, Stream, BiFunction)
+	 */
+	public static <T, U, R> Stream<R> zip(List<? extends T> list1, List<? extends U> list2, BiFunction<? super T, ? super U, R> zipFunction) {
+		if (list1 instanceof RandomAccess && list2 instanceof RandomAccess && list1.size() == list2.size()) {
+			return IntStream.range(0, list1.size()).mapToObj(index -> zipFunction.apply(list1.get(index), list2.get(index)));
+		}
+
+		return zip(list1.stream(), list2.stream(), zipFunction);
+	}
+
+	/**
+	 * Returns a stream of the results of the given zip function applied to the elements of the given arrays pairwise.
+	 *
+	 * @param <T> the type of the elements of the first array
+	 * @param <U> the type of the elements of the second array
+	 * @param <R> the type of the results
+	 * @param array1 the first array
+	 * @param array2 the second array
+	 * @param zipFunction the function to combine the elements of both arrays with
+	 * @return a stream of the zipped elements of the given arrays
+	 * @see #zip(List, List, BiFunction)
+	 */
+	public static <T, U, R> Stream<R> zip(T[] array1, U[] array2, BiFunction<? super T, ? super U, R> zipFunction) {
+		return zip(Arrays.asList(array1), Arrays.asList(array2), zipFunction);
+	}
 
 	public static <T extends Comparable<T>> Stream<T> rangeClosed(T start, T endInclusive, Function<? super T, ? extends T> incrementer) {
 		return rangeClosed(start, endInclusive, incrementer, Comparator.naturalOrder());
@@ -95,6 +168,315 @@ public class Streams {
 		return StreamSupport.stream(spliterator, false);
 	}
 
+	/**
+	 * Returns a stream of all results of the given page loader, which loads the pages lazily as the stream is consumed, so that at most
+	 * one page per thread is held in memory regardless of the total number of results. The estimated total number of results of the first
+	 * page is used as size estimate. As the pages are loaded by offset, a parallel stream splits the results by offset range and loads
+	 * several pages concurrently.
+	 *
+	 * @param <T> the type of the results
+	 * @param loader the loader of the pages
+	 * @param pageSize the number of results per page
+	 * @return a stream of all results of the given page loader
+	 */
+	public static <T> Stream<T> paged(PageLoader<T> loader, int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be positive");
+		}
+
+		return StreamSupport.stream(new PagedSpliterator<>(loader, pageSize, 0, Integer.MAX_VALUE), false);
+	}
+
+	/**
+	 * Merges the given streams, which must each be sorted by the given comparator, into one sorted stream, without collecting and sorting
+	 * them again. The merge is lazy: it pulls the next element from a source only when the element before it from that source was
+	 * consumed. It is stable: equal elements appear in the order of the streams they came from. Closing the returned stream closes the
+	 * given streams.
+	 *
+	 * @param <T> the type of the elements
+	 * @param comparator the comparator by which the given streams are sorted
+	 * @param streams the sorted streams to merge
+	 * @return the sorted stream of all elements of the given streams
+	 */
+	@SafeVarargs
+	@SuppressWarnings("varargs") // The array is only read, by merge().
+	public static <T> Stream<T> mergeSorted(Comparator<? super T> comparator, Stream<? extends T>... streams) {
+		return merge(comparator, false, streams);
+	}
+
+	/**
+	 * Merges the given streams like {@link #mergeSorted(Comparator, Stream...)}, but returns only the first of elements which are equal by
+	 * the given comparator, such as the same record coming from several shards.
+	 *
+	 * @param <T> the type of the elements
+	 * @param comparator the comparator by which the given streams are sorted
+	 * @param streams the sorted streams to merge
+	 * @return the sorted stream of all distinct elements of the given streams
+	 */
+	@SafeVarargs
+	@SuppressWarnings("varargs") // The array is only read, by merge().
+	public static <T> Stream<T> mergeSortedDistinct(Comparator<? super T> comparator, Stream<? extends T>... streams) {
+		return merge(comparator, true, streams);
+	}
+
+	/**
+	 * Merges the given streams like {@link #mergeSorted(Comparator, Stream...)}, and groups the elements which are equal by the given
+	 * comparator into lists, in the order of the streams they came from.
+	 *
+	 * @param <T> the type of the elements
+	 * @param comparator the comparator by which the given streams are sorted
+	 * @param streams the sorted streams to merge
+	 * @return the sorted stream of groups of equal elements of the given streams
+	 */
+	@SafeVarargs
+	@SuppressWarnings("varargs") // The array is only read, by merge().
+	public static <T> Stream<List<T>> mergeSortedGrouped(Comparator<? super T> comparator, Stream<? extends T>... streams) {
+		Stream<T> merged = merge(comparator, false, streams);
+		return StreamSupport.stream(new BoundedChunkSpliterator<>(merged.spliterator(), () -> {
+			Object[] first = { NO_ELEMENT };
+			return element -> {
+				if (first[0] == NO_ELEMENT) {
+					first[0] = element;
+				}
+
+				@SuppressWarnings("unchecked")
+				T firstElement = (T) first[0];
+				return comparator.compare(firstElement, element) == 0;
+			};
+		}), false).onClose(merged::close);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" }) // A generic array can only be created raw, and it holds nothing but the sources.
+	private static <T> Stream<T> merge(Comparator<? super T> comparator, boolean distinct, Stream<? extends T>[] streams) {
+		Spliterator<? extends T>[] sources = new Spliterator[streams.length];
+
+		for (int i = 0; i < streams.length; i++) {
+			sources[i] = streams[i].spliterator();
+		}
+
+		return StreamSupport.stream(new MergingSpliterator<>(sources, comparator, distinct), false).onClose(() -> closeAll(streams));
+	}
+
+	/**
+	 * Closes all given streams, also when closing one of them fails.
+	 */
+	private static void closeAll(Stream<?>[] streams) {
+		RuntimeException failure = null;
+
+		for (Stream<?> stream : streams) {
+			try {
+				stream.close();
+			}
+			catch (RuntimeException e) {
+				if (failure == null) {
+					failure = e;
+				}
+				else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Returns a stream of consecutive chunks of the given number of elements of the given stream, of which the last one may be smaller.
+	 * Unlike {@link Collectors#forEachBatch(java.util.function.Consumer, int)}, this is lazy: at most one chunk per thread is held in
+	 * memory. When the given stream knows its exact size and that of its splits, e.g. when it streams an array or a list, so does the
+	 * returned stream, and it can efficiently run in parallel. Every chunk is a new modifiable list. Closing the returned stream closes the
+	 * given stream.
+	 *
+	 * @param <T> the type of the elements
+	 * @param stream the stream to chunk
+	 * @param size the number of elements per chunk
+	 * @return a stream of consecutive chunks of the given stream
+	 * @throws IllegalArgumentException When the size is not positive.
+	 */
+	public static <T> Stream<List<T>> chunked(Stream<T> stream, int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("Size must be positive");
+		}
+
+		return windowed(stream, new WindowSpliterator<>(stream.spliterator(), size, size, true));
+	}
+
+	/**
+	 * Returns a stream of windows of the given number of elements of the given stream, of which every next one starts the given number of
+	 * elements after the previous one. A step smaller than the size gives overlapping windows, e.g. to compute moving averages, and a step
+	 * larger than the size skips elements between windows. Only complete windows are returned, so a stream with fewer elements than the
+	 * size gives no windows. At most one window per thread is held in memory. When the given stream knows its exact size and that of its
+	 * splits, so does the returned stream, and it can efficiently run in parallel. Every window is a new modifiable list. Closing the
+	 * returned stream closes the given stream.
+	 *
+	 * @param <T> the type of the elements
+	 * @param stream the stream to slide over
+	 * @param size the number of elements per window
+	 * @param step the number of elements between the starts of windows
+	 * @return a stream of sliding windows of the given stream
+	 * @throws IllegalArgumentException When the size or step is not positive.
+	 */
+	public static <T> Stream<List<T>> sliding(Stream<T> stream, int size, int step) {
+		if (size < 1 || step < 1) {
+			throw new IllegalArgumentException("Size and step must be positive");
+		}
+
+		return windowed(stream, new WindowSpliterator<>(stream.spliterator(), size, step, false));
+	}
+
+	/**
+	 * Returns a stream of consecutive chunks of elements of the given stream, of which the total weight does not exceed the given maximum
+	 * weight, e.g. to send records in requests of a maximum number of bytes. An element which is heavier than the maximum weight by itself
+	 * makes up a chunk on its own. As every chunk depends on all chunks before it, the returned stream is processed sequentially. Closing the
+	 * returned stream closes the given stream.
+	 *
+	 * @param <T> the type of the elements
+	 * @param stream the stream to chunk
+	 * @param maxWeight the maximum total weight per chunk
+	 * @param weigher the function to determine the weight of an element with, which must not be negative
+	 * @return a stream of consecutive chunks of the given stream
+	 * @throws IllegalArgumentException When the maximum weight is not positive, or, while processing the returned stream, when the weight
+	 * of an element is negative.
+	 */
+	public static <T> Stream<List<T>> chunkedByWeight(Stream<T> stream, long maxWeight, ToLongFunction<? super T> weigher) {
+		if (maxWeight < 1) {
+			throw new IllegalArgumentException("Maximum weight must be positive");
+		}
+
+		return windowed(stream, new BoundedChunkSpliterator<>(stream.spliterator(), () -> {
+			long[] totalWeight = { 0 };
+			return element -> {
+				long weight = weigher.applyAsLong(element);
+
+				if (weight < 0) {
+					throw new IllegalArgumentException("Weight must not be negative: " + weight);
+				}
+
+				// Saturate instead of overflowing, so that a huge weight cannot wrap around to fit.
+				totalWeight[0] = totalWeight[0] > Long.MAX_VALUE - weight ? Long.MAX_VALUE : totalWeight[0] + weight;
+				return totalWeight[0] <= maxWeight;
+			};
+		}));
+	}
+
+	/**
+	 * Returns a stream of consecutive chunks of elements of the given stream, which must be ordered by their timestamp, of which the
+	 * timestamps are less than the given time span after that of the first element, e.g. to aggregate events per time window. A chunk
+	 * starts at the timestamp of its first element, so that chunks without elements are never returned. As every chunk depends on all
+	 * chunks before it, the returned stream is processed sequentially. Closing the returned stream closes the given stream.
+	 *
+	 * @param <T> the type of the elements
+	 * @param stream the stream to chunk
+	 * @param span the time span of a chunk, which excludes its end
+	 * @param timestamp the function to determine the timestamp of an element with
+	 * @return a stream of consecutive chunks of the given stream
+	 * @throws IllegalArgumentException When the span is not positive.
+	 */
+	public static <T> Stream<List<T>> chunkedByTime(Stream<T> stream, Duration span, Function<? super T, Instant> timestamp) {
+		if (span.isNegative() || span.isZero()) {
+			throw new IllegalArgumentException("Span must be positive");
+		}
+
+		return windowed(stream, new BoundedChunkSpliterator<>(stream.spliterator(), () -> {
+			Instant[] start = { null };
+			return element -> {
+				Instant instant = timestamp.apply(element);
+
+				if (start[0] == null) {
+					start[0] = instant;
+				}
+
+				return Duration.between(start[0], instant).compareTo(span) < 0;
+			};
+		}));
+	}
+
+	private static <T> Stream<List<T>> windowed(Stream<T> stream, Spliterator<List<T>> windows) {
+		return StreamSupport.stream(windows, stream.isParallel()).onClose(stream::close);
+	}
+
+	/**
+	 * Returns the k greatest values of the given stream in descending order, keeping at most k values per thread in memory regardless of
+	 * the size of the stream. This is the primitive counterpart of {@link Collectors#topK(int, Comparator)}.
+	 *
+	 * @param stream the stream
+	 * @param k the maximum number of values to return
+	 * @return the k greatest values of the given stream in descending order
+	 */
+	public static int[] topK(IntStream stream, int k) {
+		return Arrays.stream(collectLeast(stream.mapToLong(value -> ~(long) value), k)).mapToInt(key -> (int) ~key).toArray();
+	}
+
+	/**
+	 * Returns the k least values of the given stream in ascending order, keeping at most k values per thread in memory regardless of the
+	 * size of the stream. This is the primitive counterpart of {@link Collectors#bottomK(int, Comparator)}.
+	 *
+	 * @param stream the stream
+	 * @param k the maximum number of values to return
+	 * @return the k least values of the given stream in ascending order
+	 */
+	public static int[] bottomK(IntStream stream, int k) {
+		return Arrays.stream(collectLeast(stream.asLongStream(), k)).mapToInt(key -> (int) key).toArray();
+	}
+
+	/**
+	 * Returns the k greatest values of the given stream in descending order.
+	 *
+	 * @param stream the stream
+	 * @param k the maximum number of values to return
+	 * @return the k greatest values of the given stream in descending order
+	 * @see #topK(IntStream, int)
+	 */
+	public static long[] topK(LongStream stream, int k) {
+		return Arrays.stream(collectLeast(stream.map(value -> ~value), k)).map(key -> ~key).toArray();
+	}
+
+	/**
+	 * Returns the k least values of the given stream in ascending order.
+	 *
+	 * @param stream the stream
+	 * @param k the maximum number of values to return
+	 * @return the k least values of the given stream in ascending order
+	 * @see #bottomK(IntStream, int)
+	 */
+	public static long[] bottomK(LongStream stream, int k) {
+		return collectLeast(stream, k);
+	}
+
+	/**
+	 * Returns the k greatest values of the given stream in descending order, as ordered by {@link Double#compare(double, double)}.
+	 *
+	 * @param stream the stream
+	 * @param k the maximum number of values to return
+	 * @return the k greatest values of the given stream in descending order
+	 * @see #topK(IntStream, int)
+	 */
+	public static double[] topK(DoubleStream stream, int k) {
+		return Arrays.stream(collectLeast(stream.mapToLong(value -> ~LongBoundedHeap.toSortableBits(value)), k)).mapToDouble(key -> LongBoundedHeap.fromSortableBits(~key)).toArray();
+	}
+
+	/**
+	 * Returns the k least values of the given stream in ascending order, as ordered by {@link Double#compare(double, double)}.
+	 *
+	 * @param stream the stream
+	 * @param k the maximum number of values to return
+	 * @return the k least values of the given stream in ascending order
+	 * @see #bottomK(IntStream, int)
+	 */
+	public static double[] bottomK(DoubleStream stream, int k) {
+		return Arrays.stream(collectLeast(stream.mapToLong(LongBoundedHeap::toSortableBits), k)).mapToDouble(LongBoundedHeap::fromSortableBits).toArray();
+	}
+
+	private static long[] collectLeast(LongStream keys, int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException("k must not be negative");
+		}
+
+		return keys.collect(() -> new LongBoundedHeap(k), LongBoundedHeap::offer, LongBoundedHeap::merge).toSortedArray();
+	}
+
 	/**
 	 * Returns a {@link java.util.stream.Stream#flatMap(Function) flatMap} {@link java.util.function.Function} that only retains a instances of a given type and casts them to this type.
 	 *
@@ -138,6 +520,8 @@ public class Streams {
 	 * <ul>
 	 * <li>{@link Iterable}
 	 * <li>{@link Map} (returns a stream of entryset)
+	 * <li>{@link IntSet} (returns a stream of boxed values)
+	 * <li>{@link LongObjectMap} and {@link LongLongMap} (returns a stream of entries with boxed keys)
 	 * <li><code>int[]</code>
 	 * <li><code>long[]</code>
 	 * <li><code>double[]</code>
@@ -159,6 +543,15 @@ public class Streams {
 		else if (object instanceof Map<?, ?>) {
 			return (Stream<T>) ((Map<?, ?>) object).entrySet().stream();
 		}
+		else if (object instanceof IntSet) {
+			return (Stream<T>) ((IntSet) object).stream().boxed();
+		}
+		else if (object instanceof LongObjectMap<?>) {
+			return (Stream<T>) ((LongObjectMap<?>) object).entries();
+		}
+		else if (object instanceof LongLongMap) {
+			return (Stream<T>) ((LongLongMap) object).entries();
+		}
 		else if (object instanceof int[]) {
 			return (Stream<T>) Arrays.stream((int[]) object).boxed();
 		}
@@ -194,4 +587,16 @@ public class Streams {
 		return array == null ? Stream.empty() : Arrays.stream(array);
 	}
 
+	public static IntStream stream(IntSet set) {
+		return set == null ? IntStream.empty() : set.stream();
+	}
+
+	public static <V> Stream<Entry<Long, V>> stream(LongObjectMap<V> map) {
+		return map == null ? Stream.empty() : map.entries();
+	}
+
+	public static Stream<Entry<Long, Long>> stream(LongLongMap map) {
+		return map == null ? Stream.empty() : map.entries();
+	}
+
 }
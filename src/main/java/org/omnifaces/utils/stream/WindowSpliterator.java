@@ -0,0 +1,167 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.stream;
+
+import static java.util.Collections.emptyList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over windows of a fixed number of elements of a source, of which every next one starts a fixed number of elements after the
+ * previous one, holding no more than a single window of elements.
+ *
+ * <p>
+ * The logical sequence it covers consists of the elements already buffered for the current window, followed by the elements of the source,
+ * followed by a tail of elements taken over from a split. It only splits when the source knows its exact size and that of its splits.
+ * The prefix is then extended with elements pulled from the suffix up to the start of the first window of the suffix, plus the elements
+ * which the last windows of the prefix share with the windows of the suffix. The suffix starts with the latter already buffered.
+ */
+class WindowSpliterator<T> implements Spliterator<List<T>> {
+
+	private final Spliterator<T> source;
+	private final int size;
+	private final int step;
+	private final boolean partial;
+
+	private List<T> buffer;
+	private int skip;
+	private List<T> tail;
+	private int tailIndex;
+	private T next;
+
+	WindowSpliterator(Spliterator<T> source, int size, int step, boolean partial) {
+		this(source, size, step, partial, new ArrayList<>(size), emptyList());
+	}
+
+	private WindowSpliterator(Spliterator<T> source, int size, int step, boolean partial, List<T> buffer, List<T> tail) {
+		this.source = source;
+		this.size = size;
+		this.step = step;
+		this.partial = partial;
+		this.buffer = buffer;
+		this.tail = tail;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super List<T>> action) {
+		for (; skip > 0; skip--) {
+			if (!pull()) {
+				return false;
+			}
+		}
+
+		while (buffer.size() < size) {
+			if (!pull()) {
+				if (partial && !buffer.isEmpty()) {
+					List<T> window = buffer;
+					buffer = new ArrayList<>(0);
+					action.accept(window);
+					return true;
+				}
+
+				return false;
+			}
+
+			buffer.add(next);
+			next = null;
+		}
+
+		List<T> window;
+
+		if (step >= size) {
+			// Windows share no elements, so the buffer itself can be handed out.
+			window = buffer;
+			buffer = new ArrayList<>(size);
+			skip = step - size;
+		}
+		else {
+			window = new ArrayList<>(buffer);
+			buffer.subList(0, step).clear();
+		}
+
+		action.accept(window);
+		return true;
+	}
+
+	private boolean pull() {
+		if (source.tryAdvance(element -> next = element)) {
+			return true;
+		}
+
+		if (tailIndex < tail.size()) {
+			next = tail.get(tailIndex++);
+			return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public Spliterator<List<T>> trySplit() {
+		if (skip > 0 || !source.hasCharacteristics(SIZED | SUBSIZED)) {
+			return null;
+		}
+
+		Spliterator<T> prefix = source.trySplit();
+
+		if (prefix == null) {
+			return null;
+		}
+
+		long prefixLength = buffer.size() + prefix.getExactSizeIfKnown();
+		long firstSuffixWindow = (prefixLength + step - 1) / step * step;
+		int shared = Math.max(0, size - step);
+		int extension = (int) (firstSuffixWindow - prefixLength);
+		List<T> prefixTail = new ArrayList<>(extension + shared);
+
+		while (prefixTail.size() < extension + shared && pull()) {
+			prefixTail.add(next);
+			next = null;
+		}
+
+		WindowSpliterator<T> split = new WindowSpliterator<>(prefix, size, step, partial, buffer, prefixTail);
+		buffer = new ArrayList<>(size);
+
+		if (prefixTail.size() > extension) {
+			buffer.addAll(prefixTail.subList(extension, prefixTail.size()));
+		}
+
+		return split;
+	}
+
+	@Override
+	public long estimateSize() {
+		long length = source.estimateSize();
+
+		if (length == Long.MAX_VALUE) {
+			return length;
+		}
+
+		length = Math.max(0, buffer.size() + length + tail.size() - tailIndex - skip);
+
+		if (length < size) {
+			return partial && length > 0 ? 1 : 0;
+		}
+
+		return (length - size) / step + 1 + (partial && (length - size) % step > 0 ? 1 : 0);
+	}
+
+	@Override
+	public int characteristics() {
+		return (source.characteristics() & (ORDERED | SIZED | SUBSIZED)) | NONNULL;
+	}
+
+}
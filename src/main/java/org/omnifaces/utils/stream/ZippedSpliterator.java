@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.stream;
+
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Spliterator zipping two sources of the same exact size, which keeps the exact size and splits both sources at the same index.
+ *
+ * <p>
+ * Both sources are split and the halves are only zipped when their prefixes turn out to have the same size, which is the case for the
+ * spliterators of arrays and of the common lists, as they all split in the middle. Otherwise, each source is glued back together from its
+ * halves and splitting stops, as there is no way to split a spliterator at a given index.
+ */
+class ZippedSpliterator<T, U, R> implements Spliterator<R> {
+
+	private Spliterator<? extends T> source1;
+	private Spliterator<? extends U> source2;
+	private final BiFunction<? super T, ? super U, R> zipFunction;
+	private boolean splittable = true;
+
+	private T next1;
+
+	ZippedSpliterator(Spliterator<? extends T> source1, Spliterator<? extends U> source2, BiFunction<? super T, ? super U, R> zipFunction) {
+		this.source1 = source1;
+		this.source2 = source2;
+		this.zipFunction = zipFunction;
+	}
+
+	/**
+	 * Returns whether the given sources can be zipped by this spliterator, which is when both know their exact size and that of their
+	 * splits, and their sizes are equal.
+	 */
+	static boolean canZip(Spliterator<?> source1, Spliterator<?> source2) {
+		return source1.hasCharacteristics(SIZED | SUBSIZED) && source2.hasCharacteristics(SIZED | SUBSIZED)
+				&& source1.getExactSizeIfKnown() == source2.getExactSizeIfKnown();
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super R> action) {
+		if (!source1.tryAdvance(element -> next1 = element)) {
+			return false;
+		}
+
+		T element1 = next1;
+		next1 = null;
+		return source2.tryAdvance(element2 -> action.accept(zipFunction.apply(element1, element2)));
+	}
+
+	@Override
+	public Spliterator<R> trySplit() {
+		if (!splittable) {
+			return null;
+		}
+
+		Spliterator<? extends T> prefix1 = source1.trySplit();
+
+		if (prefix1 == null) {
+			return null;
+		}
+
+		Spliterator<? extends U> prefix2 = source2.trySplit();
+
+		if (prefix2 != null && prefix1.getExactSizeIfKnown() == prefix2.getExactSizeIfKnown()) {
+			return new ZippedSpliterator<>(prefix1, prefix2, zipFunction);
+		}
+
+		source1 = concat(prefix1, source1);
+
+		if (prefix2 != null) {
+			source2 = concat(prefix2, source2);
+		}
+
+		splittable = false;
+		return null;
+	}
+
+	private static <E> Spliterator<E> concat(Spliterator<? extends E> prefix, Spliterator<? extends E> suffix) {
+		return Stream.<E>concat(StreamSupport.stream(prefix, false), StreamSupport.stream(suffix, false)).spliterator();
+	}
+
+	@Override
+	public long estimateSize() {
+		return source1.estimateSize();
+	}
+
+	@Override
+	public int characteristics() {
+		return SIZED | SUBSIZED | (source1.characteristics() & source2.characteristics() & ORDERED);
+	}
+
+}
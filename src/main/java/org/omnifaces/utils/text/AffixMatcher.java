@@ -0,0 +1,205 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.text;
+
+import static java.util.Arrays.asList;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Tests whether a string starts with, or ends with, one of a possibly large set of prefixes or suffixes, in time proportional to the length
+ * of the longest one rather than to their number.
+ *
+ * <p>
+ * The prefixes or suffixes are compiled once into a trie, wherein every node is an array of sorted edge labels. The root node, at which
+ * every test starts, additionally has a dense table for the Latin-1 range, so that the first character is resolved with a single array
+ * lookup. As only whether any prefix matches is of interest, prefixes which have a shorter prefix in the set are discarded during
+ * compilation. Instances are immutable and thread safe, so compile once and reuse.
+ *
+ * <p>
+ * For a handful of prefixes, {@link Texts#startsWithOneOf(CharSequence, String...)} is just as fast and needs no compilation.
+ */
+public final class AffixMatcher implements Predicate<CharSequence> {
+
+	private static final int LATIN_1_SIZE = 0x100;
+	private static final int NO_NODE = -1;
+
+	private final boolean suffixes;
+	private final int[] latin1Root;
+	private final int[] edgeStart;
+	private final char[] labels;
+	private final int[] targets;
+	private final boolean[] terminal;
+
+	private AffixMatcher(Collection<String> affixes, boolean suffixes) {
+		this.suffixes = suffixes;
+		List<Node> nodes = new ArrayList<>();
+		Node root = new Node();
+
+		for (String affix : affixes) {
+			root.add(affix, suffixes);
+		}
+
+		// Number the nodes breadth first, so that all edges of a node are contiguous.
+		Deque<Node> queue = new ArrayDeque<>();
+		queue.add(root);
+
+		while (!queue.isEmpty()) {
+			Node node = queue.poll();
+			node.id = nodes.size();
+			nodes.add(node);
+			queue.addAll(node.children.values());
+		}
+
+		this.edgeStart = new int[nodes.size() + 1];
+		this.terminal = new boolean[nodes.size()];
+		this.labels = new char[nodes.size() - 1];
+		this.targets = new int[nodes.size() - 1];
+		int edge = 0;
+
+		for (Node node : nodes) {
+			edgeStart[node.id] = edge;
+			terminal[node.id] = node.terminal;
+
+			for (Entry<Character, Node> child : node.children.entrySet()) {
+				labels[edge] = child.getKey();
+				targets[edge] = child.getValue().id;
+				edge++;
+			}
+		}
+
+		edgeStart[nodes.size()] = edge;
+		this.latin1Root = new int[LATIN_1_SIZE];
+
+		for (int c = 0; c < LATIN_1_SIZE; c++) {
+			latin1Root[c] = findEdge(0, (char) c);
+		}
+	}
+
+	/**
+	 * Compiles a matcher which tests whether a string starts with one of the given prefixes.
+	 *
+	 * @param prefixes the prefixes
+	 * @return a matcher which tests whether a string starts with one of the given prefixes
+	 */
+	public static AffixMatcher ofPrefixes(String... prefixes) {
+		return ofPrefixes(asList(prefixes));
+	}
+
+	/**
+	 * Compiles a matcher which tests whether a string starts with one of the given prefixes.
+	 *
+	 * @param prefixes the prefixes
+	 * @return a matcher which tests whether a string starts with one of the given prefixes
+	 */
+	public static AffixMatcher ofPrefixes(Collection<String> prefixes) {
+		return new AffixMatcher(prefixes, false);
+	}
+
+	/**
+	 * Compiles a matcher which tests whether a string ends with one of the given suffixes.
+	 *
+	 * @param suffixes the suffixes
+	 * @return a matcher which tests whether a string ends with one of the given suffixes
+	 */
+	public static AffixMatcher ofSuffixes(String... suffixes) {
+		return ofSuffixes(asList(suffixes));
+	}
+
+	/**
+	 * Compiles a matcher which tests whether a string ends with one of the given suffixes.
+	 *
+	 * @param suffixes the suffixes
+	 * @return a matcher which tests whether a string ends with one of the given suffixes
+	 */
+	public static AffixMatcher ofSuffixes(Collection<String> suffixes) {
+		return new AffixMatcher(suffixes, true);
+	}
+
+	/**
+	 * Returns <code>true</code> if the given string starts with one of the prefixes, or ends with one of the suffixes, of this matcher.
+	 *
+	 * @param string the string to test
+	 * @return <code>true</code> if the given string starts with one of the prefixes, or ends with one of the suffixes, of this matcher
+	 */
+	@Override
+	public boolean test(CharSequence string) {
+		int node = 0;
+		int length = string.length();
+
+		for (int i = 0; i < length; i++) {
+			if (terminal[node]) {
+				return true;
+			}
+
+			char c = string.charAt(suffixes ? length - 1 - i : i);
+			node = (node == 0 && c < LATIN_1_SIZE) ? latin1Root[c] : findEdge(node, c);
+
+			if (node == NO_NODE) {
+				return false;
+			}
+		}
+
+		return terminal[node];
+	}
+
+	private int findEdge(int node, char c) {
+		int low = edgeStart[node];
+		int high = edgeStart[node + 1] - 1;
+
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			char label = labels[middle];
+
+			if (label < c) {
+				low = middle + 1;
+			}
+			else if (label > c) {
+				high = middle - 1;
+			}
+			else {
+				return targets[middle];
+			}
+		}
+
+		return NO_NODE;
+	}
+
+	private static class Node {
+
+		private final TreeMap<Character, Node> children = new TreeMap<>();
+		private boolean terminal;
+		private int id;
+
+		private void add(String affix, boolean reversed) {
+			Node node = this;
+			int length = affix.length();
+
+			for (int i = 0; i < length && !node.terminal; i++) {
+				node = node.children.computeIfAbsent(affix.charAt(reversed ? length - 1 - i : i), c -> new Node());
+			}
+
+			// Any string matching a longer affix also matches this one, so the longer ones can be discarded.
+			node.terminal = true;
+			node.children.clear();
+		}
+	}
+
+}
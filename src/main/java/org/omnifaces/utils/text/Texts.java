@@ -0,0 +1,174 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.text;
+
+import static java.lang.Character.isSpaceChar;
+
+/**
+ * Scanning and case conversion of text in plain loops over the characters, without streams, boxing or intermediate copies. Characters in
+ * the Latin-1 range, which make up most of typical user input, are handled by simple comparisons without consulting the Unicode tables of
+ * {@link Character}. Methods which may return their input unchanged do so without copying it.
+ *
+ * @see AffixMatcher
+ */
+public final class Texts {
+
+	private static final int LATIN_1_SIZE = 0x100;
+
+	private Texts() {
+	}
+
+	/**
+	 * Returns <code>true</code> if the given text contains any ISO control characters.
+	 *
+	 * @param text the text to check for control characters
+	 * @return <code>true</code> if the text contains any ISO control characters and <code>false</code> otherwise
+	 * @see Character#isISOControl(int)
+	 */
+	public static boolean containsIsoControlCharacters(CharSequence text) {
+		for (int i = 0, length = text.length(); i < length; i++) {
+			// ISO control characters are all in the Latin-1 range, so neither surrogates nor code points need to be considered.
+			if (isIsoControl(text.charAt(i))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Converts given string to title case, that is, every character which is the first one or which follows a space character is
+	 * converted to upper case, and all other characters to lower case. When the string is already in title case, it is returned as is.
+	 *
+	 * @param string String to be converted to title case.
+	 * @return The given string converted to title case.
+	 */
+	public static String toTitleCase(String string) {
+		int length = string.length();
+		boolean upper = true;
+		int i = 0;
+
+		// Find the first character to change, if any, so that nothing needs to be copied for strings already in title case.
+		while (i < length) {
+			int codePoint = string.codePointAt(i);
+			int converted = toCase(codePoint, upper);
+
+			if (converted != codePoint) {
+				break;
+			}
+
+			upper = isSpace(converted);
+			i += Character.charCount(codePoint);
+		}
+
+		if (i == length) {
+			return string;
+		}
+
+		StringBuilder builder = new StringBuilder(length).append(string, 0, i);
+
+		while (i < length) {
+			int codePoint = string.codePointAt(i);
+			int converted = toCase(codePoint, upper);
+
+			if (converted < LATIN_1_SIZE) {
+				builder.append((char) converted);
+			}
+			else {
+				builder.appendCodePoint(converted);
+			}
+
+			upper = isSpace(converted);
+			i += Character.charCount(codePoint);
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Returns <code>true</code> if the given text starts with one of the given prefixes. For large sets of prefixes which are tested
+	 * repeatedly, use {@link AffixMatcher#ofPrefixes(String...)} instead.
+	 *
+	 * @param text The text to be checked if it starts with one of the given prefixes.
+	 * @param prefixes The argument list of prefixes to be checked.
+	 * @return <code>true</code> if the given text starts with one of the given prefixes.
+	 */
+	public static boolean startsWithOneOf(CharSequence text, String... prefixes) {
+		for (String prefix : prefixes) {
+			if (regionMatches(text, 0, prefix)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given text ends with one of the given suffixes. For large sets of suffixes which are tested
+	 * repeatedly, use {@link AffixMatcher#ofSuffixes(String...)} instead.
+	 *
+	 * @param text The text to be checked if it ends with one of the given suffixes.
+	 * @param suffixes The argument list of suffixes to be checked.
+	 * @return <code>true</code> if the given text ends with one of the given suffixes.
+	 */
+	public static boolean endsWithOneOf(CharSequence text, String... suffixes) {
+		for (String suffix : suffixes) {
+			if (regionMatches(text, text.length() - suffix.length(), suffix)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean regionMatches(CharSequence text, int offset, String part) {
+		if (offset < 0 || offset + part.length() > text.length()) {
+			return false;
+		}
+
+		if (text instanceof String) {
+			return ((String) text).startsWith(part, offset);
+		}
+
+		for (int i = 0; i < part.length(); i++) {
+			if (text.charAt(offset + i) != part.charAt(i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isIsoControl(char c) {
+		return c <= 0x9F && (c < 0x20 || c >= 0x7F);
+	}
+
+	private static boolean isSpace(int codePoint) {
+		// Only the last char of the converted code point matters, which is a low surrogate for a supplementary one.
+		return codePoint < LATIN_1_SIZE ? (codePoint == ' ' || codePoint == 0xA0) : !Character.isSupplementaryCodePoint(codePoint) && isSpaceChar((char) codePoint);
+	}
+
+	private static int toCase(int codePoint, boolean upper) {
+		if (codePoint < 0x80) {
+			if (upper) {
+				return codePoint >= 'a' && codePoint <= 'z' ? codePoint - ('a' - 'A') : codePoint;
+			}
+			else {
+				return codePoint >= 'A' && codePoint <= 'Z' ? codePoint + ('a' - 'A') : codePoint;
+			}
+		}
+
+		return upper ? Character.toUpperCase(codePoint) : Character.toLowerCase(codePoint);
+	}
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class CollectionsTest {
+
+	@Test
+	public void testUnmodifiableSet() {
+		for (int size : new int[] { 0, 1, 8, 9, 100, 1000 }) {
+			List<String> values = IntStream.range(0, size).mapToObj(i -> "v" + i).collect(toList());
+			Set<String> set = Collections.unmodifiableSet(values, values.toArray(), "extra");
+			Set<String> expected = new HashSet<>(values);
+			expected.add("extra");
+
+			assertEquals(expected, set);
+			assertEquals(expected.hashCode(), set.hashCode());
+			assertEquals(expected.size(), set.size());
+			assertTrue(set.containsAll(expected));
+			assertFalse(set.contains("v" + size));
+		}
+
+		Set<Object> withNull = Collections.unmodifiableSet(null, "a", null);
+		assertEquals(new HashSet<>(Arrays.asList(null, "a")), withNull);
+		assertTrue(withNull.contains(null));
+
+		try {
+			withNull.add("b");
+			fail();
+		}
+		catch (UnsupportedOperationException expected) {
+			// Expected.
+		}
+	}
+
+	@Test
+	public void testCollidingHashCodes() {
+		// "Aa" and "BB" have the same hash code, and so have all their concatenations of equal length.
+		List<String> values = IntStream.range(0, 64).mapToObj(i -> Integer.toBinaryString(i | 64).replace("0", "Aa").replace("1", "BB")).collect(toList());
+		Set<String> set = Collections.unmodifiableSet(values);
+
+		assertEquals(64, set.size());
+		assertTrue(set.containsAll(values));
+		assertFalse(set.contains("AaAa"));
+	}
+
+	/**
+	 * Key of which the hash code changes with the salt, like identity based hash codes differ between JVMs.
+	 */
+	private static final class SaltedKey implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+		private static int salt;
+
+		private final int value;
+
+		SaltedKey(int value) {
+			this.value = value;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			return object instanceof SaltedKey && ((SaltedKey) object).value == value;
+		}
+
+		@Override
+		public int hashCode() {
+			return value * 31 + salt;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T serializeAndDeserialize(T object) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+			output.writeObject(object);
+		}
+
+		SaltedKey.salt++;
+
+		try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			return (T) input.readObject();
+		}
+	}
+
+	@Test
+	public void testSerializationRebuildsHashTable() throws Exception {
+		for (int size : new int[] { 0, 8, 9, 100 }) {
+			List<SaltedKey> keys = IntStream.range(0, size).mapToObj(SaltedKey::new).collect(toList());
+			Set<SaltedKey> set = serializeAndDeserialize(Collections.unmodifiableSet(keys));
+			assertEquals(size, set.size());
+			assertTrue(set.containsAll(keys));
+			assertFalse(set.contains(new SaltedKey(size)));
+
+			Map<SaltedKey, SaltedKey> map = serializeAndDeserialize(Collections.reverse(keys.stream().collect(toMap(key -> key, key -> new SaltedKey(-key.value)))));
+			assertEquals(size, map.size());
+
+			for (SaltedKey key : keys) {
+				assertEquals(key, map.get(new SaltedKey(-key.value)));
+			}
+		}
+	}
+
+	@Test
+	public void testIterableToList() {
+		List<String> list = Arrays.asList("a", "b");
+		assertSame(list, Collections.iterableToList(list));
+		assertEquals(list, Collections.iterableToList(new ArrayDeque<>(list)));
+		assertEquals(list, Collections.iterableToList(list::iterator));
+		assertEquals(List.of(), Collections.iterableToList(new HashSet<>()));
+	}
+
+	@Test
+	public void testReverse() {
+		for (int size : new int[] { 0, 3, 8, 9, 500 }) {
+			Map<Integer, Integer> source = IntStream.range(0, size).boxed().collect(toMap(i -> i, i -> -i));
+			Map<Integer, Integer> expected = new HashMap<>();
+			source.forEach((key, value) -> expected.put(value, key));
+
+			Map<Integer, Integer> reverse = Collections.reverse(source);
+			assertEquals(expected, reverse);
+			assertEquals(expected.hashCode(), reverse.hashCode());
+			assertNull(reverse.get(1));
+		}
+
+		Map<String, String> source = new LinkedHashMap<>();
+		source.put("a", "x");
+		source.put("b", "x");
+		source.put(null, "y");
+		Map<String, String> reverse = Collections.reverse(source);
+		assertEquals(2, reverse.size());
+		assertEquals("b", reverse.get("x"));
+		assertTrue(reverse.containsKey("y"));
+		assertTrue(reverse.containsValue(null));
+		assertNull(reverse.get("y"));
+	}
+
+}
@@ -18,11 +18,15 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
+import static org.omnifaces.utils.Lang.replaceLast;
 import static org.omnifaces.utils.Lang.setIfNotEmpty;
 import static org.omnifaces.utils.Lang.toTitleCase;
 import static org.omnifaces.utils.Lang.toUrlSafe;
 
+import java.text.Normalizer;
+import java.text.Normalizer.Form;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
@@ -59,6 +63,66 @@ public class LangTest {
 		assertEquals("lorem-ipsum-dOlor-sIt-amEt", toUrlSafe("lórém ípsúm dÓlor sÍt ámÉt"));
 		assertEquals("lorem-ipsum-dolor-sit-amet", toUrlSafe("lorem--ipsum--dolor--sit--amet"));
 		assertEquals("lorem-ipsum-dolor-sit-amet", toUrlSafe("?lorem&ipsum%dolor_sit amet-"));
+		assertEquals("Angstrom-10-K", toUrlSafe("\u212Bngstr\u00F6m \u00B7 10 \u212A"));
+		assertEquals("Tieng-Viet-ngon-ngu", toUrlSafe("Ti\u1EBFng Vi\u1EC7t \uD83D\uDE00 ng\u00F4n ng\u1EEF"));
+	}
+
+	@Test
+	public void urlSafeEquivalenceTest() {
+		Random random = new Random(42);
+
+		for (int i = 0; i < 10_000; i++) {
+			StringBuilder builder = new StringBuilder();
+
+			for (int length = random.nextInt(20); length > 0; length--) {
+				switch (random.nextInt(4)) {
+					case 0: builder.append((char) random.nextInt(0x80)); break;
+					case 1: builder.append((char) (0x80 + random.nextInt(0x200))); break;
+					case 2: builder.append((char) (0x0300 + random.nextInt(0x70))); break;
+					default: builder.appendCodePoint(random.nextInt(0x20000)); break;
+				}
+			}
+
+			String string = builder.toString();
+
+			if (!Character.isSurrogate(string.isEmpty() ? 'a' : string.charAt(string.length() - 1))) {
+				assertEquals(string, regexToUrlSafe(string), toUrlSafe(string));
+			}
+		}
+	}
+
+	private static String regexToUrlSafe(String string) {
+		return Normalizer.normalize(string.trim(), Form.NFD)
+			.replaceAll("\\p{InCombiningDiacriticalMarks}+", "")
+			.replaceAll("[^\\p{Alnum}]+", "-")
+			.replaceAll("(^-|-$)", "");
+	}
+
+	@Test
+	public void replaceLastTest() {
+		assertEquals("a.b.c", replaceLast("a.b.c", "x", "y"));
+		assertEquals("a.b-c", replaceLast("a.b.c", "\\.", "-"));
+		assertEquals("a.b.c!", replaceLast("a.b.c", "", "!"));
+		assertEquals("foo_bar.ba_", replaceLast("foo_bar.baz", ".", "_"));
+		assertEquals("a1b2c[3]", replaceLast("a1b2c3", "(\\d)", "[$2]"));
+		assertEquals("aab", replaceLast("aaa", "aa", "ab"));
+		assertEquals("x\ny", replaceLast("x\nz", ".$", "y"));
+		assertEquals("ab", replaceLast("aab", "^a", ""));
+
+		Random random = new Random(42);
+		String[] regexes = { "a", "ab", "a+", "a*", "(ab|b)", "b.", "\\w{2}", "^a", "a$", "(?<=a)b", "" };
+
+		for (int i = 0; i < 10_000; i++) {
+			StringBuilder builder = new StringBuilder();
+
+			for (int length = random.nextInt(12); length > 0; length--) {
+				builder.append("ab\n".charAt(random.nextInt(3)));
+			}
+
+			String string = builder.toString();
+			String regex = regexes[random.nextInt(regexes.length)];
+			assertEquals(string + " " + regex, string.replaceFirst("(?s)(.*)" + regex, "$1#"), replaceLast(string, regex, "#"));
+		}
 	}
 
 }
\ No newline at end of file
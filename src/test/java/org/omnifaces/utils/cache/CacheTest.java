@@ -0,0 +1,270 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class CacheTest {
+
+	@Test
+	public void testPutAndGet() {
+		Cache<String, Integer> cache = Cache.builder().build(String::length);
+
+		assertNull(cache.getIfPresent("abc"));
+		assertEquals(Integer.valueOf(3), cache.get("abc"));
+		assertEquals(Integer.valueOf(3), cache.getIfPresent("abc"));
+
+		cache.put("abc", 42);
+		assertEquals(Integer.valueOf(42), cache.get("abc"));
+
+		cache.invalidate("abc");
+		assertNull(cache.getIfPresent("abc"));
+
+		CacheStats stats = cache.getStats();
+		assertEquals(2, stats.getHitCount());
+		assertEquals(3, stats.getMissCount());
+		assertEquals(1, stats.getLoadSuccessCount());
+	}
+
+	@Test
+	public void testLoaderFailures() {
+		Cache<String, String> cache = Cache.builder().withMaximumSize(10).build();
+		assertNull(cache.get("a", key -> null));
+		assertNull(cache.getIfPresent("a"));
+
+		try {
+			cache.get("a", key -> {
+				throw new IllegalStateException("Unavailable");
+			});
+			fail();
+		}
+		catch (IllegalStateException expected) {
+			assertEquals("Unavailable", expected.getMessage());
+		}
+
+		assertEquals("A", cache.get("a", String::toUpperCase));
+		assertEquals(2, cache.getStats().getLoadFailureCount());
+
+		try {
+			cache.get("b");
+			fail();
+		}
+		catch (IllegalStateException expected) {
+			// Expected, as there is no default loader.
+		}
+	}
+
+	@Test
+	public void testSingleFlightLoading() throws Exception {
+		Cache<String, String> cache = Cache.builder().withMaximumSize(100).build();
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		try {
+			List<Future<String>> results = new ArrayList<>();
+
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> cache.get("key", key -> {
+					loads.incrementAndGet();
+					loading.countDown();
+					await(release);
+					return "value";
+				})));
+			}
+
+			loading.await();
+			Thread.sleep(50);
+			release.countDown();
+
+			for (Future<String> result : results) {
+				assertEquals("value", result.get(10, TimeUnit.SECONDS));
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getStats().getLoadSuccessCount());
+	}
+
+	@Test
+	public void testMaximumSize() {
+		Cache<Integer, Integer> cache = Cache.builder().withMaximumSize(100).build();
+
+		for (int i = 0; i < 10_000; i++) {
+			cache.put(i, i);
+		}
+
+		cache.cleanUp();
+		assertEquals(100, cache.estimatedSize());
+		assertEquals(9900, cache.getStats().getEvictionCount());
+	}
+
+	@Test
+	public void testFrequentEntriesSurviveScan() {
+		Cache<Integer, Integer> cache = Cache.builder().withMaximumSize(100).build();
+
+		// Make keys 0 to 49 popular.
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 50; i++) {
+				cache.get(i, key -> key);
+			}
+		}
+
+		// Scan through many keys which are each used once; plain LRU would flush all popular keys.
+		for (int i = 1000; i < 11_000; i++) {
+			cache.get(i, key -> key);
+		}
+
+		cache.cleanUp();
+		int survivors = 0;
+
+		for (int i = 0; i < 50; i++) {
+			survivors += cache.getIfPresent(i) != null ? 1 : 0;
+		}
+
+		assertTrue("Only " + survivors + " popular entries survived", survivors >= 45);
+		assertEquals(100, cache.estimatedSize());
+	}
+
+	@Test
+	public void testMaximumWeight() {
+		Cache<String, String> cache = Cache.builder().withMaximumWeight(100, (String key, String value) -> value.length()).build();
+
+		for (int i = 0; i < 100; i++) {
+			cache.put("key" + i, "0123456789");
+		}
+
+		cache.cleanUp();
+		assertEquals(10, cache.estimatedSize());
+		assertEquals(900, cache.getStats().getEvictionWeight());
+
+		cache.put("huge", new String(new char[101]));
+		cache.cleanUp();
+		assertNull(cache.getIfPresent("huge"));
+	}
+
+	@Test
+	public void testExpireAfterWrite() {
+		AtomicLong time = new AtomicLong();
+		Cache<String, String> cache = Cache.builder().withExpireAfterWrite(Duration.ofSeconds(10)).withTicker(time::get).build();
+
+		cache.put("a", "1");
+		time.addAndGet(Duration.ofSeconds(5).toNanos());
+		assertEquals("1", cache.getIfPresent("a"));
+		cache.put("b", "2");
+
+		time.addAndGet(Duration.ofSeconds(5).toNanos());
+		assertNull(cache.getIfPresent("a"));
+		assertEquals("2", cache.getIfPresent("b"));
+		assertEquals("3", cache.get("a", key -> "3"));
+
+		time.addAndGet(Duration.ofSeconds(20).toNanos());
+		cache.cleanUp();
+		assertEquals(0, cache.estimatedSize());
+	}
+
+	@Test
+	public void testExpireAfterAccess() {
+		AtomicLong time = new AtomicLong();
+		Cache<String, String> cache = Cache.builder().withMaximumSize(10).withExpireAfterAccess(Duration.ofSeconds(10)).withTicker(time::get).build();
+
+		cache.put("a", "1");
+		cache.put("b", "2");
+
+		for (int i = 0; i < 5; i++) {
+			time.addAndGet(Duration.ofSeconds(5).toNanos());
+			assertEquals("1", cache.getIfPresent("a"));
+		}
+
+		cache.cleanUp();
+		assertEquals(1, cache.estimatedSize());
+		assertNull(cache.getIfPresent("b"));
+	}
+
+	@Test
+	public void testConcurrentAccess() throws Exception {
+		Cache<Integer, Integer> cache = Cache.builder().withMaximumSize(500).withExpireAfterAccess(Duration.ofMinutes(1)).build();
+		int threads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try {
+			List<Future<?>> results = new ArrayList<>();
+
+			for (int t = 0; t < threads; t++) {
+				results.add(executor.submit(() -> {
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+
+					for (int i = 0; i < 50_000; i++) {
+						int key = random.nextInt(2000);
+
+						switch (random.nextInt(10)) {
+							case 0:
+								cache.put(key, key);
+								break;
+							case 1:
+								cache.invalidate(key);
+								break;
+							default:
+								Integer value = cache.get(key, Integer::valueOf);
+								assertNotNull(value);
+								assertEquals(key, value.intValue());
+						}
+					}
+				}));
+			}
+
+			for (Future<?> result : results) {
+				result.get(60, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		cache.cleanUp();
+		assertTrue(cache.estimatedSize() <= 500);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
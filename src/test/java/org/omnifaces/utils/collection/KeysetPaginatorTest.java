@@ -0,0 +1,249 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.collection;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.omnifaces.utils.collection.PartialResultList.UNKNOWN_NUMBER_OF_RESULTS;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.omnifaces.utils.collection.KeysetCursor.Direction;
+
+public class KeysetPaginatorTest {
+
+	private static final Comparator<Row> ORDER = Comparator.comparing(Row::getName).thenComparing(Row::getId);
+
+	// Names repeat, so that the id is needed to break ties.
+	private static final List<Row> ROWS = IntStream.range(0, 10_000).mapToObj(i -> new Row("name" + (i / 7), i)).sorted(ORDER).collect(toList());
+
+	public static class Row {
+
+		private final String name;
+		private final int id;
+
+		public Row(String name, int id) {
+			this.name = name;
+			this.id = id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getId() {
+			return id;
+		}
+	}
+
+	/**
+	 * In-memory sorted source which counts the rows it examines, like a database would via an index.
+	 */
+	private static KeysetLoader<Row> keysetLoader(AtomicInteger examined) {
+		return (cursor, limit) -> {
+			int start = 0;
+			int end = ROWS.size();
+
+			if (cursor != null) {
+				Row key = new Row((String) cursor.getKeys().get(0), (Integer) cursor.getKeys().get(1));
+				int low = 0;
+				int high = ROWS.size();
+
+				// Binary search for the first row sorting after the key, or for the key itself when paging backwards.
+				while (low < high) {
+					int middle = (low + high) >>> 1;
+					examined.incrementAndGet();
+					int comparison = ORDER.compare(ROWS.get(middle), key);
+
+					if (comparison < 0 || (comparison == 0 && cursor.getDirection() == Direction.AFTER)) {
+						low = middle + 1;
+					}
+					else {
+						high = middle;
+					}
+				}
+
+				if (cursor.getDirection() == Direction.AFTER) {
+					start = low;
+				}
+				else {
+					end = low;
+					start = Math.max(0, end - limit);
+				}
+			}
+
+			List<Row> rows = ROWS.subList(start, Math.min(end, start + limit));
+			examined.addAndGet(rows.size());
+			return rows;
+		};
+	}
+
+	private static PageLoader<Row> offsetLoader(AtomicInteger examined) {
+		return (offset, limit) -> {
+			List<Row> rows = ROWS.subList(Math.min(offset, ROWS.size()), Math.min(offset + limit, ROWS.size()));
+			examined.addAndGet(offset + rows.size());
+			return new PartialResultList<>(rows, offset, ROWS.size());
+		};
+	}
+
+	@Test
+	public void testPagingForward() {
+		KeysetPaginator<Row> paginator = KeysetPaginator.of(keysetLoader(new AtomicInteger()), 30, Row::getName, Row::getId);
+		List<Row> all = new ArrayList<>();
+		KeysetResultList<Row> page = paginator.getFirstPage();
+		assertFalse(page.getBeforeCursor().isPresent());
+
+		while (true) {
+			assertEquals(all.size(), page.getOffset());
+			all.addAll(page);
+
+			if (!page.getAfterCursor().isPresent()) {
+				break;
+			}
+
+			assertEquals(UNKNOWN_NUMBER_OF_RESULTS, page.getEstimatedTotalNumberOfResults());
+			assertTrue(page.getBeforeCursor().isPresent() || page.getOffset() == 0);
+			page = paginator.getPage(page.getAfterCursor().get());
+		}
+
+		assertEquals(ROWS, all);
+		assertEquals(ROWS.size(), page.getEstimatedTotalNumberOfResults());
+	}
+
+	@Test
+	public void testPagingBackward() {
+		KeysetPaginator<Row> paginator = KeysetPaginator.of(keysetLoader(new AtomicInteger()), 30, Row::getName, Row::getId);
+		KeysetResultList<Row> first = paginator.getFirstPage();
+		KeysetResultList<Row> second = paginator.getPage(first.getAfterCursor().get());
+		KeysetResultList<Row> third = paginator.getPage(second.getAfterCursor().get());
+
+		KeysetResultList<Row> back = paginator.getPage(third.getBeforeCursor().get());
+		assertEquals(new ArrayList<>(second), new ArrayList<>(back));
+		assertEquals(30, back.getOffset());
+		assertEquals(third.get(0), paginator.getPage(back.getAfterCursor().get()).get(0));
+
+		back = paginator.getPage(back.getBeforeCursor().get());
+		assertEquals(new ArrayList<>(first), new ArrayList<>(back));
+		assertEquals(0, back.getOffset());
+		assertFalse(back.getBeforeCursor().isPresent());
+	}
+
+	@Test
+	public void testPagingBackwardWhenEarlierResultsWereRemoved() {
+		List<Integer> source = IntStream.range(0, 25).boxed().collect(toList());
+		KeysetLoader<Integer> loader = (cursor, limit) -> {
+			if (cursor == null) {
+				return source.subList(0, Math.min(limit, source.size()));
+			}
+
+			int key = (Integer) cursor.getKeys().get(0);
+			List<Integer> before = source.stream().filter(i -> i < key).collect(toList());
+			List<Integer> after = source.stream().filter(i -> i > key).collect(toList());
+			return cursor.getDirection() == Direction.AFTER ? after.subList(0, Math.min(limit, after.size()))
+					: before.subList(Math.max(0, before.size() - limit), before.size());
+		};
+		KeysetPaginator<Integer> paginator = new KeysetPaginator<>(loader, 10, Integer::intValue);
+		KeysetResultList<Integer> second = paginator.getPage(paginator.getFirstPage().getAfterCursor().get());
+		source.subList(0, 10).clear();
+
+		KeysetResultList<Integer> back = paginator.getPage(second.getBeforeCursor().get());
+		assertEquals(IntStream.range(10, 20).boxed().collect(toList()), new ArrayList<>(back));
+		assertEquals(0, back.getOffset());
+		assertFalse(back.getBeforeCursor().isPresent());
+		assertEquals(List.of(19), back.getAfterCursor().get().getKeys());
+	}
+
+	@Test
+	public void testPagingBackwardWhenLaterResultsWereRemoved() {
+		List<Integer> source = IntStream.range(0, 25).boxed().collect(toList());
+		KeysetLoader<Integer> loader = (cursor, limit) -> {
+			if (cursor == null) {
+				return source.subList(0, Math.min(limit, source.size()));
+			}
+
+			int key = (Integer) cursor.getKeys().get(0);
+			List<Integer> before = source.stream().filter(i -> i < key).collect(toList());
+			List<Integer> after = source.stream().filter(i -> i > key).collect(toList());
+			return cursor.getDirection() == Direction.AFTER ? after.subList(0, Math.min(limit, after.size()))
+					: before.subList(Math.max(0, before.size() - limit), before.size());
+		};
+		KeysetPaginator<Integer> paginator = new KeysetPaginator<>(loader, 10, Integer::intValue);
+		KeysetResultList<Integer> second = paginator.getPage(paginator.getFirstPage().getAfterCursor().get());
+		source.subList(20, 25).clear();
+
+		KeysetResultList<Integer> empty = paginator.getPage(second.getAfterCursor().get());
+		assertTrue(empty.isEmpty());
+		assertFalse(empty.getAfterCursor().isPresent());
+		assertEquals(20, empty.getOffset());
+		assertEquals(20, empty.getEstimatedTotalNumberOfResults());
+
+		KeysetResultList<Integer> back = paginator.getPage(empty.getBeforeCursor().get());
+		assertEquals(IntStream.range(9, 19).boxed().collect(toList()), new ArrayList<>(back));
+		assertEquals(9, back.getOffset());
+
+		KeysetResultList<Integer> last = paginator.getPage(back.getAfterCursor().get());
+		assertEquals(List.of(19), new ArrayList<>(last));
+		assertEquals(19, last.getOffset());
+		assertEquals(20, last.getEstimatedTotalNumberOfResults());
+	}
+
+	@Test
+	public void testCursorKeys() {
+		KeysetPaginator<Row> paginator = new KeysetPaginator<>(keysetLoader(new AtomicInteger()), 10, Row::getName, Row::getId);
+		KeysetCursor cursor = paginator.getFirstPage().getAfterCursor().get();
+
+		assertEquals(Direction.AFTER, cursor.getDirection());
+		assertEquals(List.of(ROWS.get(9).getName(), ROWS.get(9).getId()), cursor.getKeys());
+	}
+
+	@Test
+	public void testEmptySource() {
+		KeysetResultList<Row> page = new KeysetPaginator<Row>((cursor, limit) -> List.of(), 10, Row::getId).getFirstPage();
+
+		assertTrue(page.isEmpty());
+		assertFalse(page.getAfterCursor().isPresent());
+		assertFalse(page.getBeforeCursor().isPresent());
+		assertEquals(0, page.getEstimatedTotalNumberOfResults());
+	}
+
+	@Test
+	public void testConstantCostPerPage() {
+		int pageSize = 50;
+		AtomicInteger keysetExamined = new AtomicInteger();
+		AtomicInteger offsetExamined = new AtomicInteger();
+		KeysetPaginator<Row> paginator = KeysetPaginator.of(keysetLoader(keysetExamined), pageSize, Row::getName, Row::getId);
+		PageLoader<Row> offsetLoader = offsetLoader(offsetExamined);
+
+		// Binary search plus the page itself plus the one extra row which tells whether there is a next page.
+		int maxKeysetCost = 32 - Integer.numberOfLeadingZeros(ROWS.size()) + pageSize + 1;
+		KeysetResultList<Row> page = paginator.getFirstPage();
+
+		for (int pageIndex = 1; page.getAfterCursor().isPresent(); pageIndex++) {
+			keysetExamined.set(0);
+			page = paginator.getPage(page.getAfterCursor().get());
+			assertTrue("Keyset page " + pageIndex + " examined " + keysetExamined, keysetExamined.get() <= maxKeysetCost);
+
+			offsetExamined.set(0);
+			assertEquals(new ArrayList<>(page), new ArrayList<>(offsetLoader.load(pageIndex * pageSize, pageSize)));
+			assertEquals(Math.min(ROWS.size(), (pageIndex + 1) * pageSize), offsetExamined.get());
+		}
+	}
+
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.collection;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.omnifaces.utils.collection.PartialResultList.UNKNOWN_NUMBER_OF_RESULTS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class PagedResultsTest {
+
+	private static final List<Integer> RESULTS = IntStream.range(0, 95).boxed().collect(toList());
+
+	private static PageLoader<Integer> loader(List<Integer> loadedOffsets, int estimatedTotal) {
+		return (offset, limit) -> {
+			synchronized (loadedOffsets) {
+				loadedOffsets.add(offset);
+			}
+
+			return new PartialResultList<>(RESULTS.subList(Math.min(offset, RESULTS.size()), Math.min(offset + limit, RESULTS.size())), offset, estimatedTotal);
+		};
+	}
+
+	@Test
+	public void testPagesAreCached() {
+		List<Integer> loadedOffsets = new ArrayList<>();
+		PagedResults<Integer> results = new PagedResults<>(loader(loadedOffsets, 95), 10, 3, null);
+
+		assertEquals(RESULTS.subList(0, 10), results.getPage(0));
+		assertEquals(RESULTS.subList(10, 20), results.getPage(1));
+		assertEquals(RESULTS.subList(0, 10), results.getPage(0));
+		assertEquals(2, results.getLoadCount());
+
+		results.getPage(2);
+		results.getPage(3);
+		results.getPage(1); // Evicted as least recently used.
+		assertEquals(5, results.getLoadCount());
+
+		results.invalidate();
+		results.getPage(3);
+		assertEquals(6, results.getLoadCount());
+	}
+
+	@Test
+	public void testNextPageIsPrefetched() {
+		List<Integer> loadedOffsets = new ArrayList<>();
+		PagedResults<Integer> results = new PagedResults<>(loader(loadedOffsets, 95), 10, 4, Runnable::run);
+
+		results.getPage(0);
+		assertEquals(List.of(0, 10), loadedOffsets);
+
+		results.getPage(1);
+		assertEquals(List.of(0, 10, 20), loadedOffsets);
+
+		results.getPage(9);
+		assertEquals(List.of(0, 10, 20, 90), loadedOffsets);
+	}
+
+	@Test
+	public void testLazyList() {
+		List<Integer> loadedOffsets = new ArrayList<>();
+		PagedResults<Integer> results = new PagedResults<>(loader(loadedOffsets, 95), 10);
+		List<Integer> list = results.asList();
+
+		assertEquals(95, list.size());
+		assertEquals(Integer.valueOf(42), list.get(42));
+		assertEquals(RESULTS, new ArrayList<>(list));
+
+		try {
+			list.get(95);
+			fail();
+		}
+		catch (IndexOutOfBoundsException expected) {
+			// Expected.
+		}
+	}
+
+	@Test
+	public void testLazyListWithUnknownSize() {
+		List<Integer> loadedOffsets = new ArrayList<>();
+		PagedResults<Integer> results = new PagedResults<>(loader(loadedOffsets, UNKNOWN_NUMBER_OF_RESULTS), 10, 16, null);
+
+		assertEquals(95, results.asList().size());
+		assertEquals(10, results.getLoadCount());
+		assertEquals(RESULTS, new ArrayList<>(results.asList()));
+		assertEquals(10, results.getLoadCount());
+	}
+
+	private static PagedResults<Integer> pagedResults(List<Integer> loadedOffsets, int total, int estimatedTotal) {
+		return new PagedResults<>((offset, limit) -> {
+			loadedOffsets.add(offset);
+			return new PartialResultList<>(RESULTS.subList(Math.min(offset, total), Math.min(offset + limit, total)), offset, estimatedTotal);
+		}, 10, 16, null);
+	}
+
+	@Test
+	public void testLazyListWithTotalMultipleOfPageSize() {
+		List<Integer> loadedOffsets = new ArrayList<>();
+		PagedResults<Integer> results = pagedResults(loadedOffsets, 90, 90);
+
+		assertEquals(90, results.asList().size());
+		assertEquals(List.of(0, 90, 80), loadedOffsets);
+		assertEquals(RESULTS.subList(0, 90), new ArrayList<>(results.asList()));
+		assertEquals(RESULTS.subList(0, 90), List.of(results.asList().toArray()));
+	}
+
+	@Test
+	public void testLazyListWithTooHighEstimate() {
+		for (int total : new int[] { 0, 1, 9, 10, 11, 45, 89, 90 }) {
+			List<Integer> loadedOffsets = new ArrayList<>();
+			PagedResults<Integer> results = pagedResults(loadedOffsets, total, 1000);
+
+			assertEquals(total, results.asList().size());
+			assertTrue(loadedOffsets.toString(), loadedOffsets.size() < 20);
+			assertEquals(RESULTS.subList(0, total), new ArrayList<>(results.asList()));
+		}
+	}
+
+	@Test
+	public void testLoadBeforeInvalidateDoesNotUpdateTotal() {
+		AtomicInteger total = new AtomicInteger(95);
+		List<Runnable> pendingLoads = new ArrayList<>();
+		Executor deferringExecutor = runnable -> {
+			if (total.get() == 95) {
+				pendingLoads.add(runnable);
+			}
+			else {
+				runnable.run();
+			}
+		};
+		PagedResults<Integer> results = new PagedResults<>((offset, limit) -> {
+			List<Integer> page = RESULTS.subList(0, total.get()).subList(Math.min(offset, total.get()), Math.min(offset + limit, total.get()));
+			return new PartialResultList<>(page, offset, total.get());
+		}, 10, 16, deferringExecutor);
+
+		results.getPage(8);
+		total.set(50);
+		results.invalidate();
+		pendingLoads.forEach(Runnable::run); // Prefetch of the last page of the old results, reporting 95 results.
+
+		assertEquals(50, results.asList().size());
+	}
+
+	@Test
+	public void testFailedPageIsNotCached() {
+		AtomicInteger attempts = new AtomicInteger();
+		PagedResults<Integer> results = new PagedResults<>((offset, limit) -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw new IllegalStateException("Database down");
+			}
+
+			return new PartialResultList<>(RESULTS.subList(offset, offset + limit), offset, 95);
+		}, 10, 2, null);
+
+		try {
+			results.getPage(0);
+			fail();
+		}
+		catch (IllegalStateException expected) {
+			assertEquals("Database down", expected.getMessage());
+		}
+
+		assertEquals(RESULTS.subList(0, 10), results.getPage(0));
+	}
+
+	@Test
+	public void testPageFailingWithErrorIsNotCached() {
+		AtomicInteger attempts = new AtomicInteger();
+		PagedResults<Integer> results = new PagedResults<>((offset, limit) -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw new AssertionError("Driver bug");
+			}
+
+			return new PartialResultList<>(RESULTS.subList(offset, offset + limit), offset, 95);
+		}, 10, 2, null);
+
+		try {
+			results.getPage(0);
+			fail();
+		}
+		catch (AssertionError expected) {
+			assertEquals("Driver bug", expected.getMessage());
+		}
+
+		assertEquals(RESULTS.subList(0, 10), results.getPage(0));
+	}
+
+	@Test
+	public void testRejectedPrefetchIsNotCached() {
+		List<Integer> loadedOffsets = new ArrayList<>();
+		PagedResults<Integer> results = new PagedResults<>(loader(loadedOffsets, 95), 10, 16, runnable -> {
+			throw new RejectedExecutionException("Shut down");
+		});
+
+		assertEquals(RESULTS.subList(0, 10), results.getPage(0));
+		assertEquals(RESULTS.subList(10, 20), results.getPage(1));
+		assertEquals(List.of(0, 10), loadedOffsets);
+	}
+
+	@Test(timeout = 10_000)
+	public void testLazyListWithOversizedPages() {
+		PagedResults<Integer> results = new PagedResults<>((offset, limit) -> {
+			List<Integer> page = RESULTS.subList(Math.min(offset, RESULTS.size()), Math.min(offset + limit + 5, RESULTS.size()));
+			return new PartialResultList<>(page, offset, 1000);
+		}, 10, 16, null);
+
+		assertEquals(RESULTS.size(), results.asList().size());
+	}
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.collection;
+
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.omnifaces.utils.stream.Collectors;
+import org.omnifaces.utils.stream.Streams;
+
+public class PrimitiveCollectionsTest {
+
+	@Test
+	public void testIntSet() {
+		for (IntSet set : new IntSet[] { new IntSet(), IntSet.offHeap(10) }) {
+			Set<Integer> expected = new HashSet<>();
+			Random random = new Random(42);
+
+			for (int i = 0; i < 20_000; i++) {
+				// A small range, so that there are many duplicates and removals of present values, including 0.
+				int value = random.nextInt(2000) - 1000;
+
+				if (random.nextInt(3) == 0) {
+					assertEquals(expected.remove(value), set.remove(value));
+				}
+				else {
+					assertEquals(expected.add(value), set.add(value));
+				}
+
+				assertEquals(expected.size(), set.size());
+			}
+
+			for (int value = -1000; value < 1000; value++) {
+				assertEquals(expected.contains(value), set.contains(value));
+			}
+
+			assertEquals(expected, set.stream().boxed().collect(toSet()));
+			assertEquals(expected.size(), set.toArray().length);
+			assertEquals(expected.stream().mapToInt(Integer::intValue).sum(), set.hashCode());
+
+			set.clear();
+			assertTrue(set.isEmpty());
+			assertFalse(set.contains(0));
+		}
+
+		IntSet offHeap = IntSet.offHeap(0);
+		IntStream.range(1, 100).forEach(offHeap::add);
+		assertEquals(IntSet.of(IntStream.range(1, 100).toArray()), offHeap);
+		assertEquals(IntSet.of(3, 1, 2, 0), IntStream.of(0, 1, 2, 3, 3).collect(IntSet::new, IntSet::add, IntSet::addAll));
+		assertEquals("[0, 1, 2, 3]", IntSet.of(3, 1, 2, 0).toString());
+	}
+
+	@Test
+	public void testLongObjectMap() {
+		LongObjectMap<String> map = new LongObjectMap<>();
+		Map<Long, String> expected = new HashMap<>();
+		Random random = new Random(42);
+
+		for (int i = 0; i < 20_000; i++) {
+			long key = (random.nextInt(2000) - 1000) * 0x100000000L;
+
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			}
+			else {
+				assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+			}
+
+			assertEquals(expected.size(), map.size());
+		}
+
+		expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+		assertEquals(expected, map.entries().collect(toMap(Entry::getKey, Entry::getValue)));
+		assertEquals(expected.keySet(), map.keys().boxed().collect(toSet()));
+		assertNull(map.get(1));
+		assertEquals("x", map.computeIfAbsent(1, key -> "x"));
+		assertEquals("x", map.computeIfAbsent(1, key -> "y"));
+
+		try {
+			map.put(2, null);
+			fail();
+		}
+		catch (NullPointerException expectedException) {
+			// Expected.
+		}
+	}
+
+	@Test
+	public void testLongLongMap() {
+		for (LongLongMap map : new LongLongMap[] { new LongLongMap(), LongLongMap.offHeap(1000) }) {
+			Map<Long, Long> expected = new HashMap<>();
+			Random random = new Random(42);
+
+			for (int i = 0; i < 20_000; i++) {
+				long key = random.nextInt(2000) - 1000L;
+
+				switch (random.nextInt(3)) {
+					case 0:
+						Long removed = expected.remove(key);
+						assertEquals(removed == null ? -1 : removed, map.remove(key, -1));
+						break;
+					case 1:
+						Long previous = expected.put(key, (long) i);
+						assertEquals(previous == null ? -1 : previous, map.put(key, i, -1));
+						break;
+					default:
+						assertEquals((long) expected.merge(key, 1L, Long::sum), map.addTo(key, 1));
+				}
+
+				assertEquals(expected.size(), map.size());
+			}
+
+			expected.forEach((key, value) -> assertEquals((long) value, map.get(key, -1)));
+			assertEquals(expected, map.entries().collect(toMap(Entry::getKey, Entry::getValue)));
+			assertEquals(expected.values().stream().mapToLong(Long::longValue).sum(), map.values().sum());
+			assertFalse(map.containsKey(5000));
+			assertEquals(-1, map.get(5000, -1));
+		}
+
+		assertTrue(LongLongMap.offHeap(0).isOffHeap());
+	}
+
+	@Test
+	public void testStreamsAndCollectors() {
+		IntSet set = Stream.of("a", "bb", "cc").collect(Collectors.toIntSet(String::length));
+		assertEquals(IntSet.of(1, 2), set);
+		assertEquals(3, Streams.stream(set).sum());
+		assertEquals(Set.of(1, 2), Streams.<Integer>stream((Object) set).collect(toSet()));
+
+		LongObjectMap<String> map = LongStream.range(0, 1000).mapToObj(Long::toString).parallel().collect(Collectors.toLongObjectMap(Long::parseLong));
+		assertEquals(1000, map.size());
+		assertEquals("42", map.get(42));
+		assertEquals(1000, Streams.stream(map).count());
+
+		LongLongMap squares = LongStream.range(0, 1000).boxed().parallel().collect(Collectors.toLongLongMap(i -> i, i -> i * i));
+		assertEquals(1000, squares.size());
+		assertEquals(81, squares.get(9, -1));
+		assertEquals(1000, Streams.<Entry<Long, Long>>stream((Object) squares).count());
+
+		try {
+			Stream.of("a", "b").collect(Collectors.toLongObjectMap(String::length));
+			fail();
+		}
+		catch (IllegalStateException expected) {
+			assertEquals("Duplicate key 1", expected.getMessage());
+		}
+	}
+
+}
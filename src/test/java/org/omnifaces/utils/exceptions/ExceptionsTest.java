@@ -0,0 +1,63 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.exceptions;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.omnifaces.utils.exceptions.Exceptions.excludeAll;
+import static org.omnifaces.utils.exceptions.Exceptions.excludeFromStackTrace;
+
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+public class ExceptionsTest {
+
+	private static StackTraceElement element(String className, String methodName) {
+		return new StackTraceElement(className, methodName, "Some.java", 42);
+	}
+
+	@Test
+	public void testExcludeFromStackTrace() {
+		Predicate<StackTraceElement> filter = excludeFromStackTrace(asList("org.apache.catalina", "com.example.Foo.bar", "com.example.Baz$1."));
+
+		assertFalse(filter.test(element("org.apache.catalina.core.StandardWrapper", "invoke")));
+		assertFalse(filter.test(element("org.apache.catalina", "invoke")));
+		assertFalse(filter.test(element("org.apache.catalinax.Other", "invoke")));
+		assertTrue(filter.test(element("org.apache.coyote.Other", "invoke")));
+
+		assertFalse(filter.test(element("com.example.Foo", "bar")));
+		assertFalse(filter.test(element("com.example.Foo", "barbaz")));
+		assertTrue(filter.test(element("com.example.Foo", "baz")));
+		assertTrue(filter.test(element("com.example.Fo", "bar")));
+
+		assertFalse(filter.test(element("com.example.Baz$1", "anything")));
+		assertTrue(filter.test(element("com.example.Baz$2", "anything")));
+
+		// Repeat to exercise the cached decisions.
+		assertFalse(filter.test(element("com.example.Foo", "bar")));
+		assertTrue(filter.test(element("com.example.Foo", "baz")));
+		assertTrue(filter.test(element("org.apache.coyote.Other", "invoke")));
+	}
+
+	@Test
+	public void testExcludeAll() {
+		assertFalse(excludeAll().test(element("java.lang.Thread", "run")));
+		assertFalse(excludeAll().test(element("java.lang.reflect.Method", "invoke")));
+		assertFalse(excludeAll().test(element("org.jboss.weld.bean.proxy.ProxyMethodHandler", "invoke")));
+		assertTrue(excludeAll().test(element("java.lang.Thread", "sleep")));
+		assertTrue(excludeAll().test(element("com.example.Service", "invoke")));
+	}
+
+}
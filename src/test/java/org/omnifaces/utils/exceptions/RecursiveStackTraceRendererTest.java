@@ -0,0 +1,146 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.exceptions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.omnifaces.utils.exceptions.RecursiveStackTraceRenderer.UNLIMITED;
+
+import org.junit.Test;
+
+public class RecursiveStackTraceRendererTest {
+
+	private static Throwable createThrowable() {
+		try {
+			try {
+				throw new IllegalStateException("root");
+			}
+			catch (IllegalStateException e) {
+				throw new RuntimeException("wrapped", e);
+			}
+		}
+		catch (RuntimeException e) {
+			return e;
+		}
+	}
+
+	@Test
+	public void testCollapseCommonFrames() {
+		Throwable throwable = createThrowable();
+
+		String collapsed = new RecursiveStackTraceRenderer(element -> true).render(throwable);
+		String full = Exceptions.getRecursiveStackTrace(throwable);
+
+		assertTrue(collapsed.contains(" more\n"));
+		assertFalse(full.contains(" more\n"));
+		assertTrue(collapsed.length() < full.length());
+		assertTrue(collapsed.startsWith("Exception summary:\n\nException level 0: java.lang.RuntimeException: wrapped\n"));
+	}
+
+	@Test
+	public void testMaxExceptionLevels() {
+		String rendered = new RecursiveStackTraceRenderer(element -> true, true, 1, UNLIMITED, 0).render(createThrowable());
+
+		assertFalse(rendered.contains("Exception level 1:"));
+		assertTrue(rendered.contains("Root cause at level 1: java.lang.IllegalStateException: root"));
+		assertTrue(rendered.contains("... 1 more exception levels"));
+	}
+
+	@Test
+	public void testMaxLength() {
+		String rendered = new RecursiveStackTraceRenderer(element -> true, true, UNLIMITED, 100, 0).render(createThrowable());
+
+		assertTrue(rendered.endsWith("\n... truncated\n"));
+		assertEquals(100 + "\n... truncated\n".length(), rendered.length());
+	}
+
+	@Test
+	public void testCache() {
+		RecursiveStackTraceRenderer renderer = new RecursiveStackTraceRenderer(element -> true, true, UNLIMITED, UNLIMITED, 10);
+		Throwable throwable = createThrowable();
+
+		String expected = new RecursiveStackTraceRenderer(element -> true).render(throwable);
+
+		assertEquals(expected, renderer.render(throwable));
+		assertEquals(expected, renderer.render(throwable));
+	}
+
+	@Test
+	public void testCacheWithCollidingMessages() {
+		assertEquals("Aa".hashCode(), "BB".hashCode());
+
+		RecursiveStackTraceRenderer renderer = new RecursiveStackTraceRenderer(element -> true, true, UNLIMITED, UNLIMITED, 10);
+		Throwable aa = new IllegalStateException("Aa");
+		Throwable bb = new IllegalStateException("BB");
+		bb.setStackTrace(aa.getStackTrace());
+
+		assertTrue(renderer.render(aa).contains("IllegalStateException: Aa"));
+		assertTrue(renderer.render(bb).contains("IllegalStateException: BB"));
+	}
+
+	@Test
+	public void testCacheWithExcludedFrames() {
+		RecursiveStackTraceRenderer renderer = new RecursiveStackTraceRenderer(element -> !element.getMethodName().equals("excluded"), true,
+				UNLIMITED, UNLIMITED, 10);
+		StackTraceElement included = new StackTraceElement("com.example.Foo", "included", "Foo.java", 1);
+		StackTraceElement excluded = new StackTraceElement("com.example.Foo", "excluded", "Foo.java", 2);
+
+		Throwable shortCause = new IllegalStateException("cause");
+		shortCause.setStackTrace(new StackTraceElement[] { included, excluded });
+		Throwable longCause = new IllegalStateException("cause");
+		longCause.setStackTrace(new StackTraceElement[] { included, excluded, excluded });
+
+		Throwable first = new RuntimeException("wrapped", shortCause);
+		first.setStackTrace(new StackTraceElement[] { excluded });
+		Throwable second = new RuntimeException("wrapped", longCause);
+		second.setStackTrace(new StackTraceElement[] { excluded, excluded });
+
+		String expected = new RecursiveStackTraceRenderer(renderer.getFilter()).render(second);
+
+		assertTrue(renderer.render(first).contains("... 1 more\n"));
+		assertEquals(expected, renderer.render(second));
+		assertTrue(expected.contains("... 2 more\n"));
+	}
+
+	@Test
+	public void testSuppressedExceptionWhichIsAlsoCause() {
+		Throwable cause = new IllegalStateException("cause");
+		Throwable other = new IllegalArgumentException("other");
+		Throwable throwable = new RuntimeException("wrapped", cause);
+		throwable.addSuppressed(cause);
+		throwable.addSuppressed(other);
+		cause.addSuppressed(other);
+
+		String rendered = Exceptions.getRecursiveStackTrace(throwable);
+
+		assertTrue(rendered.contains("Suppressed at level 0: java.lang.IllegalStateException: cause\n"));
+		assertTrue(rendered.contains("Suppressed at level 0: java.lang.IllegalArgumentException: other\n"));
+		assertTrue(rendered.contains("Suppressed at level 1: java.lang.IllegalArgumentException: other\n"));
+		assertTrue(rendered.contains("\t\tSuppressed at level 0: java.lang.IllegalArgumentException: other\n"));
+	}
+
+	@Test
+	public void testSuppressedExceptionCycle() {
+		Throwable first = new IllegalStateException("first");
+		Throwable second = new IllegalArgumentException("second");
+		first.addSuppressed(second);
+		second.addSuppressed(first);
+
+		String rendered = Exceptions.getRecursiveStackTrace(first);
+
+		assertEquals(1, rendered.split("Suppressed at level 0: java.lang.IllegalArgumentException: second", -1).length - 1);
+		assertFalse(rendered.contains("Suppressed at level 0: java.lang.IllegalStateException: first"));
+	}
+
+}
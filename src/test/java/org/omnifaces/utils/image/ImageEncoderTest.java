@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.image;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import org.junit.Test;
+
+public class ImageEncoderTest {
+
+	@Test
+	public void testSameOutputAsImageIO() throws IOException {
+		for (int type : new int[] { TYPE_INT_RGB, TYPE_INT_ARGB }) {
+			BufferedImage image = createImage(type);
+
+			ByteArrayOutputStream png = new ByteArrayOutputStream();
+			ImageIO.write(image, "png", png);
+			assertArrayEquals(png.toByteArray(), Images.toPng(image));
+			assertArrayEquals(imageIOToJpg(image), Images.toJpg(image));
+		}
+	}
+
+	private static byte[] imageIOToJpg(BufferedImage image) throws IOException {
+		BufferedImage newBufferedImage = new BufferedImage(image.getWidth(), image.getHeight(), TYPE_INT_RGB);
+		newBufferedImage.createGraphics().drawImage(image, 0, 0, Color.WHITE, null);
+
+		ImageWriter writer = ImageIO.getImageWritersBySuffix("jpg").next();
+		ImageWriteParam imageWriterParam = writer.getDefaultWriteParam();
+		imageWriterParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		imageWriterParam.setCompressionQuality(1f);
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		writer.setOutput(new MemoryCacheImageOutputStream(output));
+		writer.write(null, new IIOImage(newBufferedImage, null, null), imageWriterParam);
+		writer.dispose();
+
+		return output.toByteArray();
+	}
+
+	@Test
+	public void testSettings() throws IOException {
+		BufferedImage image = createImage(TYPE_INT_RGB);
+
+		byte[] best = ImageEncoder.jpg().withQuality(1f).encode(image);
+		byte[] worst = ImageEncoder.jpg().withQuality(0.1f).encode(image);
+		byte[] progressive = ImageEncoder.jpg().withQuality(1f).withProgressive(true).encode(image);
+		assertTrue(worst.length < best.length);
+		assertEquals(image.getWidth(), ImageIO.read(new ByteArrayInputStream(progressive)).getWidth());
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ImageEncoder.of("PNG").withQuality(0f).encode(image, output);
+		BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(output.toByteArray()));
+		assertEquals(image.getRGB(3, 4), decoded.getRGB(3, 4));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownFormat() {
+		ImageEncoder.of("unknown");
+	}
+
+	private static BufferedImage createImage(int type) {
+		Random random = new Random(42);
+		BufferedImage image = new BufferedImage(64, 48, type);
+
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				image.setRGB(x, y, random.nextInt());
+			}
+		}
+
+		return image;
+	}
+
+}
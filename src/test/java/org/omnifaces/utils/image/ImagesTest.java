@@ -0,0 +1,151 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.image;
+
+import static java.awt.image.BufferedImage.TYPE_3BYTE_BGR;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ImagesTest {
+
+	@Test
+	public void testDownscaleAveragesArea() {
+		BufferedImage checkerboard = new BufferedImage(300, 200, TYPE_INT_RGB);
+
+		for (int y = 0; y < checkerboard.getHeight(); y++) {
+			for (int x = 0; x < checkerboard.getWidth(); x++) {
+				checkerboard.setRGB(x, y, (x + y) % 2 == 0 ? 0xFFFFFF : 0x000000);
+			}
+		}
+
+		BufferedImage downscaled = Images.downscale(checkerboard, 150, 100);
+		assertEquals(150, downscaled.getWidth());
+		assertEquals(100, downscaled.getHeight());
+		assertEquals(TYPE_INT_RGB, downscaled.getType());
+
+		for (int y = 0; y < downscaled.getHeight(); y++) {
+			for (int x = 0; x < downscaled.getWidth(); x++) {
+				assertEquals(0xFF808080, downscaled.getRGB(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void testDownscaleNeverUpscales() {
+		BufferedImage image = new BufferedImage(40, 30, TYPE_INT_RGB);
+		BufferedImage downscaled = Images.downscale(image, 100, 10);
+		assertEquals(40, downscaled.getWidth());
+		assertEquals(10, downscaled.getHeight());
+	}
+
+	@Test
+	public void testDownscaleSubimageAndOtherTypes() {
+		Random random = new Random(42);
+		BufferedImage image = new BufferedImage(97, 89, TYPE_INT_RGB);
+		BufferedImage otherType = new BufferedImage(97, 89, TYPE_3BYTE_BGR);
+
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				int rgb = random.nextInt(0x1000000);
+				image.setRGB(x, y, rgb);
+				otherType.setRGB(x, y, rgb);
+			}
+		}
+
+		BufferedImage direct = Images.downscale(image.getSubimage(7, 5, 80, 70), 23, 17);
+		BufferedImage converted = Images.downscale(otherType.getSubimage(7, 5, 80, 70), 23, 17);
+
+		for (int y = 0; y < direct.getHeight(); y++) {
+			for (int x = 0; x < direct.getWidth(); x++) {
+				assertEquals(direct.getRGB(x, y), converted.getRGB(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void testDownscaleIgnoresColorOfTransparentPixels() {
+		BufferedImage image = new BufferedImage(2, 2, TYPE_INT_ARGB);
+		image.setRGB(0, 0, 0xFFFF0000);
+		image.setRGB(1, 0, 0x0000FF00);
+		image.setRGB(0, 1, 0x0000FF00);
+		image.setRGB(1, 1, 0x0000FF00);
+
+		BufferedImage downscaled = Images.downscale(image, 1, 1);
+		int argb = downscaled.getRGB(0, 0);
+		assertEquals(TYPE_INT_ARGB, downscaled.getType());
+		assertTrue(Math.abs((argb >>> 24) - 64) <= 1);
+		assertEquals(0xFF0000, argb & 0xFFFFFF);
+	}
+
+	@Test
+	public void testSubsampledDecode() throws IOException {
+		BufferedImage image = new BufferedImage(400, 300, TYPE_INT_RGB);
+
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				image.setRGB(x, y, x < 50 ? 0xFF0000 : x < 350 ? 0x00FF00 : 0x0000FF);
+			}
+		}
+
+		byte[] png = Images.toPng(image);
+
+		BufferedImage decoded = Images.toBufferedImage(png, 100, 100);
+		assertEquals(134, decoded.getWidth());
+		assertEquals(100, decoded.getHeight());
+		assertEquals(0xFF0000, decoded.getRGB(0, 0) & 0xFFFFFF);
+		assertEquals(0x0000FF, decoded.getRGB(133, 99) & 0xFFFFFF);
+
+		BufferedImage cropped = Images.toCroppedBufferedImage(new ByteArrayInputStream(png), 1.0, 100, 100);
+		assertEquals(100, cropped.getWidth());
+		assertEquals(100, cropped.getHeight());
+		assertEquals(0x00FF00, cropped.getRGB(0, 0) & 0xFFFFFF);
+		assertEquals(0x00FF00, cropped.getRGB(99, 99) & 0xFFFFFF);
+
+		BufferedImage full = Images.toBufferedImage(png, 1000, 1000);
+		assertEquals(400, full.getWidth());
+		assertEquals(300, full.getHeight());
+
+		assertNull(Images.toBufferedImage(new byte[] { 1, 2, 3 }, 100, 100));
+	}
+
+	@Test
+	public void testCropImageToAspectRatio() {
+		BufferedImage image = new BufferedImage(400, 300, TYPE_INT_RGB);
+		image.setRGB(50, 0, 0xFF0000);
+		image.setRGB(0, 37, 0x00FF00);
+
+		BufferedImage square = Images.cropImage(image, 1.0);
+		assertEquals(300, square.getWidth());
+		assertEquals(300, square.getHeight());
+		assertEquals(0xFF0000, square.getRGB(0, 0) & 0xFFFFFF);
+
+		BufferedImage wide = Images.cropImage(image, 16.0 / 9);
+		assertEquals(400, wide.getWidth());
+		assertEquals(225, wide.getHeight());
+		assertEquals(0x00FF00, wide.getRGB(0, 0) & 0xFFFFFF);
+
+		assertSame(image, Images.cropImage(image, 4.0 / 3));
+	}
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.logging;
+
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.SEVERE;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class AsyncHandlerTest {
+
+	private static class CollectingHandler extends Handler {
+
+		private final List<LogRecord> records = new CopyOnWriteArrayList<>();
+		private final CountDownLatch blocker;
+		private volatile boolean closed;
+		private final AtomicInteger closeCount = new AtomicInteger();
+
+		private CollectingHandler(CountDownLatch blocker) {
+			this.blocker = blocker;
+		}
+
+		@Override
+		public void publish(LogRecord record) {
+			try {
+				blocker.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			records.add(record);
+		}
+
+		@Override
+		public void flush() {
+			// NOOP.
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+			closeCount.incrementAndGet();
+		}
+	}
+
+	@Test
+	public void testPublishesFromManyThreads() {
+		CollectingHandler target = new CollectingHandler(new CountDownLatch(0));
+		AsyncHandler handler = new AsyncHandler(target, 16, 4, AsyncHandler.OverflowPolicy.BLOCK, 1);
+
+		IntStream.range(0, 1000).parallel().forEach(i -> handler.publish(new LogRecord(INFO, Integer.toString(i))));
+		handler.close();
+
+		assertTrue(target.closed);
+		assertEquals(1000, target.records.size());
+		assertEquals(1000, target.records.stream().map(LogRecord::getMessage).distinct().count());
+		assertEquals(1000, handler.getPublishedCount());
+		assertEquals(0, handler.getDroppedCount());
+	}
+
+	@Test
+	public void testDropWhenFull() {
+		CountDownLatch blocker = new CountDownLatch(1);
+		CollectingHandler target = new CollectingHandler(blocker);
+		AsyncHandler handler = new AsyncHandler(target, 4, 4, AsyncHandler.OverflowPolicy.DROP, 1);
+
+		for (int i = 0; i < 100; i++) {
+			handler.publish(new LogRecord(INFO, Integer.toString(i)));
+		}
+
+		assertTrue(handler.getDroppedCount() > 0);
+		assertTrue(handler.getQueueDepth() <= handler.getCapacity());
+
+		blocker.countDown();
+		handler.close();
+
+		assertEquals(100, target.records.size() + handler.getDroppedCount());
+	}
+
+	@Test
+	public void testFilterBeforeEnqueue() {
+		CollectingHandler target = new CollectingHandler(new CountDownLatch(0));
+		AsyncHandler handler = new AsyncHandler(target, LogFilter.hasThrowable());
+
+		LogRecord withThrowable = new LogRecord(SEVERE, "with");
+		withThrowable.setThrown(new IllegalStateException());
+
+		handler.publish(new LogRecord(SEVERE, "without"));
+		handler.publish(withThrowable);
+		handler.close();
+
+		assertEquals(List.of("with"), target.records.stream().map(LogRecord::getMessage).collect(toList()));
+	}
+
+	@Test
+	public void testFlushWaitsForRecordBeingPublished() throws Exception {
+		CountDownLatch blocker = new CountDownLatch(1);
+		CollectingHandler target = new CollectingHandler(blocker);
+		AsyncHandler handler = new AsyncHandler(target);
+
+		handler.publish(new LogRecord(INFO, "slow"));
+
+		while (handler.getQueueDepth() > 0) {
+			Thread.sleep(1);
+		}
+
+		// The writer has taken the record out of the buffer, but is still publishing it.
+		Thread flusher = new Thread(handler::flush);
+		flusher.start();
+		flusher.join(100);
+		assertTrue(flusher.isAlive());
+
+		blocker.countDown();
+		flusher.join();
+		assertEquals(1, target.records.size());
+		handler.close();
+	}
+
+	@Test
+	public void testCloseWhilePublishingLosesNoRecords() throws Exception {
+		for (int attempt = 0; attempt < 20; attempt++) {
+			CollectingHandler target = new CollectingHandler(new CountDownLatch(0));
+			AsyncHandler handler = new AsyncHandler(target, 16, 4, AsyncHandler.OverflowPolicy.DROP, 1);
+			Thread publisher = new Thread(() -> IntStream.range(0, 10_000).forEach(i -> handler.publish(new LogRecord(INFO, "record"))));
+
+			publisher.start();
+			handler.close();
+			publisher.join();
+
+			assertEquals(0, handler.getQueueDepth());
+			assertEquals(handler.getPublishedCount(), target.records.size());
+		}
+	}
+
+	@Test(timeout = 10_000)
+	public void testBlockDoesNotWaitForDeadWriter() {
+		Handler failingTarget = new CollectingHandler(new CountDownLatch(0)) {
+			@Override
+			public void publish(LogRecord record) {
+				throw new AssertionError("Broken handler");
+			}
+		};
+		AsyncHandler handler = new AsyncHandler(failingTarget, 4, 4, AsyncHandler.OverflowPolicy.BLOCK, 1);
+
+		for (int i = 0; i < 100; i++) {
+			handler.publish(new LogRecord(INFO, Integer.toString(i)));
+		}
+
+		assertTrue(handler.getDroppedCount() > 0);
+		handler.close();
+	}
+
+	@Test
+	public void testCloseTwice() {
+		CollectingHandler target = new CollectingHandler(new CountDownLatch(0));
+		AsyncHandler handler = new AsyncHandler(target);
+		handler.publish(new LogRecord(INFO, "once"));
+
+		handler.close();
+		handler.close();
+
+		assertEquals(1, target.closeCount.get());
+		assertEquals(1, target.records.size());
+	}
+
+}
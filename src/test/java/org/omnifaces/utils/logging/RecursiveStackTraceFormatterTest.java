@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.logging;
+
+import static java.util.logging.Level.SEVERE;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+
+import org.junit.Test;
+
+public class RecursiveStackTraceFormatterTest {
+
+	private static final Formatter MESSAGE_FORMATTER = new Formatter() {
+		@Override
+		public String format(LogRecord record) {
+			return record.getMessage();
+		}
+	};
+
+	private static LogRecord record(long millis, String message) {
+		LogRecord record = new LogRecord(SEVERE, "Failed");
+		record.setInstant(Instant.ofEpochMilli(millis));
+		record.setThrown(new IllegalStateException(message));
+		return record;
+	}
+
+	@Test
+	public void testAggregation() {
+		RecursiveStackTraceFormatter formatter = new RecursiveStackTraceFormatter(MESSAGE_FORMATTER, element -> true, Duration.ofSeconds(60), 10);
+
+		long[] millis = { 0, 1000, 2000, 60000 };
+		String[] formatted = new String[millis.length];
+
+		for (int i = 0; i < millis.length; i++) {
+			// Same type and same stack trace, but a different message.
+			formatted[i] = formatter.format(record(millis[i], "Connection refused " + i));
+		}
+
+		assertTrue(formatted[0].contains("Exception fingerprint #"));
+		assertTrue(formatted[0].contains("Exception details:"));
+		assertTrue(formatted[2].contains("Same exception as #"));
+		assertTrue(formatted[2].contains(", 3 times in the last 60s"));
+		assertFalse(formatted[2].contains("Exception details:"));
+
+		assertTrue(formatted[3].contains("Exception details:"));
+	}
+
+	@Test
+	public void testBoundedFingerprints() {
+		RecursiveStackTraceFormatter formatter = new RecursiveStackTraceFormatter(MESSAGE_FORMATTER, element -> true, Duration.ofSeconds(60), 1);
+
+		LogRecord other = new LogRecord(SEVERE, "Failed");
+		other.setThrown(new IllegalArgumentException());
+
+		formatter.format(record(0, "Connection refused"));
+		formatter.format(other);
+
+		assertTrue(formatter.format(record(1000, "Connection refused")).contains("Exception details:"));
+	}
+
+	@Test
+	public void testSubSecondWindow() {
+		RecursiveStackTraceFormatter formatter = new RecursiveStackTraceFormatter(MESSAGE_FORMATTER, element -> true, Duration.ofMillis(500), 10);
+
+		String formatted = null;
+
+		for (long millis : new long[] { 0, 100 }) {
+			formatted = formatter.format(record(millis, "Connection refused"));
+		}
+
+		assertTrue(formatted.contains(", 2 times in the last 500ms"));
+	}
+
+	@Test
+	public void testConcurrentOccurrencesAreCounted() throws Exception {
+		RecursiveStackTraceFormatter formatter = new RecursiveStackTraceFormatter(MESSAGE_FORMATTER, element -> true, Duration.ofSeconds(60), 1);
+		Throwable thrown = new IllegalStateException("Connection refused");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try {
+			List<Callable<Void>> tasks = new ArrayList<>();
+
+			for (int i = 0; i < 4; i++) {
+				tasks.add(() -> {
+					for (int j = 0; j < 250; j++) {
+						LogRecord record = new LogRecord(SEVERE, "Failed");
+						record.setInstant(Instant.ofEpochMilli(0));
+						record.setThrown(thrown);
+						formatter.format(record);
+					}
+
+					return null;
+				});
+			}
+
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		LogRecord record = new LogRecord(SEVERE, "Failed");
+		record.setInstant(Instant.ofEpochMilli(0));
+		record.setThrown(thrown);
+		assertTrue(formatter.format(record).contains(", 1,001 times in the last 60s"));
+	}
+
+	@Test
+	public void testNoAggregationByDefault() {
+		RecursiveStackTraceFormatter formatter = new RecursiveStackTraceFormatter(MESSAGE_FORMATTER);
+
+		assertTrue(formatter.format(record(0, "Connection refused")).contains("Exception details:"));
+		assertTrue(formatter.format(record(0, "Connection refused")).contains("Exception details:"));
+	}
+
+}
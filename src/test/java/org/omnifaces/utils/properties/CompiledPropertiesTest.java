@@ -0,0 +1,105 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.properties;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.omnifaces.utils.properties.PropertiesUtils.PropertiesFormat.LIST;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Test;
+
+public class CompiledPropertiesTest {
+
+	@Test
+	public void testCompileAndLookup() throws IOException {
+		Map<String, String> settings = new HashMap<>();
+
+		for (int i = 0; i < 1000; i++) {
+			settings.put("key." + i, "value " + i);
+		}
+
+		settings.put("", "empty key");
+		settings.put("ключ", "значение");
+		settings.put("key", "");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CompiledProperties.compile(settings, out);
+		CompiledProperties compiled = CompiledProperties.wrap(ByteBuffer.wrap(out.toByteArray()));
+
+		assertEquals(settings.size(), compiled.size());
+
+		for (Map.Entry<String, String> entry : settings.entrySet()) {
+			assertEquals(Optional.of(entry.getValue()), compiled.get(entry.getKey()));
+		}
+
+		assertFalse(compiled.get("key.1000").isPresent());
+		assertFalse(compiled.containsKey("key."));
+		assertTrue(compiled.containsKey("key.999"));
+		assertEquals(settings, compiled.toMap());
+
+		List<String> keys = compiled.keys().collect(toList());
+		assertEquals("", keys.get(0));
+		assertEquals("ключ", keys.get(keys.size() - 1));
+	}
+
+	@Test
+	public void testCompileFromPropertiesFile() throws IOException {
+		Path target = Files.createTempFile("CompiledPropertiesTest", ".bin");
+		CompiledProperties.compile(new ByteArrayInputStream("a=1\nb = 2\n# comment\nc:3\n".getBytes(UTF_8)), LIST, target);
+		CompiledProperties compiled = CompiledProperties.open(target);
+
+		assertEquals(3, compiled.size());
+		assertEquals(Optional.of("2"), compiled.get("b"));
+		assertEquals(Optional.of("3"), compiled.get("c"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotCompiled() {
+		CompiledProperties.wrap(ByteBuffer.wrap("a=1\nb=2\n".getBytes(UTF_8)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEntryCountExceedingBuffer() throws IOException {
+		ByteBuffer buffer = compile(Map.of("a", "1", "b", "2"));
+		buffer.putInt(2 * Integer.BYTES, 1_000_000);
+		CompiledProperties.wrap(buffer);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeEntryCount() throws IOException {
+		ByteBuffer buffer = compile(Map.of("a", "1", "b", "2"));
+		buffer.putInt(2 * Integer.BYTES, -1);
+		CompiledProperties.wrap(buffer);
+	}
+
+	private static ByteBuffer compile(Map<String, String> settings) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CompiledProperties.compile(settings, out);
+		return ByteBuffer.wrap(out.toByteArray());
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Properties;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PropertiesCodecTest {
+
+	@Test
+	public void testEscape() {
+		assertSame("lorem ipsum", PropertiesCodec.escape("lorem ipsum"));
+		assertEquals("a\\=b\\:c\\\\d\\te\\nf\\rg\\fh", PropertiesCodec.escape("a=b:c\\d\te\nf\rg\fh"));
+		assertEquals("\\u00e9t\\u00e9 \\u4e2d\\u0000", PropertiesCodec.escape("été 中\0"));
+	}
+
+	@Test
+	public void testEscapeEquivalence() {
+		Random random = new Random(42);
+
+		for (int i = 0; i < 10_000; i++) {
+			String string = randomString(random, random.nextInt(20));
+			assertEquals(formatEscape(string), PropertiesCodec.escape(string));
+		}
+	}
+
+	private static String formatEscape(String string) {
+		StringBuilder builder = new StringBuilder(string.length());
+
+		for (char c : string.toCharArray()) {
+			if (c == '\\') {
+				builder.append("\\\\");
+			}
+			else if (c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '=' || c == ':') {
+				builder.append('\\').append("\t\n\r\f=:".indexOf(c) < 4 ? "tnrf".charAt("\t\n\r\f".indexOf(c)) : c);
+			}
+			else if (c < 0x0020 || c > 0x007e) {
+				builder.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				builder.append(c);
+			}
+		}
+
+		return builder.toString();
+	}
+
+	@Test
+	public void testUnescape() throws IOException {
+		assertSame("lorem ipsum", PropertiesCodec.unescape("lorem ipsum"));
+		assertEquals("a=b:c\\d\te\nf\rg\fh#", PropertiesCodec.unescape("a\\=b\\:c\\\\d\\te\\nf\\rg\\fh\\#"));
+
+		Random random = new Random(42);
+
+		for (int i = 0; i < 1_000; i++) {
+			String string = randomString(random, random.nextInt(20));
+			String escaped = PropertiesCodec.escape(string);
+			assertEquals(string, PropertiesCodec.unescape(escaped));
+
+			Properties properties = new Properties();
+			// Leading spaces are not escaped, and would hence be stripped by load.
+			properties.load(new StringReader("key=x" + escaped));
+			assertEquals("x" + string, properties.getProperty("key"));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnescapeMalformedUnicode() {
+		PropertiesCodec.unescape("a\\u12x4");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnescapeTruncated() {
+		PropertiesCodec.unescape("a\\u12");
+	}
+
+	@Test
+	public void testStreaming() throws IOException {
+		Random random = new Random(42);
+		String string = randomString(random, 100_000);
+
+		StringWriter escaped = new StringWriter();
+		PropertiesCodec.escape(new TrickleReader(string, random), escaped);
+		assertEquals(PropertiesCodec.escape(string), escaped.toString());
+
+		StringWriter unescaped = new StringWriter();
+		PropertiesCodec.unescape(new TrickleReader(escaped.toString(), random), unescaped);
+		assertEquals(string, unescaped.toString());
+	}
+
+	private static String randomString(Random random, int length) {
+		StringBuilder builder = new StringBuilder(length);
+
+		for (int i = 0; i < length; i++) {
+			builder.append(random.nextBoolean() ? "a=:\\\t\n\r\f #!é中\0".charAt(random.nextInt(14)) : (char) random.nextInt(0x800));
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Reads in random small chunks, so that escape sequences are cut off at chunk boundaries.
+	 */
+	private static class TrickleReader extends Reader {
+
+		private final String string;
+		private final Random random;
+		private int position;
+
+		private TrickleReader(String string, Random random) {
+			this.string = string;
+			this.random = random;
+		}
+
+		@Override
+		public int read(char[] buffer, int offset, int length) {
+			if (position == string.length()) {
+				return -1;
+			}
+
+			int count = Math.min(Math.min(length, 1 + random.nextInt(7)), string.length() - position);
+			string.getChars(position, position + count, buffer, offset);
+			position += count;
+			return count;
+		}
+
+		@Override
+		public void close() {
+			// NOOP.
+		}
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.properties;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.omnifaces.utils.properties.PropertiesUtils.PropertiesFormat.LIST;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class PropertiesStoreTest {
+
+	@Test
+	public void testLayersAndReload() throws IOException, InterruptedException {
+		Path directory = Files.createTempDirectory("PropertiesStoreTest");
+		Path base = Files.writeString(directory.resolve("base.properties"), "a=base\nb=base\n");
+		Path stage = Files.writeString(directory.resolve("stage.properties"), "b=stage\n");
+
+		try (PropertiesStore store = new PropertiesStore(asList(base.toUri().toURL(), stage.toUri().toURL()), LIST)) {
+			Map<String, String> snapshot = store.getSettings();
+
+			assertEquals("base", snapshot.get("a"));
+			assertEquals("stage", snapshot.get("b"));
+			assertSame(snapshot, store.getSettings());
+
+			Files.writeString(stage, "b=changed\n");
+
+			long deadline = System.currentTimeMillis() + 30000;
+
+			while (!Optional.of("changed").equals(store.get("b")) && System.currentTimeMillis() < deadline) {
+				Thread.sleep(50);
+			}
+
+			assertEquals(Optional.of("changed"), store.get("b"));
+			assertEquals("stage", snapshot.get("b"));
+		}
+	}
+
+	@Test
+	public void testFailedReloadKeepsPreviousSettings() throws IOException, InterruptedException {
+		Path directory = Files.createTempDirectory("PropertiesStoreTest");
+		Path base = Files.writeString(directory.resolve("base.properties"), "a=base\n");
+		Path stage = Files.writeString(directory.resolve("stage.properties"), "b=stage\n");
+
+		try (PropertiesStore store = new PropertiesStore(asList(base.toUri().toURL(), stage.toUri().toURL()), LIST)) {
+			Map<String, String> snapshot = store.getSettings();
+
+			Files.writeString(stage, "b=\\uZZZZ\n");
+			assertThrows(UncheckedIOException.class, store::reload);
+			assertSame(snapshot, store.getSettings());
+
+			// The watcher must survive the failed reload and pick up the next change.
+			Thread.sleep(500);
+			Files.writeString(stage, "b=fixed\n");
+
+			long deadline = System.currentTimeMillis() + 30000;
+
+			while (!Optional.of("fixed").equals(store.get("b")) && System.currentTimeMillis() < deadline) {
+				Thread.sleep(50);
+			}
+
+			assertEquals(Optional.of("fixed"), store.get("b"));
+			assertEquals(Optional.of("base"), store.get("a"));
+		}
+	}
+
+	@Test
+	public void testLayersAreClosedAndMissingLayersAreEmpty() throws IOException {
+		AtomicInteger opened = new AtomicInteger();
+		AtomicInteger closed = new AtomicInteger();
+		URL layer = new URL(null, "test:layer", new URLStreamHandler() {
+			@Override
+			protected URLConnection openConnection(URL url) {
+				return new URLConnection(url) {
+					@Override
+					public void connect() {
+						// NOOP.
+					}
+
+					@Override
+					public InputStream getInputStream() {
+						opened.incrementAndGet();
+						return new ByteArrayInputStream("a=test\n".getBytes(ISO_8859_1)) {
+							@Override
+							public void close() {
+								closed.incrementAndGet();
+							}
+						};
+					}
+				};
+			}
+		});
+		URL missing = Files.createTempDirectory("PropertiesStoreTest").resolve("missing.properties").toUri().toURL();
+
+		try (PropertiesStore store = new PropertiesStore(asList(layer, missing), LIST)) {
+			store.reload();
+			store.reload();
+
+			assertEquals(Map.of("a", "test"), store.getSettings());
+			assertEquals(3, opened.get());
+			assertEquals(3, closed.get());
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.properties;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.omnifaces.utils.properties.PropertiesUtils.loadAll;
+import static org.omnifaces.utils.properties.PropertiesUtils.loadAllFromClassPath;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PropertiesUtilsTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testLoadAll() throws IOException {
+		Path directory = temporaryFolder.getRoot().toPath();
+		URL first = Files.writeString(directory.resolve("first.properties"), "a=first\nb=first\n").toUri().toURL();
+		URL second = Files.writeString(directory.resolve("second.xml"),
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!DOCTYPE properties SYSTEM \"http://java.sun.com/dtd/properties.dtd\">\n"
+				+ "<properties><entry key=\"b\">second</entry><entry key=\"c\">second</entry></properties>").toUri().toURL();
+		URL missing = directory.resolve("missing.properties").toUri().toURL();
+
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+
+		try {
+			PropertiesLoadReport report = loadAll(asList(first, missing, second), executor);
+
+			assertEquals("first", report.getSettings().get("a"));
+			assertEquals("second", report.getSettings().get("b"));
+			assertEquals("second", report.getSettings().get("c"));
+
+			assertEquals(3, report.getSources().size());
+			assertEquals(2, report.getSources().get(0).getKeyCount());
+			assertTrue(report.getSources().get(1).getError().isPresent());
+			assertFalse(report.getSources().get(2).getError().isPresent());
+			assertEquals(second, report.getSources().get(2).getUrl());
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testLoadAllFromClassPathWithWildcard() throws IOException {
+		Path directory = temporaryFolder.newFolder("classes").toPath();
+		Files.createDirectories(directory.resolve("META-INF/conf"));
+		Files.writeString(directory.resolve("META-INF/conf/b.properties"), "a=directory-b\nb=directory-b\n");
+		Files.writeString(directory.resolve("META-INF/conf/a.properties"), "a=directory-a\n");
+		Files.writeString(directory.resolve("META-INF/conf/ignored.txt"), "a=ignored\n");
+
+		Path jar = temporaryFolder.getRoot().toPath().resolve("conf.jar");
+
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+			out.putNextEntry(new JarEntry("META-INF/conf/"));
+			out.putNextEntry(new JarEntry("META-INF/conf/c.properties"));
+			out.write("b=jar-c\nc=jar-c\n".getBytes(UTF_8));
+			out.putNextEntry(new JarEntry("META-INF/conf/nested/d.properties"));
+			out.write("d=nested\n".getBytes(UTF_8));
+		}
+
+		Thread thread = Thread.currentThread();
+		ClassLoader originalClassLoader = thread.getContextClassLoader();
+
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] { directory.toUri().toURL(), jar.toUri().toURL() }, null)) {
+			thread.setContextClassLoader(classLoader);
+			PropertiesLoadReport report = loadAllFromClassPath("META-INF/conf/*.properties");
+
+			assertEquals(3, report.getSources().size());
+			assertTrue(report.getSources().get(0).getUrl().getPath().endsWith("META-INF/conf/a.properties"));
+			assertTrue(report.getSources().get(1).getUrl().getPath().endsWith("META-INF/conf/b.properties"));
+			assertTrue(report.getSources().get(2).getUrl().toString().endsWith("conf.jar!/META-INF/conf/c.properties"));
+			assertEquals("directory-b", report.getSettings().get("a"));
+			assertEquals("jar-c", report.getSettings().get("b"));
+			assertEquals("jar-c", report.getSettings().get("c"));
+			assertFalse(report.getSettings().containsKey("d"));
+		}
+		finally {
+			thread.setContextClassLoader(originalClassLoader);
+		}
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.properties;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeNotNull;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class SettingsBinderTest {
+
+	public interface MailSettings {
+		String getHost();
+		int getPort();
+		boolean isSsl();
+		Duration timeout();
+		TimeUnit unit();
+		List<String> recipients();
+		Optional<BigDecimal> quota();
+
+		@Setting(key = "retry.count", defaultValue = "3")
+		long retries();
+	}
+
+	public static class ServerSettings {
+		private String name;
+		private Set<Integer> ports;
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		@Setting(key = "listen", defaultValue = "80, 443")
+		public Set<Integer> getPorts() {
+			return ports;
+		}
+
+		public void setPorts(Set<Integer> ports) {
+			this.ports = ports;
+		}
+	}
+
+	public interface UnsupportedSettings {
+		Object value();
+	}
+
+	@Test
+	public void testBindInterface() {
+		Map<String, String> settings = new HashMap<>();
+		settings.put("mail.host", "localhost");
+		settings.put("mail.port", "25");
+		settings.put("mail.ssl", "TRUE");
+		settings.put("mail.timeout", "1500ms");
+		settings.put("mail.unit", "SECONDS");
+		settings.put("mail.recipients", "a@example.com, b@example.com");
+
+		MailSettings mailSettings = SettingsBinder.of(MailSettings.class).bind(settings, "mail.");
+
+		assertEquals("localhost", mailSettings.getHost());
+		assertEquals(25, mailSettings.getPort());
+		assertTrue(mailSettings.isSsl());
+		assertEquals(Duration.ofMillis(1500), mailSettings.timeout());
+		assertEquals(TimeUnit.SECONDS, mailSettings.unit());
+		assertEquals(asList("a@example.com", "b@example.com"), mailSettings.recipients());
+		assertFalse(mailSettings.quota().isPresent());
+		assertEquals(3, mailSettings.retries());
+
+		settings.put("mail.quota", "1.5");
+		settings.put("mail.retry.count", "5");
+		settings.put("mail.timeout", "PT2M");
+
+		MailSettings otherMailSettings = SettingsBinder.of(MailSettings.class).bind(settings, "mail.");
+		assertFalse(mailSettings.equals(otherMailSettings));
+		assertEquals(Optional.of(new BigDecimal("1.5")), otherMailSettings.quota());
+		assertEquals(5, otherMailSettings.retries());
+		assertEquals(Duration.ofMinutes(2), otherMailSettings.timeout());
+		assertEquals(otherMailSettings, SettingsBinder.of(MailSettings.class).bind(settings, "mail."));
+	}
+
+	@Test
+	public void testBindBean() {
+		Map<String, String> settings = new HashMap<>();
+		settings.put("name", "main");
+
+		ServerSettings serverSettings = SettingsBinder.bind(settings, ServerSettings.class);
+		assertEquals("main", serverSettings.getName());
+		assertEquals(new LinkedHashSet<>(asList(80, 443)), serverSettings.getPorts());
+
+		settings.put("listen", "8080");
+		assertEquals(new LinkedHashSet<>(asList(8080)), SettingsBinder.bind(settings, ServerSettings.class).getPorts());
+	}
+
+	@Test
+	public void testAllErrorsReported() {
+		Map<String, String> settings = new HashMap<>();
+		settings.put("port", "twenty-five");
+		settings.put("ssl", "yes");
+		settings.put("timeout", "5 fortnights");
+
+		try {
+			SettingsBinder.bind(settings, MailSettings.class);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			String message = e.getMessage();
+			assertTrue(message, message.contains("'host'"));
+			assertTrue(message, message.contains("'port'"));
+			assertTrue(message, message.contains("'ssl'"));
+			assertTrue(message, message.contains("'timeout'"));
+			assertTrue(message, message.contains("'unit'"));
+			assertFalse(message, message.contains("'quota'"));
+			assertFalse(message, message.contains("'retry.count'"));
+		}
+	}
+
+	@Test
+	public void testBinderCompiledOnce() {
+		assertSame(SettingsBinder.of(MailSettings.class), SettingsBinder.of(MailSettings.class));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedType() {
+		SettingsBinder.of(UnsupportedSettings.class);
+	}
+
+	@Test
+	public void testBindNonPublicRecord() throws Exception {
+		// Records are only available as of Java 16, whereas this library and its tests target Java 11, so the record is compiled at runtime.
+		// The compiler is accessed reflectively, as this module does not read the java.compiler module.
+		assumeTrue(Runtime.version().feature() >= 16);
+		Object compiler = Class.forName("javax.tools.ToolProvider").getMethod("getSystemJavaCompiler").invoke(null);
+		assumeNotNull(compiler);
+		Method run = Class.forName("javax.tools.Tool").getMethod("run", InputStream.class, OutputStream.class, OutputStream.class, String[].class);
+
+		Path directory = Files.createTempDirectory("SettingsBinderTest");
+		Path source = Files.writeString(directory.resolve("MailRecord.java"), "package test;\n"
+			+ "record MailRecord(String host, int port, java.time.Duration timeout,"
+			+ " @org.omnifaces.utils.properties.Setting(defaultValue = \"3\") long retries) {}\n");
+		String classPath = Paths.get(Setting.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+		assertEquals(0, run.invoke(compiler, null, null, null, new String[] { "-classpath", classPath, "-d", directory.toString(), source.toString() }));
+
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] { directory.toUri().toURL() }, getClass().getClassLoader())) {
+			Class<?> recordType = classLoader.loadClass("test.MailRecord");
+			assertFalse(Modifier.isPublic(recordType.getModifiers()));
+
+			Map<String, String> settings = new HashMap<>();
+			settings.put("host", "localhost");
+			settings.put("port", "25");
+			settings.put("timeout", "5s");
+
+			Object mailRecord = SettingsBinder.bind(settings, recordType);
+			assertEquals("MailRecord[host=localhost, port=25, timeout=PT5S, retries=3]", mailRecord.toString());
+		}
+	}
+
+}
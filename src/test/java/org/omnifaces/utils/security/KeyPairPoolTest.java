@@ -0,0 +1,92 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class KeyPairPoolTest {
+
+	@Test
+	public void testFillsUpToWatermark() throws InterruptedException {
+		try (KeyPairPool pool = new KeyPairPool("RSA", null, 512, 3, 2)) {
+			long deadline = System.currentTimeMillis() + 30000;
+
+			while (pool.getPoolDepth() < 3 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+
+			assertEquals(3, pool.getPoolDepth());
+			assertTrue(pool.poll().isPresent());
+			assertEquals(1, pool.getHitCount());
+			assertTrue(pool.getAverageGenerationTimeNanos() > 0);
+		}
+	}
+
+	@Test
+	public void testGetNeverReturnsSameKeyPair() {
+		try (KeyPairPool pool = new KeyPairPool("RSA", null, 512, 1, 1)) {
+			KeyPair first = pool.get();
+			KeyPair second = pool.get();
+
+			assertNotNull(first);
+			assertNotNull(second);
+			assertNotSame(first, second);
+			assertEquals(2, pool.getHitCount() + pool.getMissCount());
+		}
+	}
+
+	@Test(timeout = 10_000)
+	public void testWorkerSurvivesFailures() throws InterruptedException {
+		AtomicInteger calls = new AtomicInteger();
+		KeyPairGenerator failingTwice = new KeyPairGenerator("TEST") {
+
+			@Override
+			public void initialize(int keySize, SecureRandom random) {
+				// NOOP.
+			}
+
+			@Override
+			public KeyPair generateKeyPair() {
+				if (calls.incrementAndGet() <= 2) {
+					throw new IllegalStateException("Entropy source unavailable");
+				}
+
+				return new KeyPair(null, null);
+			}
+		};
+
+		try (KeyPairPool pool = new KeyPairPool("TEST", null, 0, 2, 1, () -> failingTwice)) {
+			while (pool.getPoolDepth() < 2) {
+				Thread.sleep(10);
+			}
+
+			assertEquals(2, pool.getFailureCount());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testUnknownAlgorithm() {
+		new KeyPairPool("NOPE", null, 512, 1, 1);
+	}
+
+}
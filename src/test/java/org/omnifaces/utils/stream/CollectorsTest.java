@@ -12,13 +12,24 @@
  */
 package org.omnifaces.utils.stream;
 
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.naturalOrder;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.omnifaces.utils.stream.Collectors.bottomK;
 import static org.omnifaces.utils.stream.Collectors.findLast;
+import static org.omnifaces.utils.stream.Collectors.topK;
 
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import org.junit.Test;
@@ -44,4 +55,53 @@ public class CollectorsTest {
 		assertEquals(Optional.of("b"), Stream.of("a", "b").collect(findLast()));
 		assertEquals(Optional.empty(), Stream.empty().collect(findLast()));
 	}
+
+	@Test
+	public void testTopKAndBottomK() {
+		List<Integer> values = new Random(42).ints(100_000, -1_000_000, 1_000_000).boxed().collect(toList());
+		List<Integer> sorted = values.stream().sorted().collect(toList());
+		List<Integer> reversed = values.stream().sorted(Comparator.reverseOrder()).collect(toList());
+
+		for (int k : new int[] { 0, 1, 10, 1000 }) {
+			assertEquals(sorted.subList(0, k), values.stream().collect(bottomK(k, naturalOrder())));
+			assertEquals(sorted.subList(0, k), values.parallelStream().collect(bottomK(k, naturalOrder())));
+			assertEquals(reversed.subList(0, k), values.stream().collect(topK(k, naturalOrder())));
+			assertEquals(reversed.subList(0, k), values.parallelStream().collect(topK(k, naturalOrder())));
+		}
+
+		assertEquals(List.of("ccc", "bb"), Stream.of("a", "ccc", "bb").collect(topK(2, comparing(String::length))));
+		assertEquals(List.of("a", "bb", "ccc"), Stream.of("a", "ccc", "bb").collect(bottomK(5, comparing(String::length))));
+	}
+
+	@Test
+	public void testPrimitiveTopKAndBottomK() {
+		int[] ints = new Random(42).ints(100_000).toArray();
+		int[] sortedInts = IntStream.of(ints).sorted().toArray();
+		assertArrayEquals(IntStream.of(sortedInts).limit(100).toArray(), Streams.bottomK(IntStream.of(ints).parallel(), 100));
+		assertArrayEquals(IntStream.range(0, 100).map(i -> sortedInts[sortedInts.length - 1 - i]).toArray(), Streams.topK(IntStream.of(ints), 100));
+		assertArrayEquals(new int[] { Integer.MAX_VALUE, 0 }, Streams.topK(IntStream.of(0, Integer.MIN_VALUE, Integer.MAX_VALUE), 2));
+
+		assertArrayEquals(new long[] { Long.MAX_VALUE, 3 }, Streams.topK(LongStream.of(3, Long.MIN_VALUE, Long.MAX_VALUE, -1), 2));
+		assertArrayEquals(new long[] { Long.MIN_VALUE, -1 }, Streams.bottomK(LongStream.of(3, Long.MIN_VALUE, Long.MAX_VALUE, -1), 2));
+
+		double[] doubles = { 0.5, -0.0, 0.0, Double.NaN, -2.5, Double.NEGATIVE_INFINITY, 1e300 };
+		assertArrayEquals(new double[] { Double.NEGATIVE_INFINITY, -2.5, -0.0, 0.0 }, Streams.bottomK(DoubleStream.of(doubles), 4), 0);
+		assertArrayEquals(new double[] { Double.NaN, 1e300, 0.5 }, Streams.topK(DoubleStream.of(doubles), 3), 0);
+		assertEquals(0, Streams.topK(IntStream.empty(), 3).length);
+	}
+
+	@Test
+	public void testUnboundedK() {
+		List<Integer> values = new Random(42).ints(1000).boxed().collect(toList());
+		List<Integer> sorted = values.stream().sorted().collect(toList());
+		assertEquals(sorted, values.parallelStream().collect(bottomK(Integer.MAX_VALUE, naturalOrder())));
+
+		int[] ints = values.stream().mapToInt(Integer::intValue).toArray();
+		assertArrayEquals(sorted.stream().mapToInt(Integer::intValue).toArray(), Streams.bottomK(IntStream.of(ints).parallel(), Integer.MAX_VALUE));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeKOnEmptyStream() {
+		Streams.bottomK(LongStream.empty(), -1);
+	}
 }
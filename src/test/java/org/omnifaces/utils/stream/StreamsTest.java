@@ -17,17 +17,43 @@ import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.omnifaces.utils.collection.PartialResultList.UNKNOWN_NUMBER_OF_RESULTS;
+import static org.omnifaces.utils.stream.Streams.chunked;
+import static org.omnifaces.utils.stream.Streams.chunkedByTime;
+import static org.omnifaces.utils.stream.Streams.chunkedByWeight;
 import static org.omnifaces.utils.stream.Streams.mapToType;
+import static org.omnifaces.utils.stream.Streams.mergeSorted;
+import static org.omnifaces.utils.stream.Streams.mergeSortedDistinct;
+import static org.omnifaces.utils.stream.Streams.mergeSortedGrouped;
+import static org.omnifaces.utils.stream.Streams.paged;
 import static org.omnifaces.utils.stream.Streams.range;
 import static org.omnifaces.utils.stream.Streams.rangeClosed;
+import static org.omnifaces.utils.stream.Streams.sliding;
+import static org.omnifaces.utils.stream.Streams.zip;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.junit.Test;
+import org.omnifaces.utils.collection.PageLoader;
+import org.omnifaces.utils.collection.PartialResultList;
 
 public class StreamsTest {
 
@@ -112,4 +138,157 @@ public class StreamsTest {
 		);
 	}
 
+	@Test
+	public void testPaged() {
+		List<Integer> results = IntStream.range(0, 1234).boxed().collect(toList());
+		List<Integer> loadedOffsets = new CopyOnWriteArrayList<>();
+
+		for (int estimate : new int[] { 1234, 1000, 2000, UNKNOWN_NUMBER_OF_RESULTS }) {
+			PageLoader<Integer> loader = (offset, limit) -> {
+				loadedOffsets.add(offset);
+				return new PartialResultList<>(results.subList(Math.min(offset, results.size()), Math.min(offset + limit, results.size())), offset, estimate);
+			};
+
+			loadedOffsets.clear();
+			assertEquals(results, paged(loader, 100).collect(toList()));
+			assertEquals(13, loadedOffsets.size());
+
+			assertEquals(results, paged(loader, 100).parallel().collect(toList()));
+			assertEquals(results.stream().mapToLong(Integer::longValue).sum(), paged(loader, 7).parallel().mapToLong(Integer::longValue).sum());
+		}
+
+		loadedOffsets.clear();
+		assertEquals(Optional.of(0), paged((offset, limit) -> {
+			loadedOffsets.add(offset);
+			return new PartialResultList<>(results.subList(offset, offset + limit), offset, 1234);
+		}, 100).findFirst());
+		assertEquals(asList(0), loadedOffsets);
+	}
+
+	@Test
+	public void testMergeSorted() {
+		List<Integer> odd = IntStream.range(0, 50).map(i -> i * 2 + 1).boxed().collect(toList());
+		List<Integer> even = IntStream.range(0, 50).map(i -> i * 2).boxed().collect(toList());
+		List<Integer> tens = IntStream.range(0, 10).map(i -> i * 10).boxed().collect(toList());
+
+		List<Integer> expected = Stream.of(odd, even, tens).flatMap(List::stream).sorted().collect(toList());
+		assertEquals(expected, mergeSorted(Comparator.naturalOrder(), odd.stream(), even.stream(), tens.stream(), Stream.empty()).collect(toList()));
+		assertEquals(IntStream.range(0, 100).boxed().collect(toList()), mergeSortedDistinct(Comparator.naturalOrder(), odd.stream(), even.stream(), tens.stream()).collect(toList()));
+		assertEquals(List.of(), mergeSorted(Comparator.<Integer>naturalOrder()).collect(toList()));
+
+		List<List<Integer>> groups = mergeSortedGrouped(Comparator.naturalOrder(), even.stream(), tens.stream()).collect(toList());
+		assertEquals(50, groups.size());
+		assertEquals(List.of(0, 0), groups.get(0));
+		assertEquals(List.of(2), groups.get(1));
+
+		Comparator<Integer> nullsFirst = Comparator.nullsFirst(Comparator.naturalOrder());
+		assertEquals(asList(asList(null, null), asList(1, 1), asList(2)), mergeSortedGrouped(nullsFirst, Stream.of(null, 1, 2), Stream.of(null, 1)).collect(toList()));
+	}
+
+	@Test
+	public void testMergeSortedIsStableAndLazy() {
+		Comparator<Map.Entry<String, Integer>> byValue = Map.Entry.comparingByValue();
+		Stream<Map.Entry<String, Integer>> first = Stream.of(Map.entry("a", 1), Map.entry("a", 2));
+		Stream<Map.Entry<String, Integer>> second = Stream.of(Map.entry("b", 1), Map.entry("b", 2));
+		assertEquals(asList("a", "b", "a", "b"), mergeSorted(byValue, first, second).map(Map.Entry::getKey).collect(toList()));
+
+		AtomicInteger pulled = new AtomicInteger();
+		AtomicInteger closed = new AtomicInteger();
+		Stream<Integer> infinite1 = Stream.iterate(0, i -> i + 2).peek(i -> pulled.incrementAndGet()).onClose(closed::incrementAndGet);
+		Stream<Integer> infinite2 = Stream.iterate(1, i -> i + 2).peek(i -> pulled.incrementAndGet()).onClose(closed::incrementAndGet);
+
+		try (Stream<Integer> merged = mergeSorted(Comparator.naturalOrder(), infinite1, infinite2)) {
+			assertEquals(IntStream.range(0, 10).boxed().collect(toList()), merged.limit(10).collect(toList()));
+		}
+
+		assertEquals(11, pulled.get());
+		assertEquals(2, closed.get());
+	}
+
+	@Test
+	public void testZip() {
+		Integer[] numbers = IntStream.range(0, 5000).boxed().toArray(Integer[]::new);
+		List<Integer> squares = IntStream.range(0, 5000).map(i -> i * i).boxed().collect(toList());
+		List<Integer> expected = IntStream.range(0, 5000).map(i -> i + i * i).boxed().collect(toList());
+
+		Stream<Integer> zipped = zip(Stream.of(numbers), squares.stream(), Integer::sum);
+		assertEquals(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED, zipped.spliterator().characteristics());
+		assertEquals(expected, zip(Stream.of(numbers).parallel(), squares.stream(), Integer::sum).collect(toList()));
+		assertEquals(expected, zip(numbers, squares.toArray(Integer[]::new), Integer::sum).parallel().collect(toList()));
+		assertEquals(expected, zip(asList(numbers), new LinkedList<>(squares), Integer::sum).collect(toList()));
+
+		// Splits the first 1024 elements off, unlike the array which splits in the middle.
+		Spliterator<Integer> batched = Spliterators.spliterator(squares.iterator(), squares.size(), Spliterator.ORDERED);
+		assertEquals(expected, zip(Stream.of(numbers), StreamSupport.stream(batched, false), Integer::sum).parallel().collect(toList()));
+
+		assertEquals(asList("a1", "b2"), zip(Stream.of("a", "b", "c").filter(s -> !s.equals("c")), Stream.of(1, 2), (s, i) -> s + i).collect(toList()));
+
+		// Filtering loses the exact size, so these are zipped by iterating, which should keep the order and the parallelism.
+		Stream<Integer> iterated = zip(Stream.of(numbers).filter(Objects::nonNull).parallel(), squares.stream(), Integer::sum);
+		assertTrue(iterated.isParallel());
+		assertEquals(expected, iterated.collect(toList()));
+		assertEquals(Spliterator.ORDERED, zip(Stream.of(numbers).filter(Objects::nonNull), squares.stream(), Integer::sum).spliterator().characteristics() & Spliterator.ORDERED);
+		assertEquals(0, zip(new HashSet<>(squares).stream().filter(Objects::nonNull), squares.stream(), Integer::sum).spliterator().characteristics() & Spliterator.ORDERED);
+	}
+
+	@Test
+	public void testChunkedAndSliding() {
+		assertEquals(asList(asList(1, 2, 3), asList(4, 5, 6), asList(7)), chunked(Stream.of(1, 2, 3, 4, 5, 6, 7), 3).collect(toList()));
+		assertEquals(List.of(), chunked(Stream.empty(), 3).collect(toList()));
+		assertEquals(asList(asList(1, 2, 3), asList(2, 3, 4), asList(3, 4, 5)), sliding(Stream.of(1, 2, 3, 4, 5), 3, 1).collect(toList()));
+		assertEquals(asList(asList(1, 2), asList(4, 5)), sliding(Stream.of(1, 2, 3, 4, 5, 6), 2, 3).collect(toList()));
+		assertEquals(List.of(), sliding(Stream.of(1, 2), 3, 1).collect(toList()));
+
+		AtomicInteger pulled = new AtomicInteger();
+		assertEquals(asList(0, 1, 2, 3), chunked(Stream.iterate(0, i -> i + 1).peek(i -> pulled.incrementAndGet()), 4).findFirst().get());
+		assertEquals(4, pulled.get());
+	}
+
+	@Test
+	public void testChunkedAndSlidingInParallel() {
+		List<Integer> numbers = IntStream.range(0, 10_007).boxed().collect(toList());
+
+		for (int size : new int[] { 1, 3, 64 }) {
+			for (int step : new int[] { 1, 2, 3, 100 }) {
+				List<List<Integer>> expected = sliding(numbers.stream(), size, step).collect(toList());
+				assertEquals(expected.size(), sliding(numbers.stream(), size, step).spliterator().getExactSizeIfKnown());
+				assertEquals(expected, sliding(numbers.parallelStream(), size, step).collect(toList()));
+			}
+
+			List<List<Integer>> expected = chunked(numbers.stream(), size).collect(toList());
+			assertEquals(expected.size(), chunked(numbers.stream(), size).spliterator().getExactSizeIfKnown());
+			assertEquals(expected, chunked(numbers.parallelStream(), size).collect(toList()));
+			assertEquals(numbers, expected.stream().flatMap(List::stream).collect(toList()));
+		}
+	}
+
+	@Test
+	public void testChunkedByWeightAndTime() {
+		assertEquals(asList(asList("aa", "bbb"), asList("cccccccc"), asList("d", "e")),
+				chunkedByWeight(Stream.of("aa", "bbb", "cccccccc", "d", "e"), 5, String::length).collect(toList()));
+
+		Instant start = Instant.parse("2021-01-01T00:00:00Z");
+		Stream<Instant> events = IntStream.of(0, 10, 59, 60, 61, 200).mapToObj(start::plusSeconds);
+		assertEquals(asList(3, 2, 1), chunkedByTime(events, Duration.ofMinutes(1), Function.identity()).map(List::size).collect(toList()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testChunkedByWeightWithNegativeMaxWeight() {
+		chunkedByWeight(Stream.of("a"), -1, String::length);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testChunkedByWeightWithNegativeWeight() {
+		chunkedByWeight(Stream.of("a", "b"), 5, element -> -1L).collect(toList());
+	}
+
+	@Test
+	public void testChunkedByWeightWithOverflowingWeight() {
+		assertEquals(asList(asList("a"), asList("b")), chunkedByWeight(Stream.of("a", "b"), Long.MAX_VALUE - 1, element -> Long.MAX_VALUE / 2 + 1).collect(toList()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testChunkedByTimeWithZeroSpan() {
+		chunkedByTime(Stream.of(Instant.EPOCH), Duration.ZERO, Function.identity());
+	}
 }
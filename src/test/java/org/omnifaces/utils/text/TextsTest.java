@@ -0,0 +1,133 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.text;
+
+import static java.lang.Character.isSpaceChar;
+import static java.lang.Character.toLowerCase;
+import static java.lang.Character.toUpperCase;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TextsTest {
+
+	@Test
+	public void testContainsIsoControlCharacters() {
+		assertFalse(Texts.containsIsoControlCharacters("Lorem ipsum  ÿ "));
+		assertTrue(Texts.containsIsoControlCharacters("Lorem\tipsum"));
+		assertTrue(Texts.containsIsoControlCharacters(new StringBuilder("Lorem\u0085ipsum")));
+		assertTrue(Texts.containsIsoControlCharacters("\u007F"));
+
+		for (char c = 0; c < 0x400; c++) {
+			assertEquals(Character.isISOControl(c), Texts.containsIsoControlCharacters(String.valueOf(c)));
+		}
+	}
+
+	@Test
+	public void testToTitleCase() {
+		String titleCase = "Lorem Ipsum Ét 𐐀";
+		assertSame(titleCase, Texts.toTitleCase(titleCase));
+
+		Random random = new Random(42);
+
+		for (int i = 0; i < 10_000; i++) {
+			StringBuilder builder = new StringBuilder();
+
+			for (int length = random.nextInt(12); length > 0; length--) {
+				builder.appendCodePoint(random.nextBoolean() ? " aBcdÉéß  ".charAt(random.nextInt(10)) : random.nextInt(0x10500));
+			}
+
+			String string = builder.toString();
+			assertEquals(streamToTitleCase(string), Texts.toTitleCase(string));
+		}
+	}
+
+	private static String streamToTitleCase(String string) {
+		return string.codePoints().collect(StringBuilder::new, (sb, cp) -> {
+			sb.appendCodePoint(sb.length() == 0 || isSpaceChar(sb.charAt(sb.length() - 1)) ? toUpperCase(cp) : toLowerCase(cp));
+		}, (sb1, sb2) -> {}).toString();
+	}
+
+	@Test
+	public void testStartsAndEndsWithOneOf() {
+		assertTrue(Texts.startsWithOneOf("lorem ipsum", "ipsum", "lor"));
+		assertFalse(Texts.startsWithOneOf("lorem ipsum", "ipsum", "lorem ipsum dolor"));
+		assertTrue(Texts.startsWithOneOf(new StringBuilder("lorem ipsum"), "lorem"));
+		assertTrue(Texts.endsWithOneOf("lorem ipsum", "lorem", "sum"));
+		assertFalse(Texts.endsWithOneOf("lorem ipsum", "lorem", "dolor lorem ipsum"));
+		assertTrue(Texts.endsWithOneOf(new StringBuilder("lorem ipsum"), "ipsum"));
+		assertFalse(Texts.endsWithOneOf("lorem"));
+	}
+
+	@Test
+	public void testAffixMatcher() {
+		AffixMatcher prefixes = AffixMatcher.ofPrefixes("java.", "javax.", "jakarta.", "sun.", "com.sun.", "été", "中文");
+		assertTrue(prefixes.test("java.lang.String"));
+		assertTrue(prefixes.test("javax.faces.Foo"));
+		assertTrue(prefixes.test("com.sun.Bar"));
+		assertTrue(prefixes.test("été 2021"));
+		assertTrue(prefixes.test("中文字"));
+		assertFalse(prefixes.test("javafx.Foo"));
+		assertFalse(prefixes.test("java"));
+		assertFalse(prefixes.test("org.omnifaces.Foo"));
+		assertFalse(prefixes.test(""));
+
+		AffixMatcher suffixes = AffixMatcher.ofSuffixes(".jpg", ".jpeg", ".png");
+		assertTrue(suffixes.test("image.jpeg"));
+		assertTrue(suffixes.test(new StringBuilder("image.png")));
+		assertFalse(suffixes.test("image.gif"));
+		assertFalse(suffixes.test("jpg"));
+
+		assertTrue(AffixMatcher.ofPrefixes("").test(""));
+		assertTrue(AffixMatcher.ofPrefixes("ab", "a").test("ac"));
+		assertFalse(AffixMatcher.ofPrefixes().test("a"));
+	}
+
+	@Test
+	public void testAffixMatcherEquivalence() {
+		Random random = new Random(42);
+		List<String> affixes = new ArrayList<>();
+
+		for (int i = 0; i < 500; i++) {
+			affixes.add(randomString(random, 1 + random.nextInt(4)));
+		}
+
+		String[] array = affixes.toArray(new String[0]);
+		AffixMatcher prefixes = AffixMatcher.ofPrefixes(affixes);
+		AffixMatcher suffixes = AffixMatcher.ofSuffixes(affixes);
+
+		for (int i = 0; i < 10_000; i++) {
+			String string = randomString(random, random.nextInt(6));
+			assertEquals(string, Texts.startsWithOneOf(string, array), prefixes.test(string));
+			assertEquals(string, Texts.endsWithOneOf(string, array), suffixes.test(string));
+		}
+	}
+
+	private static String randomString(Random random, int length) {
+		StringBuilder builder = new StringBuilder();
+
+		for (int i = 0; i < length; i++) {
+			builder.append("abcdéĀ中".charAt(random.nextInt(7)));
+		}
+
+		return builder.toString();
+	}
+
+}